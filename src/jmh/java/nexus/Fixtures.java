@@ -0,0 +1,41 @@
+package nexus;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+/**
+ * Finds the bundled core domain assets the benchmarks use as fixtures. The
+ * resource folder is src/main/resources, relative to the project directory
+ * the benchmarks run from, unless the nexus.resources property points elsewhere
+ */
+public final class Fixtures {
+    public static final String RESOURCES = System.getProperty("nexus.resources", "src/main/resources");
+
+    private Fixtures() {
+    }
+
+    /**
+     * Gets a file of the core domain
+     *
+     * @param folder the folder in the domain, like models or animations
+     * @param name   the file name
+     * @return the file
+     * @throws FileNotFoundException if the fixture doesn't exist, the benchmark can't run without it
+     */
+    public static File core(String folder, String name) throws FileNotFoundException {
+        File file = new File(RESOURCES, "domains" + File.separator + "core" + File.separator + folder + File.separator + name);
+        if (!file.isFile())
+            throw new FileNotFoundException("Benchmark fixture " + file.getAbsolutePath() + " is missing, set -Dnexus.resources to the resource folder");
+        return file;
+    }
+
+    /**
+     * @return the core domain folder
+     */
+    public static File coreDomain() throws FileNotFoundException {
+        File folder = new File(RESOURCES, "domains" + File.separator + "core");
+        if (!folder.isDirectory())
+            throw new FileNotFoundException("Benchmark fixtures " + folder.getAbsolutePath() + " are missing, set -Dnexus.resources to the resource folder");
+        return folder;
+    }
+}
@@ -0,0 +1,65 @@
+package nexus.core.animation;
+
+import nexus.Fixtures;
+import nexus.core.registry.assets.AnimationAsset;
+import nexus.core.render.Animation;
+import nexus.core.render.AnimationPlayback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures interpolating the pose of every animated entity for a frame, the work
+ * the old AnimatedFrame interpolation did and {@link JointPalette#sample} does
+ * now. Each entity plays a bundled clip from its own offset into its own palette,
+ * so the keyframes read differ between entities the way they do in a scene
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationSampleBenchmark {
+    private static final float STEP = 1 / 60f;
+    @Param({"Boxing", "Jazz Dancing"})
+    public String animation;
+    @Param({"1", "64", "1024"})
+    public int entities;
+    private AnimationPlayback[] playbacks;
+    private JointPalette[] palettes;
+
+    @Setup
+    public void setup() throws Exception {
+        AnimationAsset asset = new AnimationAsset(Fixtures.core("animations", animation + ".animation"), true);
+        asset.deserialize();
+        Animation clip = asset.getAnimations().values().iterator().next();
+        playbacks = new AnimationPlayback[entities];
+        palettes = new JointPalette[entities];
+        for (int i = 0; i < entities; i++) {
+            playbacks[i] = new AnimationPlayback(clip, 1);
+            playbacks[i].advance((float) (clip.getDuration() * i / entities));
+            palettes[i] = new JointPalette();
+        }
+    }
+
+    @Benchmark
+    public int sample() {
+        int collapsed = 0;
+        for (int i = 0; i < entities; i++) {
+            playbacks[i].advance(STEP);
+            collapsed += playbacks[i].sample(palettes[i], false);
+        }
+        return collapsed;
+    }
+}
@@ -0,0 +1,78 @@
+package nexus.core.animation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old linear keyframe scan with {@link JointTracks#findFrame(float, int)}
+ * while stepping through a clip at 60 frames per second, the way playback does
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyframeLookupBenchmark {
+    private static final float STEP = 1 / 60f;
+    @Param({"30", "300", "1000", "10000"})
+    public int keys;
+    private JointTracks tracks;
+    private float[] timestamps;
+    private float duration;
+    private float time;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        timestamps = new float[keys];
+        for (int i = 0; i < keys; i++)
+            timestamps[i] = i / 30f;
+        duration = timestamps[keys - 1];
+        tracks = new JointTracks("benchmark", duration, new int[0], null, timestamps, new float[0], new float[0], new float[0]);
+    }
+
+    /**
+     * Steps the time forward, looping at the end of the clip
+     */
+    private float step() {
+        time += STEP;
+        if (time > duration)
+            time %= duration;
+        return time;
+    }
+
+    @Benchmark
+    public int linear() {
+        float time = step();
+        int last = 0;
+        for (int i = 1; i < timestamps.length; i++) {
+            if (timestamps[i] > time)
+                break;
+            last = i;
+        }
+        return last;
+    }
+
+    @Benchmark
+    public int cursor() {
+        cursor = tracks.findFrame(step(), cursor);
+        return cursor;
+    }
+
+    @Benchmark
+    public int binarySearch() {
+        return tracks.findFrame(step(), -1);
+    }
+}
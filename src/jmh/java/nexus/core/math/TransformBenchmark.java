@@ -0,0 +1,61 @@
+package nexus.core.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Transform#getMatrix()} over a frame's worth of transforms, with
+ * a percentage of them moved first. Still transforms only return their cached
+ * matrix, moved ones rebuild it
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+    @Param({"1000", "100000"})
+    public int entities;
+    @Param({"0", "10", "100"})
+    public int movingPercent;
+    private Transform[] transforms;
+    private int moving;
+    private float offset = 0.01f;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        transforms = new Transform[entities];
+        for (int i = 0; i < entities; i++) {
+            transforms[i] = new Transform();
+            transforms[i].setPosition(random.nextFloat() * 100, random.nextFloat() * 100, random.nextFloat() * 100);
+            transforms[i].setRotation(random.nextFloat(), random.nextFloat(), random.nextFloat());
+            transforms[i].getMatrix();
+        }
+        moving = entities * movingPercent / 100;
+    }
+
+    @Benchmark
+    public float getMatrix() {
+        offset = -offset;
+        for (int i = 0; i < moving; i++)
+            transforms[i].incrementPosition(offset, 0, 0);
+        float sum = 0;
+        for (Transform transform : transforms)
+            sum += transform.getMatrix().m30();
+        return sum;
+    }
+}
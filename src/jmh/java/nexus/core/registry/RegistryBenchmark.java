@@ -0,0 +1,97 @@
+package nexus.core.registry;
+
+import nexus.Fixtures;
+import nexus.core.registry.assets.AnimationAsset;
+import nexus.core.registry.assets.IAsset;
+import nexus.core.registry.assets.ImageAsset;
+import nexus.core.registry.assets.MeshAsset;
+import nexus.core.registry.assets.ShaderAsset;
+import nexus.util.CommonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Registry#get(String, Class)} looking up the bundled core assets
+ * by their full names, the way scripts and systems do. The core packs are padded
+ * with extra meshes to see how the lookup holds up as a domain grows
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+    @Param({"0", "1000", "100000"})
+    public int padding;
+    private Registry registry;
+    private String[] names;
+    private List<Class<? extends IAsset>> types;
+    private int next = 0;
+
+    @Setup
+    public void setup() throws Exception {
+        registry = new Registry();
+        List<String> fullNames = new ArrayList<>();
+        types = new ArrayList<>();
+        for (File folder : Objects.requireNonNull(Fixtures.coreDomain().listFiles(File::isDirectory))) {
+            for (File file : Objects.requireNonNull(folder.listFiles(File::isFile))) {
+                IAsset asset = create(file);
+                if (asset == null)
+                    continue;
+                String pack = CommonUtils.resolveDomain(file);
+                registry.put(pack, asset);
+                fullNames.add(pack + ":" + asset.getName());
+                types.add(asset.getClass());
+            }
+        }
+        File model = Fixtures.core("models", "fern.bin");
+        for (int i = 0; i < padding; i++)
+            registry.put("core:models", new MeshAsset(new File(model.getParentFile(), "padding" + i + ".bin"), true));
+        names = fullNames.toArray(new String[0]);
+    }
+
+    /**
+     * Creates the asset for a core file the way the registry system does, scripts are left out
+     */
+    private static IAsset create(File file) throws Exception {
+        switch (CommonUtils.getExtension(file).toLowerCase()) {
+            case "png":
+                return new ImageAsset(file);
+            case "bin":
+                return new MeshAsset(file, true);
+            case "animation":
+                return new AnimationAsset(file, true);
+            case "glsl":
+                return new ShaderAsset(file);
+            default:
+                return null;
+        }
+    }
+
+    @Benchmark
+    public IAsset get() {
+        next = (next + 1) % names.length;
+        return registry.get(names[next], types.get(next));
+    }
+
+    @Benchmark
+    public IAsset getMissing() {
+        return registry.get("core:models:missing", MeshAsset.class);
+    }
+}
@@ -0,0 +1,45 @@
+package nexus.core.registry.assets;
+
+import nexus.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AnimationAsset#deserialize()} on the bundled core clips, which
+ * copies every joint track out of the mapped file
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationDeserializeBenchmark {
+    @Param({"Jazz Dancing", "Boxing"})
+    public String animation;
+    private File file;
+
+    @Setup
+    public void setup() throws Exception {
+        file = Fixtures.core("animations", animation + ".animation");
+    }
+
+    @Benchmark
+    public int deserialize() {
+        AnimationAsset asset = new AnimationAsset(file, true);
+        asset.deserialize();
+        return asset.getAnimations().size();
+    }
+}
@@ -0,0 +1,50 @@
+package nexus.core.registry.assets;
+
+import nexus.Fixtures;
+import nexus.util.opengl.RawMesh;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MeshAsset#deserialize()} on the bundled core models, from the
+ * small fern to the skinned characters. Nothing is uploaded, the time is mapping
+ * the bin file and wrapping its vertices and indices
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshDeserializeBenchmark {
+    @Param({"fern", "Sitting Laughing", "Jazz Dancing", "Boxing"})
+    public String model;
+    private File file;
+
+    @Setup
+    public void setup() throws Exception {
+        file = Fixtures.core("models", model + ".bin");
+    }
+
+    @Benchmark
+    public int deserialize() {
+        MeshAsset asset = new MeshAsset(file, true);
+        asset.deserialize();
+        int vertices = 0;
+        for (RawMesh mesh : asset.getMeshes())
+            vertices += mesh.getVertexCount();
+        return vertices;
+    }
+}
@@ -0,0 +1,132 @@
+package nexus.core.spatial;
+
+import com.artemis.utils.IntBag;
+import nexus.core.math.Frustum;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link SpatialIndex} with entities spread at the same density
+ * whatever their count, so queries of a fixed size find about the same amount of
+ * entities and only the depth of the tree changes. Updates jitter every entity
+ * the way a frame of small movements does, or teleport one percent of them,
+ * which forces those leaves to be reinserted
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+    private static final int QUERIES = 1024;
+    @Param({"10000", "100000", "1000000"})
+    public int entities;
+    private SpatialIndex index;
+    private float[] x, y, z, radius;
+    private int[] proxies;
+    private float extent;
+    private final Random random = new Random(1);
+    private final float[] queryX = new float[QUERIES], queryY = new float[QUERIES], queryZ = new float[QUERIES];
+    private final Frustum[] frustums = new Frustum[QUERIES];
+    private final IntBag result = new IntBag();
+    private int query = 0;
+    private int teleported = 0;
+    private float jitter = 0.01f;
+
+    @Setup
+    public void setup() {
+        extent = (float) Math.cbrt(entities) * 10;
+        index = new SpatialIndex();
+        x = new float[entities];
+        y = new float[entities];
+        z = new float[entities];
+        radius = new float[entities];
+        proxies = new int[entities];
+        for (int i = 0; i < entities; i++) {
+            x[i] = random.nextFloat() * extent;
+            y[i] = random.nextFloat() * extent;
+            z[i] = random.nextFloat() * extent;
+            radius[i] = 0.5f + random.nextFloat();
+            proxies[i] = index.add(i, x[i], y[i], z[i], radius[i]);
+        }
+        index.rebuild();
+        for (int i = 0; i < QUERIES; i++) {
+            queryX[i] = random.nextFloat() * extent;
+            queryY[i] = random.nextFloat() * extent;
+            queryZ[i] = random.nextFloat() * extent;
+            Matrix4f projectionView = new Matrix4f().perspective((float) Math.toRadians(70), 16 / 9f, 0.1f, 100)
+                    .lookAt(queryX[i], queryY[i], queryZ[i], queryX[i] + random.nextFloat() - 0.5f, queryY[i], queryZ[i] + random.nextFloat() - 0.5f, 0, 1, 0);
+            frustums[i] = new Frustum().set(projectionView);
+        }
+    }
+
+    /**
+     * Cycles through the prepared query points
+     */
+    private int nextQuery() {
+        query = (query + 1) & (QUERIES - 1);
+        result.setSize(0);
+        return query;
+    }
+
+    @Benchmark
+    public long updateJitterAll() {
+        jitter = -jitter;
+        for (int i = 0; i < entities; i++)
+            index.move(proxies[i], x[i] + jitter, y[i], z[i], radius[i]);
+        return index.getReinsertions();
+    }
+
+    @Benchmark
+    public long updateTeleportOnePercent() {
+        for (int i = 0, count = entities / 100; i < count; i++) {
+            int entity = teleported;
+            teleported = (teleported + 1) % entities;
+            x[entity] = random.nextFloat() * extent;
+            z[entity] = random.nextFloat() * extent;
+            index.move(proxies[entity], x[entity], y[entity], z[entity], radius[entity]);
+        }
+        return index.getReinsertions();
+    }
+
+    @Benchmark
+    public int queryFrustum() {
+        index.queryFrustum(frustums[nextQuery()], result);
+        return result.size();
+    }
+
+    @Benchmark
+    public int querySphere() {
+        int q = nextQuery();
+        index.querySphere(queryX[q], queryY[q], queryZ[q], 20, result);
+        return result.size();
+    }
+
+    @Benchmark
+    public int queryRay() {
+        int q = nextQuery();
+        index.queryRay(queryX[q], queryY[q], queryZ[q], 1, 0.25f, -0.5f, 200, result);
+        return result.size();
+    }
+
+    @Benchmark
+    public int queryNearest() {
+        int q = nextQuery();
+        index.queryNearest(queryX[q], queryY[q], queryZ[q], 16, result);
+        return result.size();
+    }
+}
@@ -0,0 +1,107 @@
+package nexus.util;
+
+import nexus.Fixtures;
+import nexus.core.registry.assets.AnimationAsset;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link CommonUtils} conversions the asset loaders go through. The
+ * arrays are the bytes of the bundled Boxing model repeated up to the size, and
+ * the rotations are the keyframes of the Boxing clip, so the values are real data
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonUtilsBenchmark {
+    @Param({"1024", "65536", "1048576"})
+    public int floats;
+    private ByteBuffer bytes;
+    private List<Float> floatList;
+    private List<Integer> intList;
+    private Quaternionf[] rotations;
+
+    @Setup
+    public void setup() throws Exception {
+        MappedByteBuffer model = CommonUtils.mapFile(Fixtures.core("models", "Boxing.bin"));
+        bytes = ByteBuffer.allocateDirect(floats * Float.BYTES);
+        while (bytes.hasRemaining()) {
+            ByteBuffer chunk = model.duplicate();
+            chunk.limit(Math.min(chunk.capacity(), bytes.remaining()));
+            bytes.put(chunk);
+        }
+        bytes.flip();
+        floatList = new ArrayList<>(floats);
+        intList = new ArrayList<>(floats);
+        for (int i = 0; i < floats; i++) {
+            floatList.add(bytes.getFloat(i * Float.BYTES));
+            intList.add(bytes.getInt(i * Integer.BYTES));
+        }
+        AnimationAsset animation = new AnimationAsset(Fixtures.core("animations", "Boxing.animation"), true);
+        animation.deserialize();
+        float[] keys = animation.getAnimations().values().iterator().next().getTracks().getRotations();
+        rotations = new Quaternionf[floats / 4];
+        for (int i = 0; i < rotations.length; i++) {
+            int base = (i * 4) % keys.length;
+            rotations[i] = new Quaternionf(keys[base], keys[base + 1], keys[base + 2], keys[base + 3]);
+        }
+    }
+
+    @Benchmark
+    public float[] toFloatArrayFromBuffer() {
+        return CommonUtils.toFloatArray(bytes);
+    }
+
+    @Benchmark
+    public int[] toIntArrayFromBuffer() {
+        return CommonUtils.toIntArray(bytes);
+    }
+
+    @Benchmark
+    public float[] toFloatArrayFromList() {
+        return CommonUtils.toFloatArray(floatList);
+    }
+
+    @Benchmark
+    public int[] toIntArrayFromList() {
+        return CommonUtils.toIntArray(intList);
+    }
+
+    @Benchmark
+    public float rotationRoundTrip() {
+        float sum = 0;
+        for (Quaternionf rotation : rotations) {
+            Matrix4f matrix = CommonUtils.toRotationMatrix(rotation);
+            sum += CommonUtils.fromMatrix(matrix).w;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float interpolateRotations() {
+        float sum = 0;
+        for (int i = 1; i < rotations.length; i++)
+            sum += CommonUtils.interpolate(rotations[i - 1], rotations[i], 0.5f).w;
+        return sum;
+    }
+}
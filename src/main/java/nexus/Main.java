@@ -1,12 +1,22 @@
 package nexus;
 
+import com.artemis.World;
 import lombok.SneakyThrows;
+import nexus.core.render.RenderRecorder;
 import nexus.engine.CoreEngine;
+import nexus.engine.Ticker;
+import nexus.util.Profiler;
+
+import java.io.File;
 
 public class Main {
 
     @SneakyThrows
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            runHeadless(args);
+            return;
+        }
         String resources = "src/main/resources";
         String title = "NexusEngine";
         int width = 1080, height = 720;
@@ -69,4 +79,29 @@ public class Main {
 
         new CoreEngine(resources, title, width, height, resizable, vSync, startMonitor);
     }
+
+    /**
+     * Runs the engine without a window, the arguments after --headless are the
+     * resource folder, the tick rate, the amount of ticks and a trace file. Given
+     * an amount the ticks run back to back and the timings are printed, which is
+     * what benchmarks on ci want, otherwise it ticks in real time until killed.
+     * Given a trace file the run is profiled and exported as a chrome trace
+     */
+    @SneakyThrows
+    private static void runHeadless(String[] args) {
+        String resources = args.length > 1 ? args[1] : "src/main/resources";
+        float tickRate = args.length > 2 ? Float.parseFloat(args[2]) : 60;
+        long ticks = args.length > 3 ? Long.parseLong(args[3]) : -1;
+        File trace = args.length > 4 ? new File(args[4]) : null;
+        if (trace != null)
+            Profiler.setEnabled(true);
+        CoreEngine engine = new CoreEngine(resources);
+        RenderRecorder recorder = engine.getCoreContext().get(World.class).getSystem(RenderRecorder.class);
+        Ticker ticker = new Ticker(tickRate, ticks < 0, ticks);
+        engine.run(ticker);
+        System.out.println(ticker);
+        System.out.println("[" + recorder.getTotalDrawCalls() + "] draw calls recorded over [" + recorder.getFrames() + "] frames");
+        if (trace != null)
+            System.out.println("[" + Profiler.export(trace) + "] profiler events exported to " + trace.getAbsolutePath());
+    }
 }
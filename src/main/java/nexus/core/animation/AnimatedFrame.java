@@ -2,10 +2,7 @@ package nexus.core.animation;
 
 import lombok.Getter;
 import lombok.Setter;
-import nexus.util.CommonUtils;
 import org.joml.Matrix4f;
-import org.joml.Quaternionf;
-import org.joml.Vector3f;
 import org.python.antlr.ast.Str;
 
 import java.text.DecimalFormat;
@@ -43,38 +40,6 @@ public class AnimatedFrame {
         timeStamp = time;
     }
 
-    /**
-     * This method will take the given frames and interpolate between them
-     *
-     * @param last     the last frame
-     * @param next     the next frame
-     * @param progress the progress between them
-     * @return the bone matrices
-     */
-    public static Matrix4f[] interpolate(AnimatedFrame last, AnimatedFrame next, float progress) {
-        Matrix4f[] mats = new Matrix4f[MAX_JOINTS];
-        for (int i = 0; i < MAX_JOINTS; i++) {
-            Matrix4f lastLocal = new Matrix4f(last.localMatrices[i]);
-            Matrix4f lastParent = new Matrix4f(last.parentMatrices[i]);
-            Matrix4f lastRoot = new Matrix4f(last.rootTransformation);
-            Matrix4f nextLocal = new Matrix4f(next.localMatrices[i]);
-            Matrix4f nextParent = new Matrix4f(next.parentMatrices[i]);
-            Matrix4f finalMatrix = lastParent.mul(lastLocal);
-            Matrix4f nextFinalMatrix = nextParent.mul(nextLocal);
-            Vector3f lastPos = finalMatrix.getTranslation(new Vector3f());
-            Quaternionf lastRot = finalMatrix.getNormalizedRotation(new Quaternionf());
-            Vector3f nextPos = nextFinalMatrix.getTranslation(new Vector3f());
-            Quaternionf nextRot = nextFinalMatrix.getNormalizedRotation(new Quaternionf());
-            Vector3f nextScale = nextFinalMatrix.getScale(new Vector3f());
-            Vector3f newPos = new Vector3f(lastPos).lerp(nextPos, progress);
-            Quaternionf newRot = CommonUtils.interpolate(lastRot, nextRot, progress);
-            finalMatrix.identity().translationRotateScale(newPos, newRot, nextScale);
-            finalMatrix = new Matrix4f(lastRoot).mul(finalMatrix);
-            mats[i] = finalMatrix;
-        }
-        return mats;
-    }
-
     public String toString() {
         StringBuilder localMats = new StringBuilder();
         for (Matrix4f matrix4f : localMatrices)
@@ -0,0 +1,105 @@
+package nexus.core.animation;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An animation level of detail policy. Each band covers the distances up to its
+ * max distance from the camera and decides how often an entity in it is sampled
+ * and whether its leaf joints are collapsed onto their parents. Between samples
+ * the entity keeps showing its previous palette. Policies are immutable once
+ * built so one can be shared by any number of animation maps
+ */
+public class AnimationLod {
+    public static final AnimationLod FULL = new AnimationLod();
+    public static final AnimationLod DEFAULT = new AnimationLod()
+            .everyNthFrame(20, 1, false)
+            .everyNthFrame(50, 2, false)
+            .cappedHz(100, 15, true)
+            .cappedHz(Float.MAX_VALUE, 5, true);
+    private final List<Band> bands;
+
+    /**
+     * Creates a policy without bands, which samples everything at full rate
+     */
+    public AnimationLod() {
+        this.bands = new ArrayList<>();
+    }
+
+    private AnimationLod(List<Band> bands, Band band) {
+        this.bands = new ArrayList<>(bands);
+        this.bands.add(band);
+        this.bands.sort((a, b) -> Float.compare(a.maxDistance, b.maxDistance));
+    }
+
+    /**
+     * Adds a band that samples every nth frame
+     *
+     * @param maxDistance the max distance this band covers
+     * @param interval    sample once every this many frames
+     * @param skipLeaves  if true leaf joints are collapsed onto their parents
+     * @return a new policy with the band added
+     */
+    public AnimationLod everyNthFrame(float maxDistance, int interval, boolean skipLeaves) {
+        return new AnimationLod(bands, new Band(maxDistance, Math.max(1, interval), 0, skipLeaves));
+    }
+
+    /**
+     * Adds a band that samples at most the given amount of times per second
+     *
+     * @param maxDistance the max distance this band covers
+     * @param hz          the max samples per second
+     * @param skipLeaves  if true leaf joints are collapsed onto their parents
+     * @return a new policy with the band added
+     */
+    public AnimationLod cappedHz(float maxDistance, float hz, boolean skipLeaves) {
+        return new AnimationLod(bands, new Band(maxDistance, 1, 1f / hz, skipLeaves));
+    }
+
+    /**
+     * Gets the band for the given distance, entities past the last band use the last band
+     *
+     * @param distance the distance from the camera
+     * @return the band, or null if the policy has no bands
+     */
+    public Band select(float distance) {
+        for (int i = 0; i < bands.size(); i++)
+            if (distance <= bands.get(i).maxDistance)
+                return bands.get(i);
+        return bands.isEmpty() ? null : bands.get(bands.size() - 1);
+    }
+
+    /**
+     * A single distance band of the policy
+     */
+    public static class Band {
+        @Getter
+        private final float maxDistance;
+        @Getter
+        private final int interval;
+        @Getter
+        private final float minimumStep;
+        @Getter
+        private final boolean skipLeaves;
+
+        private Band(float maxDistance, int interval, float minimumStep, boolean skipLeaves) {
+            this.maxDistance = maxDistance;
+            this.interval = interval;
+            this.minimumStep = minimumStep;
+            this.skipLeaves = skipLeaves;
+        }
+
+        /**
+         * Checks if an entity in this band should be sampled
+         *
+         * @param framesSkipped the frames since it was last sampled
+         * @param pendingTime   the time since it was last sampled
+         * @return true if it should be sampled now
+         */
+        public boolean isDue(int framesSkipped, float pendingTime) {
+            return framesSkipped + 1 >= interval && pendingTime >= minimumStep;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package nexus.core.animation;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import lombok.Getter;
+import nexus.context.Context;
+import nexus.core.defaults.IteratingInitSystem;
+import nexus.core.defaults.Writes;
+import nexus.core.math.Transform;
+import nexus.core.player.LocalPlayer;
+import nexus.core.render.AnimationMap;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Samples the joint palette of every animated entity before rendering. Entities
+ * don't share any animation state, so the entity list is split across a fork join
+ * pool and each palette is computed independently, the renderer only uploads them.
+ * Each entity's {@link AnimationLod} picks how often it's sampled from its distance
+ * to the local player, the counters show how much work that saved in the last frame
+ */
+@All(AnimationMap.class)
+@Writes({AnimationMap.class, Transform.class})
+public class AnimationSystem extends IteratingInitSystem {
+    private static final int BATCH_SIZE = 16; //Entities sampled per task before splitting stops
+    private Context coreContext;
+    private final ForkJoinPool pool;
+    @Getter
+    private final boolean parallel;
+    public ComponentMapper<AnimationMap> mAnimation;
+    public ComponentMapper<Transform> mTransform;
+    private LocalPlayer localPlayer;
+    private final Vector3f playerPosition = new Vector3f(); //Read by every task, set once per frame
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder collapsedJoints = new LongAdder();
+    @Getter
+    private long sampledLastFrame, reusedLastFrame, collapsedJointsLastFrame;
+    @Getter
+    private long totalReused, totalCollapsedJoints;
+
+    public AnimationSystem(Context coreContext) {
+        this(coreContext, true);
+    }
+
+    /**
+     * Creates the animation system
+     *
+     * @param coreContext the core context
+     * @param parallel    if true the palettes are sampled on the common fork join pool
+     */
+    public AnimationSystem(Context coreContext, boolean parallel) {
+        this.coreContext = coreContext;
+        this.parallel = parallel;
+        this.pool = parallel ? ForkJoinPool.commonPool() : null;
+    }
+
+    /**
+     * Gets the local player, used for the lod distance
+     */
+    public void postInitialization() {
+        localPlayer = coreContext.get(LocalPlayer.class);
+    }
+
+    /**
+     * Samples every entity, splitting the work across the pool when there is enough of it
+     */
+    protected void processSystem() {
+        IntBag actives = subscription.getEntities();
+        int[] ids = actives.getData();
+        int size = actives.size();
+        if (localPlayer != null)
+            localPlayer.getTransform().getMatrix().getTranslation(playerPosition);
+        if (parallel && size > BATCH_SIZE)
+            pool.invoke(new SampleTask(ids, 0, size));
+        else
+            for (int i = 0; i < size; i++)
+                process(ids[i]);
+        sampledLastFrame = sampled.sumThenReset();
+        reusedLastFrame = reused.sumThenReset();
+        collapsedJointsLastFrame = collapsedJoints.sumThenReset();
+        totalReused += reusedLastFrame;
+        totalCollapsedJoints += collapsedJointsLastFrame;
+    }
+
+    /**
+     * Samples a single entity's palette
+     *
+     * @param entityID the entity to process
+     */
+    protected void process(int entityID) {
+        AnimationMap animation = mAnimation.get(entityID);
+        if (animation.update(world.delta, distance(entityID))) {
+            sampled.increment();
+            collapsedJoints.add(animation.getCollapsedJoints());
+        } else {
+            reused.increment();
+        }
+    }
+
+    /**
+     * Gets the world space distance between an entity and the local player
+     *
+     * @param entityID the entity
+     * @return the distance, or 0 if either has no position
+     */
+    private float distance(int entityID) {
+        Transform transform = mTransform.get(entityID);
+        if (transform == null || localPlayer == null)
+            return 0;
+        Matrix4f matrix = transform.getMatrix();
+        return playerPosition.distance(matrix.m30(), matrix.m31(), matrix.m32());
+    }
+
+    /**
+     * Samples a range of entities, splitting it in half until it's small enough
+     */
+    private class SampleTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] ids;
+        private final int start, end;
+
+        private SampleTask(int[] ids, int start, int end) {
+            this.ids = ids;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute() {
+            if (end - start <= BATCH_SIZE) {
+                for (int i = start; i < end; i++)
+                    process(ids[i]);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new SampleTask(ids, start, middle), new SampleTask(ids, middle, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package nexus.core.animation;
+
+import lombok.Getter;
+import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+/**
+ * The joint matrices of a single animated entity, stored in a direct buffer
+ * that can be handed straight to the shader. Sampling reuses the buffer and
+ * the scratch matrices, so nothing is allocated once the palette exists
+ */
+public class JointPalette {
+    public static final int MAX_JOINTS = 150; //Must match MAX_JOINTS in the animated shader
+    @Getter
+    private final FloatBuffer matrices = BufferUtils.createFloatBuffer(MAX_JOINTS * 16);
+    private final Matrix4f joint = new Matrix4f();
+
+    public JointPalette() {
+        identity();
+    }
+
+    /**
+     * Resets every joint to identity
+     */
+    public void identity() {
+        joint.identity();
+        for (int i = 0; i < MAX_JOINTS; i++)
+            joint.get(i * 16, matrices);
+    }
+
+    /**
+     * Samples the tracks between two frames into the palette. Translations are lerped,
+     * rotations are nlerped and the scale is taken from the next frame, the keyframes
+     * already include the root transform so each joint is composed once. Skipped leaf
+     * joints aren't sampled at all, they copy their parent's matrix instead
+     *
+     * @param tracks     the tracks to sample
+     * @param last       the last frame index
+     * @param next       the next frame index
+     * @param progress   the progress between the two frames
+     * @param skipLeaves if true leaf joints are collapsed onto their parents
+     * @return the amount of joints that were collapsed instead of sampled
+     */
+    public int sample(JointTracks tracks, int last, int next, float progress, boolean skipLeaves) {
+        float[] translations = tracks.getTranslations();
+        float[] rotations = tracks.getRotations();
+        float[] scales = tracks.getScales();
+        int[] slots = tracks.getJointSlots();
+        int jointCount = tracks.getJointCount();
+        float inverse = 1f - progress;
+        int collapsed = 0;
+        for (int j = 0; j < jointCount; j++) {
+            int slot = slots[j];
+            if (slot >= MAX_JOINTS)
+                continue;
+            if (skipLeaves && tracks.isLeaf(j)) {
+                collapsed++;
+                continue;
+            }
+            int a = last * jointCount + j;
+            int b = next * jointCount + j;
+            float tx = translations[a * 3] + (translations[b * 3] - translations[a * 3]) * progress;
+            float ty = translations[a * 3 + 1] + (translations[b * 3 + 1] - translations[a * 3 + 1]) * progress;
+            float tz = translations[a * 3 + 2] + (translations[b * 3 + 2] - translations[a * 3 + 2]) * progress;
+            float ax = rotations[a * 4], ay = rotations[a * 4 + 1], az = rotations[a * 4 + 2], aw = rotations[a * 4 + 3];
+            float bx = rotations[b * 4], by = rotations[b * 4 + 1], bz = rotations[b * 4 + 2], bw = rotations[b * 4 + 3];
+            float blend = ax * bx + ay * by + az * bz + aw * bw < 0 ? -progress : progress;
+            float rx = inverse * ax + blend * bx;
+            float ry = inverse * ay + blend * by;
+            float rz = inverse * az + blend * bz;
+            float rw = inverse * aw + blend * bw;
+            float length = (float) (1.0 / Math.sqrt(rx * rx + ry * ry + rz * rz + rw * rw));
+            joint.translationRotateScale(tx, ty, tz, rx * length, ry * length, rz * length, rw * length,
+                    scales[b * 3], scales[b * 3 + 1], scales[b * 3 + 2]);
+            joint.get(slot * 16, matrices);
+        }
+        if (collapsed > 0)
+            collapseLeaves(tracks);
+        return collapsed;
+    }
+
+    /**
+     * Copies each leaf joint's parent matrix into the leaf, so the leaf moves rigidly with its parent
+     *
+     * @param tracks the tracks that were sampled
+     */
+    private void collapseLeaves(JointTracks tracks) {
+        int[] slots = tracks.getJointSlots();
+        int[] parents = tracks.getJointParents();
+        for (int j = 0; j < tracks.getJointCount(); j++) {
+            if (!tracks.isLeaf(j) || parents[j] < 0)
+                continue;
+            int slot = slots[j];
+            int parentSlot = slots[parents[j]];
+            if (slot >= MAX_JOINTS || parentSlot >= MAX_JOINTS)
+                continue;
+            for (int i = 0; i < 16; i++)
+                matrices.put(slot * 16 + i, matrices.get(parentSlot * 16 + i));
+        }
+    }
+
+    /**
+     * Copies a single joint matrix out of the palette
+     *
+     * @param slot the joint matrix index
+     * @param dest the matrix to copy into
+     * @return dest, left untouched if the slot is outside the palette
+     */
+    public Matrix4f get(int slot, Matrix4f dest) {
+        if (slot < 0 || slot >= MAX_JOINTS)
+            return dest;
+        int i = slot * 16;
+        return dest.set(matrices.get(i), matrices.get(i + 1), matrices.get(i + 2), matrices.get(i + 3),
+                matrices.get(i + 4), matrices.get(i + 5), matrices.get(i + 6), matrices.get(i + 7),
+                matrices.get(i + 8), matrices.get(i + 9), matrices.get(i + 10), matrices.get(i + 11),
+                matrices.get(i + 12), matrices.get(i + 13), matrices.get(i + 14), matrices.get(i + 15));
+    }
+
+    /**
+     * Linearly blends this palette towards another one, component by component
+     *
+     * @param other the palette to blend towards
+     * @param blend the blend amount, 0 keeps this palette and 1 copies the other
+     */
+    public void blend(JointPalette other, float blend) {
+        FloatBuffer target = other.matrices;
+        for (int i = 0; i < MAX_JOINTS * 16; i++) {
+            float value = matrices.get(i);
+            matrices.put(i, value + (target.get(i) - value) * blend);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package nexus.core.animation;
+
+import lombok.Getter;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores a single animation as flat translation, rotation and scale keyframes,
+ * only for the joints that the animation actually uses. The keyframes are the
+ * final joint transforms with the root transform already applied, so sampling
+ * only has to interpolate and compose them. Every track is laid out frame by
+ * frame, so the values for a frame and joint are found at
+ * (frame * jointCount + joint) * components
+ */
+public class JointTracks {
+    private static final Matrix4f IDENTITY_MATRIX = new Matrix4f();
+    @Getter
+    private final String name;
+    @Getter
+    private final double duration;
+    @Getter
+    private final int frameCount, jointCount;
+    @Getter
+    private final int[] jointSlots; //The joint matrix index each track writes to
+    @Getter
+    private final int[] jointParents; //The parent track of each track or -1, null when the hierarchy is unknown
+    private final boolean[] leaves;
+    @Getter
+    private final float[] timestamps;
+    @Getter
+    private final float[] translations; //3 floats per joint per frame
+    @Getter
+    private final float[] rotations; //4 floats per joint per frame, x y z w
+    @Getter
+    private final float[] scales; //3 floats per joint per frame
+
+    public JointTracks(String name, double duration, int[] jointSlots, int[] jointParents, float[] timestamps, float[] translations, float[] rotations, float[] scales) {
+        this.name = name;
+        this.duration = duration;
+        this.frameCount = timestamps.length;
+        this.jointCount = jointSlots.length;
+        this.jointSlots = jointSlots;
+        this.jointParents = jointParents;
+        this.leaves = new boolean[jointCount];
+        if (jointParents != null) {
+            Arrays.fill(leaves, true);
+            for (int parent : jointParents)
+                if (parent >= 0)
+                    leaves[parent] = false;
+        }
+        this.timestamps = timestamps;
+        this.translations = translations;
+        this.rotations = rotations;
+        this.scales = scales;
+    }
+
+    /**
+     * Creates empty tracks, the keyframes are filled in with {@link #setKey(int, int, Matrix4f)}
+     *
+     * @param name         the animation name
+     * @param duration     the animation duration
+     * @param jointSlots   the joint matrix index of each track
+     * @param jointParents the parent track of each track or -1, null if unknown
+     * @param frameCount   the amount of keyframes
+     */
+    public JointTracks(String name, double duration, int[] jointSlots, int[] jointParents, int frameCount) {
+        this(name, duration, jointSlots, jointParents, new float[frameCount],
+                new float[frameCount * jointSlots.length * 3],
+                new float[frameCount * jointSlots.length * 4],
+                new float[frameCount * jointSlots.length * 3]);
+    }
+
+    /**
+     * Creates a copy of these tracks under a different name, the keyframes are shared
+     *
+     * @param name the new name
+     * @return the renamed tracks
+     */
+    public JointTracks withName(String name) {
+        return new JointTracks(name, duration, jointSlots, jointParents, timestamps, translations, rotations, scales);
+    }
+
+    /**
+     * Decomposes a final joint transform into the keyframe for the given frame and joint
+     *
+     * @param frame     the frame index
+     * @param joint     the track index, not the joint slot
+     * @param transform the final transform, including the root transform
+     */
+    public void setKey(int frame, int joint, Matrix4f transform) {
+        int key = frame * jointCount + joint;
+        Vector3f translation = transform.getTranslation(new Vector3f());
+        Quaternionf rotation = transform.getUnnormalizedRotation(new Quaternionf()); //The root transform scales the columns
+        Vector3f scale = transform.getScale(new Vector3f());
+        translations[key * 3] = translation.x;
+        translations[key * 3 + 1] = translation.y;
+        translations[key * 3 + 2] = translation.z;
+        rotations[key * 4] = rotation.x;
+        rotations[key * 4 + 1] = rotation.y;
+        rotations[key * 4 + 2] = rotation.z;
+        rotations[key * 4 + 3] = rotation.w;
+        scales[key * 3] = scale.x;
+        scales[key * 3 + 1] = scale.y;
+        scales[key * 3 + 2] = scale.z;
+    }
+
+    /**
+     * Builds the tracks from matrix based animated frames, joints that are identity
+     * in every frame are dropped. The frames don't know the joint hierarchy so the
+     * tracks won't have one either
+     *
+     * @param name     the animation name
+     * @param duration the animation duration
+     * @param frames   the frames to convert
+     * @return the joint tracks
+     */
+    public static JointTracks fromFrames(String name, double duration, List<AnimatedFrame> frames) {
+        List<Integer> used = new ArrayList<>();
+        for (int joint = 0; joint < AnimatedFrame.MAX_JOINTS; joint++) {
+            for (AnimatedFrame frame : frames) {
+                if (!frame.getLocalMatrices()[joint].equals(IDENTITY_MATRIX) || !frame.getParentMatrices()[joint].equals(IDENTITY_MATRIX)) {
+                    used.add(joint);
+                    break;
+                }
+            }
+        }
+        int[] jointSlots = new int[used.size()];
+        for (int j = 0; j < jointSlots.length; j++)
+            jointSlots[j] = used.get(j);
+        JointTracks tracks = new JointTracks(name, duration, jointSlots, null, frames.size());
+        Matrix4f transform = new Matrix4f();
+        for (int f = 0; f < frames.size(); f++) {
+            AnimatedFrame frame = frames.get(f);
+            tracks.timestamps[f] = frame.getTimeStamp();
+            for (int j = 0; j < jointSlots.length; j++) {
+                int slot = jointSlots[j];
+                frame.getRootTransformation().mul(frame.getParentMatrices()[slot], transform).mul(frame.getLocalMatrices()[slot]);
+                tracks.setKey(f, j, transform);
+            }
+        }
+        return tracks;
+    }
+
+    /**
+     * Checks if a track has no child tracks, always false when the hierarchy is unknown
+     *
+     * @param joint the track index
+     * @return true if the joint is a leaf
+     */
+    public boolean isLeaf(int joint) {
+        return leaves[joint];
+    }
+
+    /**
+     * Finds the last keyframe at or before the given time. Playback is coherent so the
+     * hint, usually the frame found last time, and the frame after it are checked first,
+     * anything else falls back to a binary search over the timestamps
+     *
+     * @param time the animation time
+     * @param hint the frame to try first
+     * @return the last frame index, the next frame is that index plus one clamped to the last frame
+     */
+    public int findFrame(float time, int hint) {
+        if (hint >= 0 && hint < frameCount && (hint == 0 || timestamps[hint] <= time)) {
+            if (hint + 1 >= frameCount || timestamps[hint + 1] > time)
+                return hint;
+            if (hint + 2 >= frameCount || timestamps[hint + 2] > time)
+                return hint + 1;
+        }
+        int low = 0;
+        int high = frameCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (timestamps[middle] <= time)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * The amount of bytes {@link #write(ByteBuffer)} needs
+     *
+     * @return size in bytes
+     */
+    public int getByteSize() {
+        return Integer.BYTES + name.getBytes(StandardCharsets.UTF_8).length
+                + Double.BYTES + 2 * Integer.BYTES
+                + jointCount * Integer.BYTES
+                + Integer.BYTES + (jointParents != null ? jointCount * Integer.BYTES : 0)
+                + (timestamps.length + translations.length + rotations.length + scales.length) * Float.BYTES;
+    }
+
+    /**
+     * Writes the tracks to the buffer
+     *
+     * @param buffer the buffer to write into
+     */
+    public void write(ByteBuffer buffer) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(nameBytes.length).put(nameBytes);
+        buffer.putDouble(duration);
+        buffer.putInt(frameCount).putInt(jointCount);
+        buffer.asIntBuffer().put(jointSlots);
+        buffer.position(buffer.position() + jointSlots.length * Integer.BYTES);
+        buffer.putInt(jointParents != null ? 1 : 0);
+        if (jointParents != null) {
+            buffer.asIntBuffer().put(jointParents);
+            buffer.position(buffer.position() + jointParents.length * Integer.BYTES);
+        }
+        putFloats(buffer, timestamps);
+        putFloats(buffer, translations);
+        putFloats(buffer, rotations);
+        putFloats(buffer, scales);
+    }
+
+    /**
+     * Reads tracks written by {@link #write(ByteBuffer)}, every track is copied in one bulk read.
+     * Version 1 stored the root transforms separately, those get baked into the keyframes here,
+     * the joint hierarchy is only stored from version 3
+     *
+     * @param buffer  the buffer to read from
+     * @param version the file version the tracks were written with
+     * @return the joint tracks
+     */
+    public static JointTracks read(ByteBuffer buffer, int version) {
+        byte[] nameBytes = new byte[buffer.getInt()];
+        buffer.get(nameBytes);
+        double duration = buffer.getDouble();
+        int frameCount = buffer.getInt();
+        int jointCount = buffer.getInt();
+        int[] jointSlots = new int[jointCount];
+        buffer.asIntBuffer().get(jointSlots);
+        buffer.position(buffer.position() + jointCount * Integer.BYTES);
+        int[] jointParents = null;
+        if (version >= 3 && buffer.getInt() != 0) {
+            jointParents = new int[jointCount];
+            buffer.asIntBuffer().get(jointParents);
+            buffer.position(buffer.position() + jointCount * Integer.BYTES);
+        }
+        float[] timestamps = getFloats(buffer, frameCount);
+        float[] roots = version == 1 ? getFloats(buffer, frameCount * 16) : null;
+        float[] translations = getFloats(buffer, frameCount * jointCount * 3);
+        float[] rotations = getFloats(buffer, frameCount * jointCount * 4);
+        float[] scales = getFloats(buffer, frameCount * jointCount * 3);
+        JointTracks tracks = new JointTracks(new String(nameBytes, StandardCharsets.UTF_8), duration, jointSlots, jointParents, timestamps, translations, rotations, scales);
+        if (roots != null)
+            tracks.applyRoots(roots);
+        return tracks;
+    }
+
+    /**
+     * Premultiplies every keyframe by its frame's root transform
+     *
+     * @param roots the root transforms, 16 floats per frame
+     */
+    private void applyRoots(float[] roots) {
+        Matrix4f root = new Matrix4f();
+        Matrix4f transform = new Matrix4f();
+        for (int f = 0; f < frameCount; f++) {
+            root.set(roots, f * 16);
+            for (int j = 0; j < jointCount; j++) {
+                int key = f * jointCount + j;
+                transform.translationRotateScale(
+                        translations[key * 3], translations[key * 3 + 1], translations[key * 3 + 2],
+                        rotations[key * 4], rotations[key * 4 + 1], rotations[key * 4 + 2], rotations[key * 4 + 3],
+                        scales[key * 3], scales[key * 3 + 1], scales[key * 3 + 2]);
+                setKey(f, j, root.mul(transform, transform));
+            }
+        }
+    }
+
+    /**
+     * Bulk writes a float array and moves the buffer past it
+     */
+    private static void putFloats(ByteBuffer buffer, float[] data) {
+        buffer.asFloatBuffer().put(data);
+        buffer.position(buffer.position() + data.length * Float.BYTES);
+    }
+
+    /**
+     * Bulk reads a float array and moves the buffer past it
+     */
+    private static float[] getFloats(ByteBuffer buffer, int length) {
+        float[] data = new float[length];
+        buffer.asFloatBuffer().get(data);
+        buffer.position(buffer.position() + length * Float.BYTES);
+        return data;
+    }
+}
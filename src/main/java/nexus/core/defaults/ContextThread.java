@@ -0,0 +1,15 @@
+package nexus.core.defaults;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a system that calls into opengl, so it always runs on the thread that
+ * owns the context. Systems marked with it run in the order they were registered
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ContextThread {
+}
@@ -0,0 +1,9 @@
+package nexus.core.defaults;
+
+/**
+ * Marks a system that runs once per rendered frame, like input, the camera and
+ * the renderers. Every other system belongs to the simulation and runs once per
+ * fixed tick, so a frame can see any amount of ticks, including none
+ */
+public interface FrameSystem {
+}
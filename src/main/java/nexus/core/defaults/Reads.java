@@ -0,0 +1,17 @@
+package nexus.core.defaults;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares what a system reads while it processes on top of the components of
+ * its aspect and component mappers, which always count as reads. The classes can
+ * be components or anything shared through the context
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Reads {
+    Class<?>[] value();
+}
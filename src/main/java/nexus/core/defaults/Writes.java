@@ -0,0 +1,17 @@
+package nexus.core.defaults;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares what a system changes while it processes, components or anything
+ * shared through the context. Systems that don't declare their writes never run
+ * at the same time as another system, since anything could change under them
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Writes {
+    Class<?>[] value();
+}
@@ -6,7 +6,9 @@ import com.artemis.systems.IteratingSystem;
 import imgui.ImGui;
 import imgui.ImGuiIO;
 import nexus.context.Context;
+import nexus.core.defaults.FrameSystem;
 import nexus.core.defaults.IteratingInitSystem;
+import nexus.core.defaults.Writes;
 import nexus.window.Display;
 
 import static org.lwjgl.glfw.GLFW.*;
@@ -15,7 +17,8 @@ import static org.lwjgl.glfw.GLFW.*;
  * Updates the input using the input system
  */
 @One(Input.class)
-public class InputSystem extends IteratingInitSystem {
+@Writes(Input.class)
+public class InputSystem extends IteratingInitSystem implements FrameSystem {
     private Display display;
     private Context coreContext;
     public ComponentMapper<Input> mInput;  // used to access component.
@@ -36,12 +39,14 @@ public class InputSystem extends IteratingInitSystem {
 
 
     /**
-     * Create the input and register the callbacks
+     * Create the input and register the callbacks, a headless engine
+     * has no display so its input never changes
      */
     public void postInitialization() {
         display = coreContext.get(Display.class);
         createInput();
-        createCallbacks();
+        if (display != null)
+            createCallbacks();
     }
 
     /**
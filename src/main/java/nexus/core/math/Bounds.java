@@ -0,0 +1,122 @@
+package nexus.core.math;
+
+import lombok.Getter;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+
+import java.nio.FloatBuffer;
+
+/**
+ * An axis aligned box and a bounding sphere around a mesh, in the mesh's local space.
+ * The sphere is centered on the box and its radius reaches the furthest vertex,
+ * which is tighter than the box's half diagonal
+ */
+public class Bounds {
+    public static final int FLOATS = 10; //min, max, center and radius when serialized
+    @Getter
+    private final Vector3f min, max, center;
+    @Getter
+    private float radius;
+
+    public Bounds(Vector3f min, Vector3f max, Vector3f center, float radius) {
+        this.min = min;
+        this.max = max;
+        this.center = center;
+        this.radius = radius;
+    }
+
+    /**
+     * Computes the bounds of a set of vertices
+     *
+     * @param vertices the vertex positions
+     * @param stride   the floats per vertex, the first three are x, y and z
+     * @return the bounds, empty at the origin if there are no vertices
+     */
+    public static Bounds of(float[] vertices, int stride) {
+        return of(FloatBuffer.wrap(vertices), stride);
+    }
+
+    /**
+     * Computes the bounds of a set of vertices
+     *
+     * @param vertices the vertex positions, read from position to limit
+     * @param stride   the floats per vertex, the first three are x, y and z
+     * @return the bounds, empty at the origin if there are no vertices
+     */
+    public static Bounds of(FloatBuffer vertices, int stride) {
+        int start = vertices.position(), end = vertices.limit();
+        if (end - start < 3)
+            return new Bounds(new Vector3f(), new Vector3f(), new Vector3f(), 0);
+        Vector3f min = new Vector3f(Float.POSITIVE_INFINITY), max = new Vector3f(Float.NEGATIVE_INFINITY);
+        for (int i = start; i + 2 < end; i += stride) {
+            float x = vertices.get(i), y = vertices.get(i + 1), z = vertices.get(i + 2);
+            min.set(Math.min(min.x, x), Math.min(min.y, y), Math.min(min.z, z));
+            max.set(Math.max(max.x, x), Math.max(max.y, y), Math.max(max.z, z));
+        }
+        Vector3f center = new Vector3f(min).add(max).mul(0.5f);
+        float radiusSquared = 0;
+        for (int i = start; i + 2 < end; i += stride)
+            radiusSquared = Math.max(radiusSquared, center.distanceSquared(vertices.get(i), vertices.get(i + 1), vertices.get(i + 2)));
+        return new Bounds(min, max, center, (float) Math.sqrt(radiusSquared));
+    }
+
+    /**
+     * Reads bounds written by {@link #toArray()}
+     *
+     * @param data the serialized bounds
+     * @return the bounds
+     */
+    public static Bounds fromArray(float[] data) {
+        return new Bounds(new Vector3f(data[0], data[1], data[2]),
+                new Vector3f(data[3], data[4], data[5]),
+                new Vector3f(data[6], data[7], data[8]),
+                data[9]);
+    }
+
+    /**
+     * @return the bounds as min, max, center and radius
+     */
+    public float[] toArray() {
+        return new float[]{min.x, min.y, min.z, max.x, max.y, max.z, center.x, center.y, center.z, radius};
+    }
+
+    /**
+     * Moves the bounding sphere into world space. The radius grows by the longest
+     * axis of the matrix, so the scale of any parents is included
+     *
+     * @param matrix the model's world matrix
+     * @param dest   receives the center in xyz and the radius in w
+     * @return dest
+     */
+    public Vector4f toWorldSphere(Matrix4f matrix, Vector4f dest) {
+        float x = center.x, y = center.y, z = center.z;
+        float scaleX = matrix.m00() * matrix.m00() + matrix.m01() * matrix.m01() + matrix.m02() * matrix.m02();
+        float scaleY = matrix.m10() * matrix.m10() + matrix.m11() * matrix.m11() + matrix.m12() * matrix.m12();
+        float scaleZ = matrix.m20() * matrix.m20() + matrix.m21() * matrix.m21() + matrix.m22() * matrix.m22();
+        dest.set(matrix.m00() * x + matrix.m10() * y + matrix.m20() * z + matrix.m30(),
+                matrix.m01() * x + matrix.m11() * y + matrix.m21() * z + matrix.m31(),
+                matrix.m02() * x + matrix.m12() * y + matrix.m22() * z + matrix.m32(),
+                radius * (float) Math.sqrt(Math.max(scaleX, Math.max(scaleY, scaleZ))));
+        return dest;
+    }
+
+    /**
+     * Creates bounds enclosing both of these bounds
+     *
+     * @param other the other bounds
+     * @return the new bounds
+     */
+    public Bounds union(Bounds other) {
+        Vector3f unionMin = new Vector3f(min).min(other.min);
+        Vector3f unionMax = new Vector3f(max).max(other.max);
+        Vector3f unionCenter = new Vector3f(unionMin).add(unionMax).mul(0.5f);
+        float unionRadius = Math.max(unionCenter.distance(center) + radius, unionCenter.distance(other.center) + other.radius);
+        return new Bounds(unionMin, unionMax, unionCenter, unionRadius);
+    }
+
+    @Override
+    public String toString() {
+        return "Bounds{min=" + min + ", max=" + max + ", center=" + center + ", radius=" + radius + "}";
+    }
+}
@@ -0,0 +1,84 @@
+package nexus.core.math;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+
+/**
+ * The six planes of a camera frustum, used to cull bounding spheres. Spheres are
+ * tested as structure of arrays so the plane loop runs over contiguous floats
+ */
+public class Frustum {
+    private final float[] planes = new float[6 * 4];
+    private final Vector4f plane = new Vector4f();
+
+    /**
+     * Extracts the planes from a projection view matrix
+     *
+     * @param projectionView the projection matrix multiplied by the view matrix
+     * @return this frustum
+     */
+    public Frustum set(Matrix4f projectionView) {
+        for (int i = 0; i < 6; i++) {
+            projectionView.frustumPlane(i, plane);
+            planes[i * 4] = plane.x;
+            planes[i * 4 + 1] = plane.y;
+            planes[i * 4 + 2] = plane.z;
+            planes[i * 4 + 3] = plane.w;
+        }
+        return this;
+    }
+
+    /**
+     * Tests a sphere against the frustum
+     *
+     * @return true unless the sphere is entirely behind one of the planes
+     */
+    public boolean intersectsSphere(float x, float y, float z, float radius) {
+        for (int p = 0; p < planes.length; p += 4)
+            if (planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3] < -radius)
+                return false;
+        return true;
+    }
+
+    /**
+     * Tests a box against the frustum using the corner furthest along each plane's normal
+     *
+     * @return true unless the box is entirely behind one of the planes
+     */
+    public boolean intersectsAabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int p = 0; p < planes.length; p += 4) {
+            float a = planes[p], b = planes[p + 1], c = planes[p + 2];
+            if (a * (a > 0 ? maxX : minX) + b * (b > 0 ? maxY : minY) + c * (c > 0 ? maxZ : minZ) + planes[p + 3] < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tests a range of spheres against the frustum, a sphere is visible unless
+     * it's entirely behind one of the planes
+     *
+     * @param x       the sphere centers x
+     * @param y       the sphere centers y
+     * @param z       the sphere centers z
+     * @param radius  the sphere radii
+     * @param visible the results, written for every sphere in the range
+     * @param start   the first sphere, inclusive
+     * @param end     the last sphere, exclusive
+     * @return the amount of visible spheres in the range
+     */
+    public int cull(float[] x, float[] y, float[] z, float[] radius, boolean[] visible, int start, int end) {
+        for (int i = start; i < end; i++)
+            visible[i] = true;
+        for (int p = 0; p < planes.length; p += 4) {
+            float a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+            for (int i = start; i < end; i++)
+                visible[i] &= a * x[i] + b * y[i] + c * z[i] + d >= -radius[i];
+        }
+        int count = 0;
+        for (int i = start; i < end; i++)
+            if (visible[i])
+                count++;
+        return count;
+    }
+}
@@ -0,0 +1,255 @@
+package nexus.core.math;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import lombok.Getter;
+import nexus.context.Context;
+import nexus.core.defaults.InitSystem;
+import nexus.core.defaults.Writes;
+import nexus.core.render.AnimationMap;
+import org.joml.Matrix4f;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Computes the world matrix of every entity with a {@link Parent}. The children
+ * are kept in one flat array sorted by their depth in the hierarchy, so walking it
+ * in order always reaches a parent before its children. Every depth level only
+ * reads the level above it, so a level is split across a fork join pool when it's
+ * big enough. Children are only recomputed when their own values, their parent
+ * or the joint they hang from changed. The array is sorted again whenever a child
+ * is added, removed or reparented
+ */
+@All({Transform.class, Parent.class})
+@Writes(Transform.class)
+public class HierarchySystem extends InitSystem {
+    private static final int BATCH_SIZE = 1024; //Children updated per task before splitting stops
+    private final ForkJoinPool pool;
+    @Getter
+    private final boolean parallel;
+    public ComponentMapper<Transform> mTransform;
+    public ComponentMapper<Parent> mParent;
+    public ComponentMapper<AnimationMap> mAnimation;
+    private int[] order = new int[0]; //The children sorted by depth
+    private int[] parents = new int[0], joints = new int[0]; //The parent and joint each child was sorted with
+    private int[] parentVersions = new int[0]; //The parent version each child's world matrix was computed from
+    private int[] levels = new int[1]; //Where each depth level starts in the order, followed by the size
+    @Getter
+    private int levelCount = 0, size = 0;
+    private boolean sorted = false;
+    private final Matrix4f joint = new Matrix4f();
+    private final LongAdder updated = new LongAdder();
+    @Getter
+    private long updatedLastFrame;
+
+    public HierarchySystem(Context coreContext) {
+        this(coreContext, true);
+    }
+
+    /**
+     * Creates the hierarchy system
+     *
+     * @param coreContext the core context
+     * @param parallel    if true large levels are updated on the common fork join pool
+     */
+    public HierarchySystem(Context coreContext, boolean parallel) {
+        this.parallel = parallel;
+        this.pool = parallel ? ForkJoinPool.commonPool() : null;
+    }
+
+    /**
+     * We need to process every frame
+     *
+     * @return processing check
+     */
+    protected boolean checkProcessing() {
+        return true;
+    }
+
+    /**
+     * Sorts the children again on the next frame
+     *
+     * @param entityId the new child
+     */
+    protected void inserted(int entityId) {
+        sorted = false;
+    }
+
+    /**
+     * Detaches a child, its transform goes back to being its own world matrix
+     *
+     * @param entityId the removed child
+     */
+    protected void removed(int entityId) {
+        Transform transform = mTransform.get(entityId);
+        if (transform != null)
+            transform.setAttached(false);
+        sorted = false;
+    }
+
+    /**
+     * Updates the world matrices level by level
+     */
+    protected void processSystem() {
+        if (!sorted || reparented())
+            sort();
+        if (levelCount == 0) {
+            updatedLastFrame = 0;
+            return;
+        }
+        for (int i = levels[0]; i < levels[1]; i++)
+            mTransform.get(parents[i]).updateMatrix();
+        for (int level = 0; level < levelCount; level++) {
+            int start = levels[level], end = levels[level + 1];
+            if (parallel && end - start > BATCH_SIZE)
+                pool.invoke(new LevelTask(start, end));
+            else
+                propagate(start, end, joint);
+        }
+        updatedLastFrame = updated.sumThenReset();
+    }
+
+    /**
+     * Updates the world matrices of a range of children, their parents have to be up to date
+     *
+     * @param scratch a matrix the joint can be copied into
+     */
+    private void propagate(int start, int end, Matrix4f scratch) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            Transform child = mTransform.get(order[i]);
+            Transform parent = mTransform.get(parents[i]);
+            boolean changed = child.updateMatrix() | child.isWorldStale() | parent.getVersion() != parentVersions[i];
+            Matrix4f jointMatrix = null;
+            if (joints[i] >= 0) {
+                AnimationMap animation = mAnimation.get(parents[i]);
+                if (animation != null) {
+                    jointMatrix = animation.getJointMatrix(joints[i], scratch);
+                    changed = true;
+                }
+            }
+            if (!changed)
+                continue;
+            child.updateWorld(parent.getMatrix(), jointMatrix);
+            parentVersions[i] = parent.getVersion();
+            count++;
+        }
+        updated.add(count);
+    }
+
+    /**
+     * @return true if a child changed its parent since the last sort, or its parent lost its transform
+     */
+    private boolean reparented() {
+        for (int i = 0; i < size; i++) {
+            Parent parent = mParent.get(order[i]);
+            if (parent.getEntity() != parents[i] || parent.getJoint() != joints[i] || !mTransform.has(parents[i]))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sorts the children by depth, children whose parent has no transform are
+     * detached and hierarchies with a cycle are left out
+     */
+    private void sort() {
+        IntBag actives = subscription.getEntities();
+        int[] ids = actives.getData();
+        int count = actives.size();
+        int highest = 0;
+        for (int i = 0; i < count; i++)
+            highest = Math.max(highest, Math.max(ids[i], mParent.get(ids[i]).getEntity()));
+        int[] depths = new int[highest + 1]; //0 until known, -1 for children in a cycle
+        int[] path = new int[count + 1];
+        int deepest = 0;
+        for (int i = 0; i < count; i++) {
+            int steps = 0;
+            int entity = ids[i];
+            while (isChild(entity) && depths[entity] == 0 && steps <= count) {
+                path[steps++] = entity;
+                entity = mParent.get(entity).getEntity();
+            }
+            int depth = isChild(entity) ? depths[entity] : 0;
+            if (steps > count) {
+                System.out.println("Transform hierarchy has a cycle at entity " + ids[i]);
+                depth = -1;
+            }
+            for (int step = steps - 1; step >= 0; step--)
+                depths[path[step]] = depth < 0 ? -1 : ++depth;
+            deepest = Math.max(deepest, depth);
+        }
+        if (order.length < count) {
+            int length = Math.max(count, order.length * 2);
+            order = new int[length];
+            parents = new int[length];
+            joints = new int[length];
+            parentVersions = new int[length];
+        }
+        levels = new int[deepest + 1];
+        for (int i = 0; i < count; i++)
+            if (isChild(ids[i]) && depths[ids[i]] > 0)
+                levels[depths[ids[i]]]++;
+        for (int level = 1, start = 0; level <= deepest; level++) {
+            int levelSize = levels[level];
+            levels[level - 1] = start;
+            start += levelSize;
+        }
+        size = 0;
+        int[] cursors = Arrays.copyOf(levels, deepest);
+        for (int i = 0; i < count; i++) {
+            Transform transform = mTransform.get(ids[i]);
+            if (!isChild(ids[i]) || depths[ids[i]] <= 0) {
+                transform.setAttached(false);
+                continue;
+            }
+            Parent parent = mParent.get(ids[i]);
+            int index = cursors[depths[ids[i]] - 1]++;
+            order[index] = ids[i];
+            parents[index] = parent.getEntity();
+            joints[index] = parent.getJoint();
+            parentVersions[index] = -1;
+            transform.setAttached(true);
+            size++;
+        }
+        levelCount = deepest;
+        levels[deepest] = size;
+        sorted = true;
+    }
+
+    /**
+     * @return true if the entity is attached to a parent that has a transform
+     */
+    private boolean isChild(int entity) {
+        if (!mParent.has(entity) || !mTransform.has(entity))
+            return false;
+        int parent = mParent.get(entity).getEntity();
+        return parent >= 0 && parent != entity && mTransform.has(parent);
+    }
+
+    /**
+     * Updates a range of one level, splitting it in half until it's small enough
+     */
+    private class LevelTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int start, end;
+
+        private LevelTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute() {
+            if (end - start <= BATCH_SIZE) {
+                propagate(start, end, new Matrix4f());
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new LevelTask(start, middle), new LevelTask(middle, end));
+            }
+        }
+    }
+}
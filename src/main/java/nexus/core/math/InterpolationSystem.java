@@ -0,0 +1,212 @@
+package nexus.core.math;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import lombok.Getter;
+import lombok.Setter;
+import nexus.context.Context;
+import nexus.core.defaults.FrameSystem;
+import nexus.core.defaults.InitSystem;
+import nexus.core.defaults.Writes;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Blends every moving transform between the last two simulation ticks, so
+ * frames rendered in between ticks don't stutter. Before each tick the world
+ * matrices are captured as translation, rotation and scale, then every frame the
+ * transforms whose matrix changed since are blended from the capture towards the
+ * current matrix by the alpha of the frame loop. Transforms that didn't move draw
+ * their world matrix as is. Matrices with shear are blended as if they had none
+ */
+@All(Transform.class)
+@Writes(Transform.class)
+public class InterpolationSystem extends InitSystem implements FrameSystem {
+    private static final int BATCH_SIZE = 1024; //Transforms blended per task before splitting stops
+    private static final int STRIDE = 10; //Translation, rotation and scale
+    private final ForkJoinPool pool;
+    @Getter
+    private final boolean parallel;
+    public ComponentMapper<Transform> mTransform;
+    private float[] captured = new float[0]; //The capture of each entity id
+    private int[] capturedVersions = new int[0]; //The transform version of each capture, -1 for none
+    private final Blend blend = new Blend();
+    @Getter
+    @Setter
+    private float alpha = 1; //How far the frame is past the last tick, from 0 to 1
+    @Getter
+    private int interpolatedLastFrame;
+
+    public InterpolationSystem(Context coreContext) {
+        this(coreContext, true);
+    }
+
+    /**
+     * Creates the interpolation system
+     *
+     * @param coreContext the core context
+     * @param parallel    if true large worlds are blended on the common fork join pool
+     */
+    public InterpolationSystem(Context coreContext, boolean parallel) {
+        this.parallel = parallel;
+        this.pool = parallel ? ForkJoinPool.commonPool() : null;
+    }
+
+    /**
+     * We need to process every frame
+     *
+     * @return processing check
+     */
+    protected boolean checkProcessing() {
+        return true;
+    }
+
+    /**
+     * Forgets the capture of a new entity, its id may have been used before
+     *
+     * @param entityId the entity
+     */
+    protected void inserted(int entityId) {
+        if (entityId < capturedVersions.length)
+            capturedVersions[entityId] = -1;
+    }
+
+    /**
+     * Captures the world matrices before a tick changes them, transforms that
+     * didn't change since the last capture keep it
+     */
+    public void capture() {
+        IntBag actives = subscription.getEntities();
+        int[] ids = actives.getData();
+        int size = actives.size();
+        for (int i = 0; i < size; i++) {
+            int entityId = ids[i];
+            ensureCapacity(entityId);
+            Transform transform = mTransform.get(entityId);
+            Matrix4f matrix = transform.getMatrix();
+            if (capturedVersions[entityId] == transform.getVersion())
+                continue;
+            blend.decompose(matrix);
+            blend.store(captured, entityId * STRIDE);
+            capturedVersions[entityId] = transform.getVersion();
+        }
+    }
+
+    /**
+     * Blends the transforms that moved since the last capture
+     */
+    protected void processSystem() {
+        IntBag actives = subscription.getEntities();
+        int[] ids = actives.getData();
+        int size = actives.size();
+        if (parallel && size > BATCH_SIZE)
+            interpolatedLastFrame = pool.invoke(new BlendTask(ids, 0, size));
+        else
+            interpolatedLastFrame = blend(ids, 0, size, blend);
+    }
+
+    /**
+     * Blends a range of the entities
+     *
+     * @return the amount of transforms that were blended
+     */
+    private int blend(int[] ids, int start, int end, Blend scratch) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            int entityId = ids[i];
+            Transform transform = mTransform.get(entityId);
+            Matrix4f matrix = transform.getMatrix();
+            int version = entityId < capturedVersions.length ? capturedVersions[entityId] : -1;
+            if (version < 0 || version == transform.getVersion()) {
+                transform.rest();
+                continue;
+            }
+            scratch.decompose(matrix);
+            scratch.blend(captured, entityId * STRIDE, alpha, transform.interpolate());
+            count++;
+        }
+        return count;
+    }
+
+    private void ensureCapacity(int entityId) {
+        if (entityId < capturedVersions.length)
+            return;
+        int length = Math.max(entityId + 1, Math.max(1024, capturedVersions.length * 2));
+        int old = capturedVersions.length;
+        capturedVersions = Arrays.copyOf(capturedVersions, length);
+        Arrays.fill(capturedVersions, old, length, -1);
+        captured = Arrays.copyOf(captured, length * STRIDE);
+    }
+
+    /**
+     * Scratch space for taking a matrix apart and blending it
+     */
+    private static class Blend {
+        private final Vector3f translation = new Vector3f(), scale = new Vector3f();
+        private final Quaternionf rotation = new Quaternionf(), from = new Quaternionf();
+
+        private void decompose(Matrix4f matrix) {
+            matrix.getTranslation(translation);
+            matrix.getNormalizedRotation(rotation);
+            matrix.getScale(scale);
+        }
+
+        private void store(float[] data, int offset) {
+            data[offset] = translation.x;
+            data[offset + 1] = translation.y;
+            data[offset + 2] = translation.z;
+            data[offset + 3] = rotation.x;
+            data[offset + 4] = rotation.y;
+            data[offset + 5] = rotation.z;
+            data[offset + 6] = rotation.w;
+            data[offset + 7] = scale.x;
+            data[offset + 8] = scale.y;
+            data[offset + 9] = scale.z;
+        }
+
+        /**
+         * Blends from the stored values towards the decomposed ones
+         */
+        private void blend(float[] data, int offset, float alpha, Matrix4f dest) {
+            from.set(data[offset + 3], data[offset + 4], data[offset + 5], data[offset + 6]).slerp(rotation, alpha);
+            dest.translationRotateScale(
+                    data[offset] + (translation.x - data[offset]) * alpha,
+                    data[offset + 1] + (translation.y - data[offset + 1]) * alpha,
+                    data[offset + 2] + (translation.z - data[offset + 2]) * alpha,
+                    from.x, from.y, from.z, from.w,
+                    data[offset + 7] + (scale.x - data[offset + 7]) * alpha,
+                    data[offset + 8] + (scale.y - data[offset + 8]) * alpha,
+                    data[offset + 9] + (scale.z - data[offset + 9]) * alpha);
+        }
+    }
+
+    /**
+     * Blends a range of the entities, splitting it in half until it's small enough
+     */
+    private class BlendTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int[] ids;
+        private final int start, end;
+
+        private BlendTask(int[] ids, int start, int end) {
+            this.ids = ids;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected Integer compute() {
+            if (end - start <= BATCH_SIZE)
+                return blend(ids, start, end, new Blend());
+            int middle = (start + end) >>> 1;
+            BlendTask left = new BlendTask(ids, start, middle);
+            left.fork();
+            return new BlendTask(ids, middle, end).compute() + left.join();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package nexus.core.math;
+
+import com.artemis.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Attaches an entity's transform to another entity, so its position, rotation
+ * and scale become relative to the parent. The entity can also hang from one
+ * of the parent's joints, the parent then needs an animation map
+ */
+public class Parent extends Component {
+    @Getter
+    @Setter
+    private int entity = -1;
+    @Getter
+    @Setter
+    private int joint = -1; //The joint matrix index in the parent's palette, -1 for none
+
+    /**
+     * Attaches to an entity
+     *
+     * @param entity the parent entity
+     * @return this
+     */
+    public Parent set(int entity) {
+        return set(entity, -1);
+    }
+
+    /**
+     * Attaches to a joint of an animated entity. The joint matrices include the
+     * bind pose offset, so the local transform is where the child sits relative
+     * to the parent's bind pose
+     *
+     * @param entity the parent entity
+     * @param joint  the joint matrix index, -1 for none
+     * @return this
+     */
+    public Parent set(int entity, int joint) {
+        this.entity = entity;
+        this.joint = joint;
+        return this;
+    }
+}
@@ -8,20 +8,38 @@ import org.joml.Vector3f;
 /**
  * Represents a transform,
  * position, scale and rotation.
- * Also stores a matrix for the component
+ * Also stores a matrix for the component, which is only rebuilt after one of the
+ * setters changed the transform. Code that changes the vectors from the getters
+ * directly has to call {@link #markDirty()} afterwards. An entity with a
+ * {@link Parent} has its values relative to the parent, its world matrix is
+ * updated by the {@link HierarchySystem} once a tick. Renderers draw the
+ * {@link #getRenderMatrix()}, which the {@link InterpolationSystem} blends
+ * between the last two ticks
  */
 public class Transform extends Component {
     @Getter
 
     private final Vector3f position, scale, rotation;
-    private final Matrix4f worldMatrix;
-    private final Vector3f rotX = new Vector3f(1, 0, 0), rotY = new Vector3f(0, 1, 0), rotZ = new Vector3f(0, 0, 1);
+    private final Matrix4f localMatrix;
+    private Matrix4f worldMatrix; //The local matrix itself unless the transform is attached to a parent
+    @Getter
+    private boolean dirty = true;
+    @Getter
+    private boolean frozen = false;
+    @Getter
+    private boolean attached = false;
+    private boolean worldStale = false; //The local matrix changed since the world matrix was last computed
+    @Getter
+    private int version = 0; //Increased every time the world matrix changes
+    private Matrix4f renderMatrix; //Between the last two ticks, only created once the transform moves
+    private boolean interpolated = false;
 
     public Transform() {
         this.position = new Vector3f(0, 0, 0);
         this.scale = new Vector3f(1, 1, 1);
         this.rotation = new Vector3f(0, 0, 0);
-        this.worldMatrix = new Matrix4f().identity();
+        this.localMatrix = new Matrix4f().identity();
+        this.worldMatrix = localMatrix;
     }
 
 
@@ -32,6 +50,7 @@ public class Transform extends Component {
         this.position.x = x;
         this.position.y = y;
         this.position.z = z;
+        markDirty();
     }
 
     /**
@@ -62,6 +81,7 @@ public class Transform extends Component {
      */
     public void setX(float x) {
         this.position.x = x;
+        markDirty();
     }
 
     /**
@@ -71,6 +91,7 @@ public class Transform extends Component {
      */
     public void setY(float y) {
         this.position.y = y;
+        markDirty();
     }
 
     /**
@@ -80,6 +101,7 @@ public class Transform extends Component {
      */
     public void setZ(float z) {
         this.position.z = z;
+        markDirty();
     }
 
     /**
@@ -89,6 +111,7 @@ public class Transform extends Component {
         this.rotation.x = x;
         this.rotation.y = y;
         this.rotation.z = z;
+        markDirty();
     }
 
     /**
@@ -98,6 +121,7 @@ public class Transform extends Component {
      */
     public void setRotX(float x) {
         this.rotation.x = x;
+        markDirty();
     }
 
     /**
@@ -107,6 +131,7 @@ public class Transform extends Component {
      */
     public void setRotY(float y) {
         this.rotation.y = y;
+        markDirty();
     }
 
     /**
@@ -116,6 +141,7 @@ public class Transform extends Component {
      */
     public void setRotZ(float z) {
         this.rotation.z = z;
+        markDirty();
     }
 
     /**
@@ -125,6 +151,7 @@ public class Transform extends Component {
         this.scale.x = x;
         this.scale.y = y;
         this.scale.z = z;
+        markDirty();
     }
 
     /**
@@ -134,6 +161,7 @@ public class Transform extends Component {
      */
     public void setScaleX(float x) {
         this.scale.x = x;
+        markDirty();
     }
 
     /**
@@ -143,6 +171,7 @@ public class Transform extends Component {
      */
     public void setScaleY(float y) {
         this.scale.y = y;
+        markDirty();
     }
 
     /**
@@ -152,22 +181,141 @@ public class Transform extends Component {
      */
     public void setScaleZ(float z) {
         this.scale.z = z;
+        markDirty();
+    }
+
+    /**
+     * Marks the matrix as out of date, needed after changing the position,
+     * rotation or scale vectors directly
+     */
+    public void markDirty() {
+        dirty = true;
     }
 
     /**
-     * Gets the transformation matrix after applying the correct values
+     * Freezes the transform, keeping the current matrix until it's unfrozen.
+     * Meant for static entities, changes made while frozen are applied on unfreeze
+     */
+    public void freeze() {
+        updateMatrix();
+        frozen = true;
+    }
+
+    /**
+     * Unfreezes the transform, so the matrix follows its values again
+     */
+    public void unfreeze() {
+        frozen = false;
+    }
+
+    /**
+     * Rebuilds the local matrix if the transform changed since the last time
+     *
+     * @return true if the matrix was rebuilt
+     */
+    public boolean updateMatrix() {
+        if (!dirty || frozen)
+            return false;
+        localMatrix.translation(position)
+                .rotateXYZ(rotation.x, rotation.y, rotation.z)
+                .scale(scale);
+        dirty = false;
+        if (attached)
+            worldStale = true;
+        else
+            version++;
+        return true;
+    }
+
+    /**
+     * Gets the transformation matrix, rebuilding it first if the transform changed.
+     * For an attached transform this is the world matrix from the last hierarchy update
      *
      * @return world matrix
      */
     public Matrix4f getMatrix() {
-        worldMatrix.identity();
-        worldMatrix.translate(position);
-        worldMatrix.rotate(rotation.x, rotX);
-        worldMatrix.rotate(rotation.y, rotY);
-        worldMatrix.rotate(rotation.z, rotZ);
-        worldMatrix.scale(scale);
+        updateMatrix();
         return worldMatrix;
     }
 
+    /**
+     * Gets the matrix to draw with, interpolated between the last two ticks
+     * while the transform is moving
+     *
+     * @return the render matrix
+     */
+    public Matrix4f getRenderMatrix() {
+        return interpolated ? renderMatrix : getMatrix();
+    }
+
+    /**
+     * Starts interpolating, the returned matrix is drawn instead of the world matrix
+     *
+     * @return the render matrix to write into
+     */
+    Matrix4f interpolate() {
+        if (renderMatrix == null)
+            renderMatrix = new Matrix4f();
+        interpolated = true;
+        return renderMatrix;
+    }
+
+    /**
+     * Stops interpolating, the world matrix is drawn again
+     */
+    void rest() {
+        interpolated = false;
+    }
+
+    /**
+     * Gets the matrix built from this transform's own values, relative to the parent if it has one
+     *
+     * @return local matrix
+     */
+    public Matrix4f getLocalMatrix() {
+        updateMatrix();
+        return localMatrix;
+    }
+
+    /**
+     * Attaches or detaches the transform from a parent, detached transforms use
+     * their local matrix as the world matrix
+     */
+    void setAttached(boolean attached) {
+        if (this.attached == attached)
+            return;
+        this.attached = attached;
+        if (attached) {
+            worldMatrix = new Matrix4f(localMatrix);
+            worldStale = true;
+        } else {
+            worldMatrix = localMatrix;
+            worldStale = false;
+            version++;
+        }
+    }
+
+    /**
+     * @return true if the local matrix changed since the world matrix was computed
+     */
+    boolean isWorldStale() {
+        return worldStale;
+    }
+
+    /**
+     * Computes the world matrix of an attached transform
+     *
+     * @param parent the parent's world matrix
+     * @param joint  the joint matrix the transform hangs from, or null
+     */
+    void updateWorld(Matrix4f parent, Matrix4f joint) {
+        worldMatrix.set(parent);
+        if (joint != null)
+            worldMatrix.mul(joint);
+        worldMatrix.mul(localMatrix);
+        worldStale = false;
+        version++;
+    }
+
 
 }
@@ -0,0 +1,109 @@
+package nexus.core.math;
+
+import com.artemis.utils.IntBag;
+import lombok.Getter;
+import org.joml.Matrix4f;
+
+import java.util.Arrays;
+
+/**
+ * Every entity's world matrix in one contiguous array, laid out as sixteen lanes
+ * that each hold one element of every matrix, indexed by entity id. The
+ * {@link TransformSystem} fills it once per frame, only copying the matrices
+ * that changed, and lists the entities it copied so other systems can skip the rest
+ */
+public class TransformBuffer {
+    public static final int ELEMENTS = 16;
+    @Getter
+    private int capacity = 0;
+    @Getter
+    private float[] data = new float[0];
+    private int[] versions = new int[0]; //The transform version last copied, 0 for none
+    @Getter
+    private final IntBag changed = new IntBag();
+
+    /**
+     * Grows the buffer to fit an entity, keeping its contents
+     *
+     * @param entityId the highest entity id that has to fit
+     */
+    public void ensureCapacity(int entityId) {
+        if (entityId < capacity)
+            return;
+        int grown = Math.max(entityId + 1, Math.max(1024, capacity * 2));
+        float[] resized = new float[ELEMENTS * grown];
+        for (int element = 0; element < ELEMENTS; element++)
+            System.arraycopy(data, element * capacity, resized, element * grown, capacity);
+        data = resized;
+        versions = Arrays.copyOf(versions, grown);
+        capacity = grown;
+    }
+
+    /**
+     * Copies an entity's matrix into the buffer if it changed since the last copy.
+     * Safe to call from several threads for different entities
+     *
+     * @param entityId  the entity, has to fit in the buffer
+     * @param transform its transform, with an up to date matrix
+     * @return true if the matrix was copied
+     */
+    public boolean write(int entityId, Transform transform) {
+        int version = transform.getVersion();
+        if (versions[entityId] == version)
+            return false;
+        Matrix4f matrix = transform.getMatrix();
+        data[entityId] = matrix.m00();
+        data[capacity + entityId] = matrix.m01();
+        data[2 * capacity + entityId] = matrix.m02();
+        data[3 * capacity + entityId] = matrix.m03();
+        data[4 * capacity + entityId] = matrix.m10();
+        data[5 * capacity + entityId] = matrix.m11();
+        data[6 * capacity + entityId] = matrix.m12();
+        data[7 * capacity + entityId] = matrix.m13();
+        data[8 * capacity + entityId] = matrix.m20();
+        data[9 * capacity + entityId] = matrix.m21();
+        data[10 * capacity + entityId] = matrix.m22();
+        data[11 * capacity + entityId] = matrix.m23();
+        data[12 * capacity + entityId] = matrix.m30();
+        data[13 * capacity + entityId] = matrix.m31();
+        data[14 * capacity + entityId] = matrix.m32();
+        data[15 * capacity + entityId] = matrix.m33();
+        versions[entityId] = version;
+        return true;
+    }
+
+    /**
+     * Gets a single element of an entity's matrix
+     *
+     * @param entityId the entity
+     * @param element  the element, column major like {@link Matrix4f#get(float[])}
+     * @return the element
+     */
+    public float get(int entityId, int element) {
+        return data[element * capacity + entityId];
+    }
+
+    /**
+     * Copies an entity's matrix out of the buffer
+     *
+     * @param entityId the entity
+     * @param dest     the matrix to copy into
+     * @return dest
+     */
+    public Matrix4f get(int entityId, Matrix4f dest) {
+        return dest.set(get(entityId, 0), get(entityId, 1), get(entityId, 2), get(entityId, 3),
+                get(entityId, 4), get(entityId, 5), get(entityId, 6), get(entityId, 7),
+                get(entityId, 8), get(entityId, 9), get(entityId, 10), get(entityId, 11),
+                get(entityId, 12), get(entityId, 13), get(entityId, 14), get(entityId, 15));
+    }
+
+    /**
+     * Forgets an entity, so its matrix is copied again if the id is reused
+     *
+     * @param entityId the entity
+     */
+    public void clear(int entityId) {
+        if (entityId < capacity)
+            versions[entityId] = 0;
+    }
+}
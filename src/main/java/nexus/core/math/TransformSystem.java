@@ -0,0 +1,128 @@
+package nexus.core.math;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import lombok.Getter;
+import nexus.context.Context;
+import nexus.core.defaults.InitSystem;
+import nexus.core.defaults.Writes;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rebuilds every dirty transform matrix once per frame, before anything reads
+ * them, and copies the ones that changed into the {@link TransformBuffer} in the
+ * core context. Frozen and unchanged transforms are skipped, so static scenery
+ * costs a flag check. Large worlds are split across a fork join pool
+ */
+@All(Transform.class)
+@Writes({Transform.class, TransformBuffer.class})
+public class TransformSystem extends InitSystem {
+    private static final int BATCH_SIZE = 1024; //Transforms updated per task before splitting stops
+    private final ForkJoinPool pool;
+    @Getter
+    private final boolean parallel;
+    public ComponentMapper<Transform> mTransform;
+    @Getter
+    private final TransformBuffer buffer = new TransformBuffer();
+    private boolean[] copied = new boolean[0];
+    @Getter
+    private int changedLastFrame;
+
+    public TransformSystem(Context coreContext) {
+        this(coreContext, true);
+    }
+
+    /**
+     * Creates the transform system
+     *
+     * @param coreContext the core context
+     * @param parallel    if true large worlds are updated on the common fork join pool
+     */
+    public TransformSystem(Context coreContext, boolean parallel) {
+        this.parallel = parallel;
+        this.pool = parallel ? ForkJoinPool.commonPool() : null;
+        coreContext.put(TransformBuffer.class, buffer);
+    }
+
+    /**
+     * We need to process every frame
+     *
+     * @return processing check
+     */
+    protected boolean checkProcessing() {
+        return true;
+    }
+
+    /**
+     * Forgets a removed entity's matrix
+     *
+     * @param entityId the entity
+     */
+    protected void removed(int entityId) {
+        buffer.clear(entityId);
+    }
+
+    /**
+     * Updates every transform and lists the ones that changed
+     */
+    protected void processSystem() {
+        IntBag actives = subscription.getEntities();
+        int[] ids = actives.getData();
+        int size = actives.size();
+        int highest = -1;
+        for (int i = 0; i < size; i++)
+            highest = Math.max(highest, ids[i]);
+        buffer.ensureCapacity(highest);
+        if (copied.length < size)
+            copied = Arrays.copyOf(copied, Math.max(size, copied.length * 2));
+        if (parallel && size > BATCH_SIZE)
+            pool.invoke(new UpdateTask(ids, 0, size));
+        else
+            update(ids, 0, size);
+        IntBag changed = buffer.getChanged();
+        changed.setSize(0);
+        for (int i = 0; i < size; i++)
+            if (copied[i])
+                changed.add(ids[i]);
+        changedLastFrame = changed.size();
+    }
+
+    /**
+     * Updates a range of transforms
+     */
+    private void update(int[] ids, int start, int end) {
+        for (int i = start; i < end; i++) {
+            Transform transform = mTransform.get(ids[i]);
+            transform.updateMatrix();
+            copied[i] = buffer.write(ids[i], transform);
+        }
+    }
+
+    /**
+     * Updates a range of transforms, splitting it in half until it's small enough
+     */
+    private class UpdateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] ids;
+        private final int start, end;
+
+        private UpdateTask(int[] ids, int start, int end) {
+            this.ids = ids;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute() {
+            if (end - start <= BATCH_SIZE) {
+                update(ids, start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new UpdateTask(ids, start, middle), new UpdateTask(ids, middle, end));
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.joml.Vector3f;
  * Represents a camera in the game
  */
 public class Camera extends Component {
+    private static final float HEADLESS_ASPECT = 16f / 9f; //Used without a display
     @Getter
     private final Matrix4f viewMatrix;
     @Getter
@@ -34,7 +35,8 @@ public class Camera extends Component {
     public static Camera newCamera(Context coreContext, float fov, float near, float far) {
         Camera camera = new Camera();
         Display display = coreContext.get(Display.class);
-        camera.projectionMatrix.setPerspective((float) Math.toRadians(fov), (float) (display.getFrameWidth() / display.getFrameHeight()), near, far);
+        float aspect = display == null ? HEADLESS_ASPECT : (float) (display.getFrameWidth() / display.getFrameHeight());
+        camera.projectionMatrix.setPerspective((float) Math.toRadians(fov), aspect, near, far);
         return camera;
     }
 
@@ -3,7 +3,10 @@ package nexus.core.player;
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.All;
 import nexus.context.Context;
+import nexus.core.defaults.FrameSystem;
 import nexus.core.defaults.IteratingInitSystem;
+import nexus.core.defaults.Reads;
+import nexus.core.defaults.Writes;
 import nexus.core.input.Input;
 import nexus.core.math.Transform;
 import nexus.window.Display;
@@ -18,7 +21,9 @@ import static org.lwjgl.glfw.GLFW.*;
  * Moves the camera accordingly
  */
 @All({Transform.class, Camera.class, CameraSettings.class})
-public class CameraSystem extends IteratingInitSystem {
+@Reads(Input.class)
+@Writes({Transform.class, Camera.class})
+public class CameraSystem extends IteratingInitSystem implements FrameSystem {
     private Context coreContext;
     private Input input;
     private Display display;
@@ -86,6 +91,7 @@ public class CameraSystem extends IteratingInitSystem {
      */
     private void updateRotation(Transform transform, CameraSettings cameraSettings) {
         transform.getRotation().add((input.getMouseDelta().y * cameraSettings.getCameraSensitivity()) * world.delta, (input.getMouseDelta().x * cameraSettings.getCameraSensitivity()) * world.delta, 0);
+        transform.markDirty();
     }
 
     /**
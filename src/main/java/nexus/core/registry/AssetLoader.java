@@ -0,0 +1,209 @@
+package nexus.core.registry;
+
+import com.google.common.collect.Maps;
+import lombok.Getter;
+import nexus.core.registry.assets.IAsset;
+import nexus.util.Profiler;
+import nexus.util.TraceRing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads nexus.core.assets from the registry, either one at a time
+ * on the calling thread, or on a fork join pool. Only {@link IAsset#prepare()}
+ * runs on the pool, uploads always happen on the calling thread or through an {@link UploadQueue}
+ */
+public class AssetLoader {
+    private final Registry registry;
+    private final ForkJoinPool pool;
+    @Getter
+    private final boolean parallel;
+    private final Map<Class<? extends IAsset>, Timing> timings = Maps.newConcurrentMap();
+
+    /**
+     * Creates an asset loader
+     *
+     * @param registry the registry to load from
+     * @param parallel if true the nexus.core.assets are decoded on a worker pool
+     */
+    public AssetLoader(Registry registry, boolean parallel) {
+        this.registry = registry;
+        this.parallel = parallel;
+        this.pool = parallel ? new ForkJoinPool(Runtime.getRuntime().availableProcessors()) : null;
+    }
+
+    /**
+     * Loads all nexus.core.assets with the given types. In parallel mode every asset is
+     * prepared at the same time on the pool, once they're all done the uploads
+     * run on the calling thread, so this must be called on the context thread
+     * for any type that actually uploads to opengl
+     *
+     * @param types the types to load
+     * @return returns the amount of nexus.core.assets loaded
+     */
+    @SafeVarargs
+    public final int loadAll(Class<? extends IAsset>... types) {
+        List<IAsset> prepared = new ArrayList<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Class<? extends IAsset> type : types) {
+            Timing timing = timings.computeIfAbsent(type, Timing::new);
+            long start = System.nanoTime();
+            for (IAsset asset : getUnloaded(type)) {
+                prepared.add(asset);
+                Runnable task = () -> prepare(asset, timing, start);
+                if (parallel)
+                    tasks.add(pool.submit(task));
+                else
+                    task.run();
+            }
+        }
+        for (ForkJoinTask<?> task : tasks)
+            task.join();
+        int loaded = 0;
+        for (IAsset asset : prepared) {
+            long begin = Profiler.begin();
+            asset.upload();
+            Profiler.end(asset.getName(), TraceRing.Category.UPLOAD, begin);
+            if (asset.isLoaded()) {
+                timings.get(typeOf(asset, types)).count.increment();
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Prepares all nexus.core.assets with the given types in the background and hands them
+     * to the upload queue as they finish, this returns straight away. Without
+     * a worker pool the nexus.core.assets are loaded immediately instead
+     *
+     * @param uploadQueue the queue that will upload the nexus.core.assets
+     * @param types       the types to stream
+     * @return the amount of nexus.core.assets that will be streamed
+     */
+    @SafeVarargs
+    public final int stream(UploadQueue uploadQueue, Class<? extends IAsset>... types) {
+        if (!parallel)
+            return loadAll(types);
+        int count = 0;
+        for (Class<? extends IAsset> type : types) {
+            Timing timing = timings.computeIfAbsent(type, Timing::new);
+            long start = System.nanoTime();
+            for (IAsset asset : getUnloaded(type)) {
+                pool.execute(() -> {
+                    prepare(asset, timing, start);
+                    timing.count.increment();
+                    uploadQueue.submit(asset);
+                });
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets every asset with the given type that hasn't been loaded yet
+     *
+     * @param type the asset type
+     * @return the unloaded nexus.core.assets
+     */
+    private List<IAsset> getUnloaded(Class<? extends IAsset> type) {
+        List<IAsset> unloaded = new ArrayList<>();
+        for (List<IAsset> assets : registry.getAssetsByType(type).values())
+            for (IAsset asset : assets)
+                if (!asset.isLoaded())
+                    unloaded.add(asset);
+        return unloaded;
+    }
+
+    /**
+     * Finds which of the requested types an asset was loaded as
+     */
+    @SafeVarargs
+    private static Class<? extends IAsset> typeOf(IAsset asset, Class<? extends IAsset>... types) {
+        for (Class<? extends IAsset> type : types)
+            if (type.isInstance(asset))
+                return type;
+        return asset.getClass();
+    }
+
+    /**
+     * Prepares a single asset and records how long it took
+     *
+     * @param asset  the asset to prepare
+     * @param timing the timing for the asset's type
+     * @param start  the time the type started loading
+     */
+    private void prepare(IAsset asset, Timing timing, long start) {
+        long begin = System.nanoTime();
+        asset.prepare();
+        long end = System.nanoTime();
+        Profiler.record(asset.getName(), TraceRing.Category.ASSET, begin, end);
+        timing.busyNanos.add(end - begin);
+        timing.wallNanos.accumulateAndGet(end - start, Math::max);
+    }
+
+    /**
+     * Gets the timing for the given type, or null if that type was never loaded
+     *
+     * @param type the asset type
+     * @return the timing
+     */
+    public Timing getTiming(Class<? extends IAsset> type) {
+        return timings.get(type);
+    }
+
+    /**
+     * Stops the worker pool
+     */
+    public void shutdown() {
+        if (pool != null)
+            pool.shutdown();
+    }
+
+    /**
+     * The load timings for a single asset type
+     */
+    public static class Timing {
+        @Getter
+        private final Class<? extends IAsset> type;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final AtomicLong wallNanos = new AtomicLong();
+
+        private Timing(Class<? extends IAsset> type) {
+            this.type = type;
+        }
+
+        /**
+         * @return the number of nexus.core.assets that were loaded, or prepared when streamed
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return the time spent preparing, summed over every asset
+         */
+        public double getBusyMillis() {
+            return busyNanos.sum() / 1_000_000.0;
+        }
+
+        /**
+         * @return the time from starting the type until its last asset was prepared
+         */
+        public double getWallMillis() {
+            return wallNanos.get() / 1_000_000.0;
+        }
+
+        public String toString() {
+            return String.format("%s: %d loaded in %.2fms (%.2fms busy)", type.getSimpleName(), getCount(), getWallMillis(), getBusyMillis());
+        }
+    }
+}
@@ -3,9 +3,11 @@ package nexus.core.registry;
 import com.artemis.annotations.All;
 import nexus.context.Context;
 import nexus.core.defaults.InitSystem;
+import nexus.core.defaults.Writes;
 import nexus.core.math.Transform;
 import nexus.core.registry.assets.*;
 import nexus.util.CommonUtils;
+import nexus.util.opengl.GLUtils;
 
 import java.io.File;
 import java.io.IOException;
@@ -20,16 +22,30 @@ import java.util.function.Consumer;
  * to files, for example it will load
  */
 @All(Transform.class)
+@Writes(Registry.class)
 public class RegistrySystem extends InitSystem {
     private File resourceFolder;
     private Context coreContext;
     private Registry coreRegistry;
+    private AssetLoader assetLoader;
+    private UploadQueue uploadQueue;
 
     public RegistrySystem(File resourceFolder, Context coreContext) {
+        this(resourceFolder, coreContext, true);
+    }
+
+    /**
+     * @param parallelLoading if true, nexus.core.assets that don't need opengl are decoded on a worker pool
+     */
+    public RegistrySystem(File resourceFolder, Context coreContext, boolean parallelLoading) {
         this.resourceFolder = resourceFolder;
         this.coreContext = coreContext;
         this.coreRegistry = new Registry();
+        this.assetLoader = new AssetLoader(coreRegistry, parallelLoading);
+        this.uploadQueue = new UploadQueue(16, 4, 32 * 1024 * 1024);
         coreContext.put(Registry.class, coreRegistry);
+        coreContext.put(AssetLoader.class, assetLoader);
+        coreContext.put(UploadQueue.class, uploadQueue);
     }
 
     /**
@@ -39,11 +55,12 @@ public class RegistrySystem extends InitSystem {
     public void preInitialization() {
         initializeRegistry();
         populateRegistry();
-        int meshesLoaded = coreRegistry.loadAll(MeshAsset.class);
-        System.out.println("[" + meshesLoaded + "] total meshes loaded");
-
-        int animationsLoaded = coreRegistry.loadAll(AnimationAsset.class);
-        System.out.println("[" + animationsLoaded + "] total animations loaded");
+        //Meshes and animations are pure cpu work, so they can be decoded together
+        assetLoader.loadAll(MeshAsset.class, AnimationAsset.class);
+        System.out.println("[" + assetLoader.getTiming(MeshAsset.class).getCount() + "] total meshes loaded");
+        System.out.println("[" + assetLoader.getTiming(AnimationAsset.class).getCount() + "] total animations loaded");
+        System.out.println(assetLoader.getTiming(MeshAsset.class));
+        System.out.println(assetLoader.getTiming(AnimationAsset.class));
     }
 
     /**
@@ -112,17 +129,32 @@ public class RegistrySystem extends InitSystem {
     /**
      * Called after the opengl context is made,
      * this is used to load nexus.core.assets like textures,
-     * animations, models etc
+     * animations, models etc. Shaders are needed by the first frame so they
+     * are uploaded straight away, images are decoded in the background and
+     * streamed in by the upload queue over the next frames. Headless engines
+     * have no context, so only the scripts are loaded
      */
     public void postInitialization() {
-        int imagesLoaded = coreRegistry.loadAll(ImageAsset.class);
-        System.out.println("[" + imagesLoaded + "] total images loaded");
-
-        int shadersLoaded = coreRegistry.loadAll(ShaderAsset.class);
+        if (GLUtils.isHeadless()) {
+            int scriptsLoaded = coreRegistry.loadAll(ScriptAsset.class);
+            System.out.println("[" + scriptsLoaded + "] total scripts loaded headless");
+            return;
+        }
+        int shadersLoaded = assetLoader.loadAll(ShaderAsset.class);
         System.out.println("[" + shadersLoaded + "] total shaders loaded");
 
+        int imagesQueued = assetLoader.stream(uploadQueue, ImageAsset.class);
+        System.out.println("[" + imagesQueued + "] total images streaming");
+
         int scriptsLoaded = coreRegistry.loadAll(ScriptAsset.class);
         System.out.println("[" + scriptsLoaded + "] total scripts loaded");
 
     }
+
+    /**
+     * Stops the asset loader's worker pool
+     */
+    protected void dispose() {
+        assetLoader.shutdown();
+    }
 }
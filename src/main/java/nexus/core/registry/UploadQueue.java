@@ -0,0 +1,131 @@
+package nexus.core.registry;
+
+import lombok.Getter;
+import nexus.core.registry.assets.IAsset;
+import nexus.util.Profiler;
+import nexus.util.TraceRing;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A bounded queue of prepared nexus.core.assets waiting for their opengl upload.
+ * Worker threads submit nexus.core.assets once they're decoded and the context thread
+ * drains a budgeted amount of uploads every frame, so large packs stream in
+ * without stalling a single frame. Workers block while the queue is full
+ * which keeps the amount of decoded data held in memory bounded
+ */
+public class UploadQueue {
+    private final BlockingQueue<IAsset> queue;
+    @Getter
+    private final float millisBudget;
+    @Getter
+    private final long byteBudget;
+    @Getter
+    private int uploaded = 0;
+
+    /**
+     * Creates an upload queue
+     *
+     * @param capacity     the max amount of prepared nexus.core.assets waiting for upload
+     * @param millisBudget the max time spent uploading per frame
+     * @param byteBudget   the max amount of bytes uploaded per frame
+     */
+    public UploadQueue(int capacity, float millisBudget, long byteBudget) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.millisBudget = millisBudget;
+        this.byteBudget = byteBudget;
+    }
+
+    /**
+     * Queues a prepared asset for upload, blocking while the queue is full.
+     * Safe to call from any thread, fork join workers let the pool compensate while blocked
+     *
+     * @param asset the prepared asset
+     */
+    public void submit(IAsset asset) {
+        if (queue.offer(asset))
+            return;
+        try {
+            ForkJoinPool.managedBlock(new SubmitBlocker(asset));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Uploads queued nexus.core.assets until either the time or the byte budget is spent,
+     * at least one asset is uploaded per call so the queue always makes progress.
+     * Must be called on the context thread
+     *
+     * @return the amount of nexus.core.assets uploaded
+     */
+    public int drain() {
+        long start = System.nanoTime();
+        long budgetNanos = (long) (millisBudget * 1_000_000);
+        long bytes = 0;
+        int count = 0;
+        IAsset asset;
+        while ((asset = queue.poll()) != null) {
+            bytes += asset.getUploadSize();
+            long begin = Profiler.begin();
+            asset.upload();
+            Profiler.end(asset.getName(), TraceRing.Category.UPLOAD, begin);
+            count++;
+            if (bytes >= byteBudget || System.nanoTime() - start >= budgetNanos)
+                break;
+        }
+        uploaded += count;
+        return count;
+    }
+
+    /**
+     * Uploads everything that is currently queued, ignoring the budget
+     *
+     * @return the amount of nexus.core.assets uploaded
+     */
+    public int drainAll() {
+        int count = 0;
+        IAsset asset;
+        while ((asset = queue.poll()) != null) {
+            long begin = Profiler.begin();
+            asset.upload();
+            Profiler.end(asset.getName(), TraceRing.Category.UPLOAD, begin);
+            count++;
+        }
+        uploaded += count;
+        return count;
+    }
+
+    /**
+     * @return the amount of nexus.core.assets waiting for upload
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    /**
+     * Blocks a worker until there is room in the queue
+     */
+    private class SubmitBlocker implements ForkJoinPool.ManagedBlocker {
+        private final IAsset asset;
+        private boolean done = false;
+
+        private SubmitBlocker(IAsset asset) {
+            this.asset = asset;
+        }
+
+        public boolean block() throws InterruptedException {
+            if (!done) {
+                queue.put(asset);
+                done = true;
+            }
+            return true;
+        }
+
+        public boolean isReleasable() {
+            return done || (done = queue.offer(asset));
+        }
+    }
+}
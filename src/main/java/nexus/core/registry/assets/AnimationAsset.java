@@ -1,15 +1,14 @@
 package nexus.core.registry.assets;
 
-import com.google.flatbuffers.FlatBufferBuilder;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
 import nexus.core.animation.AnimatedFrame;
+import nexus.core.animation.JointTracks;
 import nexus.core.registry.Pack;
 import nexus.core.registry.assets.raw.RawAnimatedFrame;
 import nexus.core.registry.assets.raw.RawAnimation;
 import nexus.core.registry.assets.raw.RawAnimationList;
-import nexus.core.registry.assets.raw.RawModel;
 import nexus.core.registry.parsers.AssimpParser;
 import nexus.core.render.Animation;
 import nexus.core.render.AnimationMap;
@@ -19,9 +18,13 @@ import org.joml.Matrix4f;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AnimationAsset implements IAsset {
     @Getter
@@ -33,8 +36,10 @@ public class AnimationAsset implements IAsset {
     private File file;
     @Getter
     private boolean loaded = false;
-    private AnimationMap animationMap;
-    private FlatBufferBuilder buffer;
+    private static final int MAGIC = 0x4E41584E; //"NXAN" in little endian
+    private static final int VERSION = 3;
+    @Getter
+    private Map<String, Animation> animations;
     private boolean binary;
 
     /**
@@ -47,19 +52,19 @@ public class AnimationAsset implements IAsset {
         this.binary = binary;
         try {
             this.name = CommonUtils.removeExtension(file);
-            this.buffer = new FlatBufferBuilder();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Gets the animation map
+     * Creates a new animation map for an entity, every map shares this asset's
+     * clips and only holds its own playback state
      *
      * @return animation map
      */
     public AnimationMap toComponent() {
-        return animationMap;
+        return new AnimationMap(animations);
     }
 
     /**
@@ -70,13 +75,10 @@ public class AnimationAsset implements IAsset {
             //TODO: load mesh
             if (binary) deserialize();
             else {
-                AssimpParser.parseAnimations(file).ifPresent(animationMap -> {
+                AssimpParser.parseAnimations(file).ifPresent(animations -> {
                     this.loaded = true;
-                    this.animationMap = new AnimationMap();
-                    animationMap.forEach(animation -> {
-                        animation.setName(this.name);
-                        this.animationMap.addAnimation(animation);
-                    });
+                    this.animations = new LinkedHashMap<>();
+                    animations.forEach(animation -> this.animations.put(this.name, new Animation(animation.getTracks().withName(this.name))));
                 });
                 serialize();
             }
@@ -84,19 +86,50 @@ public class AnimationAsset implements IAsset {
     }
 
     /**
-     * Deserialize the animation
+     * Deserialize the animation file. Files starting with the track header are
+     * memory mapped and every track is copied out with a single bulk read,
+     * anything else is treated as the old flatbuffers matrix format
      */
+    @SneakyThrows
     public void deserialize() {
+        ByteBuffer data = CommonUtils.mapFile(file).order(ByteOrder.LITTLE_ENDIAN);
+        if (data.remaining() < 8 || data.getInt(0) != MAGIC) {
+            deserializeLegacy();
+            return;
+        }
+        data.position(Integer.BYTES);
+        int version = data.getInt();
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unsupported animation version " + version + " in " + file.getPath());
+        int count = data.getInt();
+        this.animations = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++)
+            addAnimation(JointTracks.read(data, version));
+        this.loaded = true;
+    }
+
+    /**
+     * Adds an animation clip from its joint tracks
+     *
+     * @param tracks the joint tracks
+     */
+    private void addAnimation(JointTracks tracks) {
+        animations.put(tracks.getName(), new Animation(tracks));
+    }
+
+    /**
+     * Deserialize an animation file written before joint tracks, where every frame
+     * stored all of its local and parent matrices. The matrices are decomposed into
+     * joint tracks straight away
+     */
+    private void deserializeLegacy() {
         RawAnimationList animationList = RawAnimationList.getRootAsRawAnimationList(CommonUtils.decodeFile(file));
         RawAnimation[] rawAnimations = new RawAnimation[animationList.animationsLength()];
-        this.animationMap = new AnimationMap();
+        this.animations = new LinkedHashMap<>();
         for (int i = 0; i < rawAnimations.length; i++) {
             RawAnimation rawAnimation = animationList.animations(i);
-            AnimatedFrame[] frames = new AnimatedFrame[rawAnimation.framesLength()];
-            Animation animation = new Animation();
-            animation.setName(rawAnimation.name());
-            animation.setDuration(rawAnimation.duration());
-            for (int j = 0; j < frames.length; j++) {
+            List<AnimatedFrame> frames = new ArrayList<>();
+            for (int j = 0; j < rawAnimation.framesLength(); j++) {
                 RawAnimatedFrame rawAnimatedFrame = rawAnimation.frames(j);
                 AnimatedFrame animatedFrame = new AnimatedFrame();
                 List<Matrix4f> localMatricies = new ArrayList<>();
@@ -114,63 +147,31 @@ public class AnimationAsset implements IAsset {
                 animatedFrame.setParentMatrices(parentMats);
                 animatedFrame.setRootTransformation(CommonUtils.bufferToMatrix(rawAnimatedFrame.rootTransform()));
                 animatedFrame.setTimeStamp(rawAnimatedFrame.timestamp());
-                animation.addAnimatedFrame(animatedFrame);
+                frames.add(animatedFrame);
             }
-            animationMap.addAnimation(animation);
+            addAnimation(JointTracks.fromFrames(rawAnimation.name(), rawAnimation.duration(), frames));
         }
+        this.loaded = true;
     }
 
     /**
-     * Serialize to file
+     * Serialize to file as joint tracks, only the joints each animation uses are written
      */
     @SneakyThrows
     public void serialize() {
         if (!loaded) load();
-        //Create the animated frames
-        //Create the Animation list with animation frames
-        //Create the list of animations
-        int[] rawAnimations = new int[animationMap.getAnimations().size()];
-        int counter = 0;
-        for (String name : animationMap.getAnimations().keySet()) {
-            Animation animation = animationMap.getAnimations().get(name);
-            List<AnimatedFrame> frames = animation.getFrames();
-            int[] animatedFrames = new int[frames.size()];
-            for (int j = 0; j < animatedFrames.length; j++) {
-                AnimatedFrame frame = frames.get(j);
-                RawAnimatedFrame.startLocalMatriciesVector(buffer, frame.getLocalMatrices().length);
-                for (int i = 0; i < frame.getLocalMatrices().length; i++)
-                    CommonUtils.matrixToBuffer(buffer, frame.getLocalMatrices()[i]);
-                int localMatricies = buffer.endVector();
-                RawAnimatedFrame.startParentMatriciesVector(buffer, frame.getParentMatrices().length);
-                for (int i = 0; i < frame.getParentMatrices().length; i++)
-                    CommonUtils.matrixToBuffer(buffer, frame.getParentMatrices()[i]);
-                int parentMatricies = buffer.endVector();
-                RawAnimatedFrame.startRawAnimatedFrame(buffer);
-                RawAnimatedFrame.addLocalMatricies(buffer, localMatricies);
-                RawAnimatedFrame.addParentMatricies(buffer, parentMatricies);
-                RawAnimatedFrame.addTimestamp(buffer, frame.getTimeStamp());
-                RawAnimatedFrame.addRootTransform(buffer, CommonUtils.matrixToBuffer(buffer, frame.getRootTransformation()));
-                animatedFrames[j] = RawAnimatedFrame.endRawAnimatedFrame(buffer);
-            }
-            int rawFrames = RawAnimation.createFramesVector(buffer, animatedFrames);
-            int rawName = buffer.createString(animation.getName());
-            RawAnimation.startRawAnimation(buffer);
-            RawAnimation.addDuration(buffer, animation.getDuration());
-            RawAnimation.addName(buffer, rawName);
-            RawAnimation.addFrames(buffer, rawFrames);
-            int rawAnimation = RawAnimation.endRawAnimation(buffer);
-            rawAnimations[counter] = rawAnimation;
-            counter++;
+        List<JointTracks> tracks = new ArrayList<>();
+        int size = 3 * Integer.BYTES;
+        for (Animation animation : animations.values()) {
+            tracks.add(animation.getTracks());
+            size += animation.getTracks().getByteSize();
         }
-
-        int animationsVector = RawAnimationList.createAnimationsVector(buffer, rawAnimations);
-        RawAnimationList.startRawAnimationList(buffer);
-        RawAnimationList.addAnimations(buffer, animationsVector);
-        int animationList = RawAnimationList.endRawAnimationList(buffer);
-        RawAnimationList.finishRawAnimationListBuffer(buffer, animationList);
-
+        ByteBuffer data = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(MAGIC).putInt(VERSION).putInt(tracks.size());
+        for (JointTracks track : tracks)
+            track.write(data);
         FileOutputStream fos = new FileOutputStream(new File(file.getParentFile().getPath() + File.separator + name + ".animation"));
-        fos.write(buffer.sizedByteArray());
+        fos.write(data.array());
         fos.close();
     }
 
@@ -179,6 +180,6 @@ public class AnimationAsset implements IAsset {
      */
     public void unload() {
         this.loaded = false;
-        this.animationMap = null;
+        this.animations = null;
     }
 }
@@ -61,6 +61,32 @@ public interface IAsset {
      */
     void load();
 
+    /**
+     * Does the cpu side of loading, like reading and decoding files.
+     * This must never touch the opengl context, so it can run on any thread.
+     * Assets that don't need opengl do all of their loading here
+     */
+    default void prepare() {
+        load();
+    }
+
+    /**
+     * Does the opengl side of loading, this must run on the
+     * context thread after {@link #prepare()} has finished
+     */
+    default void upload() {
+    }
+
+    /**
+     * The rough amount of bytes {@link #upload()} will send to opengl,
+     * used to budget how many uploads happen per frame
+     *
+     * @return the upload size in bytes
+     */
+    default long getUploadSize() {
+        return 0;
+    }
+
     /**
      * Unloads a given asset
      */
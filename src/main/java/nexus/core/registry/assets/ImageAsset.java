@@ -5,6 +5,7 @@ import lombok.Setter;
 import nexus.core.registry.Pack;
 import nexus.core.render.Texture;
 import nexus.util.CommonUtils;
+import nexus.util.opengl.GLUtils;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
@@ -36,6 +37,7 @@ public class ImageAsset implements IAsset {
     private int id; //The id of the texture
     @Getter
     private int width, height;
+    private ByteBuffer bufferData; //The decoded image, only held between prepare and upload
 
     /**
      * Creates an image and gets the file name
@@ -52,61 +54,100 @@ public class ImageAsset implements IAsset {
     }
 
     /**
-     * Gets the component only if loaded
+     * Gets the texture component, if the image hasn't been uploaded yet
+     * the texture id is reserved now and filled once the upload happens
      *
      * @return returns the component
      */
     public Texture toComponent() {
         Texture texture = new Texture();
-        texture.setTextureID(this.id);
+        texture.setTextureID(reserveId());
         return texture;
     }
 
+    /**
+     * Generates the texture id if it hasn't been generated yet,
+     * must be called on the context thread
+     *
+     * @return the texture id, always 0 when headless
+     */
+    private int reserveId() {
+        if (id == 0 && !GLUtils.isHeadless())
+            id = glGenTextures();
+        return id;
+    }
+
     /**
      * Loads an image to opengl
      */
     public void load() {
         if (!loaded) {
+            prepare();
+            upload();
+        }
+    }
+
+    /**
+     * Decodes the image into memory, this doesn't touch opengl
+     */
+    public void prepare() {
+        if (!loaded && bufferData == null) {
             try {
                 IntBuffer width = BufferUtils.createIntBuffer(1);
                 IntBuffer height = BufferUtils.createIntBuffer(1);
                 IntBuffer components = BufferUtils.createIntBuffer(1);
-                //The image buffer data
-                ByteBuffer bufferData = STBImage.stbi_load_from_memory(CommonUtils.loadImageToByteBuffer(file, 1024), width, height, components, 4);
-                id = glGenTextures();
-
-                GL11.glBindTexture(GL11.GL_TEXTURE_2D, id);
-                GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-                GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR_MIPMAP_LINEAR);
-                GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
-                GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
-                GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL14.GL_GENERATE_MIPMAP, GL11.GL_TRUE);
-
+                bufferData = STBImage.stbi_load_from_memory(CommonUtils.loadImageToByteBuffer(file, 1024), width, height, components, 4);
                 this.width = width.get(0);
                 this.height = height.get(0);
-
-                GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, this.width, this.height, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, bufferData);
-                GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
-                STBImage.stbi_image_free(bufferData);
-                loaded = true;
             } catch (IOException e) {
-                loaded = false;
                 System.err.println("Failed to load - " + getQualifier());
             }
         }
     }
 
+    /**
+     * Uploads the decoded image to opengl and frees the decoded data
+     */
+    public void upload() {
+        if (loaded || bufferData == null)
+            return;
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, reserveId());
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR_MIPMAP_LINEAR);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL14.GL_GENERATE_MIPMAP, GL11.GL_TRUE);
+        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, this.width, this.height, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, bufferData);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        STBImage.stbi_image_free(bufferData);
+        bufferData = null;
+        loaded = true;
+    }
+
+    /**
+     * The decoded image is rgba, so 4 bytes per pixel
+     *
+     * @return the upload size in bytes
+     */
+    public long getUploadSize() {
+        return (long) width * height * 4;
+    }
+
 
     /**
      * Unloads an image from opengl
      */
     public void unload() {
-        if (loaded) {
-            //TODO unload image
-            this.width = 0;
-            this.height = 0;
+        if (bufferData != null) {
+            STBImage.stbi_image_free(bufferData);
+            bufferData = null;
+        }
+        if (id != 0) {
             glDeleteTextures(id);
-            loaded = false;
+            id = 0;
         }
+        this.width = 0;
+        this.height = 0;
+        loaded = false;
     }
 }
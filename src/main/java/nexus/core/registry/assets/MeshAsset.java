@@ -4,20 +4,22 @@ import com.google.flatbuffers.FlatBufferBuilder;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import nexus.core.math.Bounds;
 import nexus.core.registry.assets.raw.Models;
 import nexus.core.registry.assets.raw.RawModel;
 import nexus.core.registry.Pack;
 import nexus.core.registry.parsers.AssimpParser;
 import nexus.core.render.Model;
 import nexus.util.CommonUtils;
+import nexus.util.opengl.GLUtils;
 import nexus.util.opengl.RawMesh;
+import nexus.util.opengl.VertexLayout;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * Represents an mesh in opengl
@@ -36,6 +38,8 @@ public class MeshAsset implements IAsset {
     private RawMesh[] meshes;
     private FlatBufferBuilder buffer;
     private boolean binary;
+    private Model model; //Shared by every entity using this mesh
+    private static final boolean QUANTIZED = true; //Bin files store their vertices in the quantized layout
 
     /**
      * Creates an mesh and gets the file name
@@ -55,64 +59,87 @@ public class MeshAsset implements IAsset {
 
     /**
      * Creates a model component using all of the
-     * rawModels
+     * rawModels. The vaos are only uploaded once, every
+     * entity using this mesh shares the same model so
+     * they can be drawn together. Headless models only
+     * have their bounds
      *
      * @return model component
      */
     public Model toComponent() {
-        Model model = new Model();
-        for (RawMesh mesh : meshes)
-            model.addVao(mesh.toVao());
+        if (model != null)
+            return model;
+        model = new Model();
+        Bounds bounds = null;
+        for (RawMesh mesh : meshes) {
+            if (!GLUtils.isHeadless())
+                model.addVao(mesh.toVao());
+            bounds = bounds == null ? mesh.getBounds() : bounds.union(mesh.getBounds());
+        }
+        model.setBounds(bounds);
         return model;
     }
 
     /**
-     * Deserialize the bin file
+     * Deserialize the bin file. The file is memory mapped and the interleaved
+     * vertices are handed to opengl as a direct view into the mapping. Bin files
+     * written before vertices were interleaved map their separate vectors instead,
+     * and the ones written before vectors were stored in order fall back to copying
+     * them into reversed arrays. Bin files written before bounds were stored get
+     * them computed from the vertices
      */
     public void deserialize() {
-        Models models = Models.getRootAsModels(CommonUtils.decodeFile(file));
+        Models models = Models.getRootAsModels(CommonUtils.mapFile(file));
         this.meshes = new RawMesh[models.meshesLength()];
         for (int i = 0; i < meshes.length; i++) {
             RawModel rawModel = models.meshes(i);
-            List<Float> vertices = new ArrayList<>();
-            for (int j = 0; j < rawModel.verticesLength(); j++)
-                vertices.add(rawModel.vertices(j));
-            List<Float> normals = new ArrayList<>();
-            for (int j = 0; j < rawModel.normalsLength(); j++)
-                normals.add(rawModel.normals(j));
-            List<Float> tangents = new ArrayList<>();
-            for (int j = 0; j < rawModel.tangentsLength(); j++)
-                tangents.add(rawModel.tangents(j));
-            List<Float> textureCoords = new ArrayList<>();
-            for (int j = 0; j < rawModel.textureCoordinatesLength(); j++)
-                textureCoords.add(rawModel.textureCoordinates(j));
-            List<Integer> indices = new ArrayList<>();
-            for (int j = 0; j < rawModel.indicesLength(); j++)
-                indices.add(rawModel.indices(j));
-            Collections.reverse(vertices);
-            Collections.reverse(normals);
-            Collections.reverse(tangents);
-            Collections.reverse(textureCoords);
-            Collections.reverse(indices);
-            if (!rawModel.bones())
-                meshes[i] = new RawMesh(rawModel.name(), CommonUtils.toFloatArray(vertices), CommonUtils.toFloatArray(normals), CommonUtils.toFloatArray(tangents), CommonUtils.toFloatArray(textureCoords), CommonUtils.toIntArray(indices));
-            else {
-                List<Integer> boneIds = new ArrayList<>();
-                for (int j = 0; j < rawModel.boneIdsLength(); j++)
-                    boneIds.add(rawModel.boneIds(j));
-                List<Float> weights = new ArrayList<>();
-                for (int j = 0; j < rawModel.boneWeightsLength(); j++)
-                    weights.add(rawModel.boneWeights(j));
-                Collections.reverse(weights);
-                Collections.reverse(boneIds);
-                meshes[i] = new RawMesh(rawModel.name(), CommonUtils.toFloatArray(vertices), CommonUtils.toFloatArray(normals), CommonUtils.toFloatArray(tangents), CommonUtils.toFloatArray(textureCoords), CommonUtils.toIntArray(indices), CommonUtils.toIntArray(boneIds), CommonUtils.toFloatArray(weights));
+            if (rawModel.vertexDataLength() > 0)
+                meshes[i] = new RawMesh(rawModel.name(),
+                        rawModel.vertexDataAsByteBuffer().order(ByteOrder.LITTLE_ENDIAN),
+                        VertexLayout.get(rawModel.layout()),
+                        rawModel.indicesAsByteBuffer().asIntBuffer());
+            else if (rawModel.ordered())
+                meshes[i] = new RawMesh(rawModel.name(),
+                        rawModel.verticesAsByteBuffer().asFloatBuffer(),
+                        rawModel.normalsAsByteBuffer().asFloatBuffer(),
+                        rawModel.tangentsAsByteBuffer().asFloatBuffer(),
+                        rawModel.textureCoordinatesAsByteBuffer().asFloatBuffer(),
+                        rawModel.indicesAsByteBuffer().asIntBuffer(),
+                        rawModel.bones() ? rawModel.boneIdsAsByteBuffer().asIntBuffer() : null,
+                        rawModel.bones() ? rawModel.boneWeightsAsByteBuffer().asFloatBuffer() : null);
+            else
+                meshes[i] = deserializeReversed(rawModel);
+            if (rawModel.boundsLength() == Bounds.FLOATS) {
+                float[] bounds = new float[Bounds.FLOATS];
+                for (int j = 0; j < bounds.length; j++)
+                    bounds[j] = rawModel.bounds(j);
+                meshes[i].setBounds(Bounds.fromArray(bounds));
             }
-
         }
+        this.loaded = true;
     }
 
     /**
-     * Serialize to file
+     * Deserialize a mesh from a bin file that stored its vectors in reverse
+     *
+     * @param rawModel the raw model to copy
+     * @return the raw mesh
+     */
+    private RawMesh deserializeReversed(RawModel rawModel) {
+        float[] vertices = CommonUtils.toReversedFloatArray(rawModel.verticesAsByteBuffer());
+        float[] normals = CommonUtils.toReversedFloatArray(rawModel.normalsAsByteBuffer());
+        float[] tangents = CommonUtils.toReversedFloatArray(rawModel.tangentsAsByteBuffer());
+        float[] textureCoords = CommonUtils.toReversedFloatArray(rawModel.textureCoordinatesAsByteBuffer());
+        int[] indices = CommonUtils.toReversedIntArray(rawModel.indicesAsByteBuffer());
+        if (!rawModel.bones())
+            return new RawMesh(rawModel.name(), vertices, normals, tangents, textureCoords, indices);
+        int[] boneIds = CommonUtils.toReversedIntArray(rawModel.boneIdsAsByteBuffer());
+        float[] weights = CommonUtils.toReversedFloatArray(rawModel.boneWeightsAsByteBuffer());
+        return new RawMesh(rawModel.name(), vertices, normals, tangents, textureCoords, indices, boneIds, weights);
+    }
+
+    /**
+     * Serialize to file, the vertices are interleaved into the quantized layout
      */
     @SneakyThrows
     public void serialize() {
@@ -123,53 +150,32 @@ public class MeshAsset implements IAsset {
             namesOffset[j] = buffer.createString(meshes[j].getName());
         for (int i = 0; i < meshes.length; i++) {
             RawMesh mesh = meshes[i];
-            //---add vertices
-            RawModel.startVerticesVector(buffer, mesh.getVertices().length);
-            int vertices = CommonUtils.arrayToBuffer(buffer, mesh.getVertices());
-            //---add texture coords
-            RawModel.startTextureCoordinatesVector(buffer, mesh.getTextureCoords().length);
-            int textureCoords = CommonUtils.arrayToBuffer(buffer, mesh.getTextureCoords());
-            //---add normals
-            RawModel.startNormalsVector(buffer, mesh.getNormals().length);
-            int normals = CommonUtils.arrayToBuffer(buffer, mesh.getNormals());
-            //---add tangents
-            RawModel.startTangentsVector(buffer, mesh.getTangents().length);
-            int tangents = CommonUtils.arrayToBuffer(buffer, mesh.getTangents());
+            VertexLayout layout = VertexLayout.of(mesh.isSkeleton(), QUANTIZED);
+            //---add interleaved vertices
+            ByteBuffer packed = mesh.pack(layout);
+            byte[] bytes = new byte[packed.remaining()];
+            packed.get(bytes);
+            int vertexData = RawModel.createVertexDataVector(buffer, bytes);
             //---add indices
-            RawModel.startIndicesVector(buffer, mesh.getIndices().length);
-            int indices = CommonUtils.arrayToBuffer(buffer, mesh.getIndices());
-            int boneIds = 0;
-            int boneWeights = 0;
-            if (mesh.isSkeleton()) {
-                //---add bone ids
-                RawModel.startBoneIdsVector(buffer, mesh.getBoneIds().length);
-                boneIds = CommonUtils.arrayToBuffer(buffer, mesh.getBoneIds());
-                //---add bone weights
-                RawModel.startBoneWeightsVector(buffer, mesh.getBoneWeights().length);
-                boneWeights = CommonUtils.arrayToBuffer(buffer, mesh.getBoneWeights());
-            }
+            int indices = RawModel.createIndicesVector(buffer, mesh.getIndices());
+            //---add bounds
+            int bounds = RawModel.createBoundsVector(buffer, mesh.getBounds().toArray());
             //---start model
             RawModel.startRawModel(buffer);
             //---add bone boolean
             RawModel.addBones(buffer, mesh.isSkeleton());
+            //---vectors are written in order so they can be mapped directly
+            RawModel.addOrdered(buffer, true);
             //---add name
             RawModel.addName(buffer, namesOffset[i]);
-            //---add vertices
-            RawModel.addVertices(buffer, vertices);
-            //---add texture coords
-            RawModel.addTextureCoordinates(buffer, textureCoords);
-            //---add normals
-            RawModel.addNormals(buffer, normals);
-            //---add tangents
-            RawModel.addTangents(buffer, tangents);
+            //---add vertex layout
+            RawModel.addLayout(buffer, layout.getId());
+            //---add interleaved vertices
+            RawModel.addVertexData(buffer, vertexData);
             //---add indices
             RawModel.addIndices(buffer, indices);
-            if (mesh.isSkeleton()) {
-                //---add bone ids
-                RawModel.addBoneIds(buffer, boneIds);
-                //---add bone weights
-                RawModel.addBoneWeights(buffer, boneWeights);
-            }
+            //---add bounds
+            RawModel.addBounds(buffer, bounds);
             int model = RawModel.endRawModel(buffer);
             meshOffsets[i] = model;
         }
@@ -208,6 +214,7 @@ public class MeshAsset implements IAsset {
     public void unload() {
         if (loaded) {
             //TODO unload mesh
+            model = null;
             loaded = false;
         }
     }
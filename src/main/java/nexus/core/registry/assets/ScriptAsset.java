@@ -60,6 +60,20 @@ public class ScriptAsset implements IAsset {
     }
 
 
+    /**
+     * Scripts create entities and components, so they're
+     * only ran on the context thread during upload
+     */
+    public void prepare() {
+    }
+
+    /**
+     * Runs the script
+     */
+    public void upload() {
+        load();
+    }
+
     /**
      * Unloads an image from opengl
      */
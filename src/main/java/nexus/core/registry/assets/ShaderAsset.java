@@ -5,20 +5,20 @@ import lombok.Getter;
 import lombok.Setter;
 import nexus.core.registry.Pack;
 import nexus.util.CommonUtils;
+import nexus.util.opengl.*;
 import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 import org.joml.Vector4f;
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
 import org.lwjgl.system.MemoryStack;
 
 import java.io.*;
 import java.nio.FloatBuffer;
 import java.util.Map;
-
-import static org.lwjgl.opengl.GL20.glUniformMatrix4fv;
+import java.util.function.BiFunction;
 
 /**
  * Represents an mesh in opengl
@@ -36,9 +36,12 @@ public class ShaderAsset implements IAsset {
     //Shader related
     private int programID, vertexID, fragmentID;
     private final Map<String, Integer> uniforms = Maps.newHashMap();
+    private final Map<String, Uniform> handles = Maps.newHashMap();
     private final Map<String, int[]> samplers = Maps.newHashMap();
-    private String uniformLine, samplerLine, bindsLine;
-    private final FloatBuffer matrixBuffer;
+    private String uniformLine, samplerLine, bindsLine, blocksLine;
+    private String[] sources; //The parsed sources, only held between prepare and upload
+    @Getter
+    private final UniformStats uniformStats = new UniformStats();
 
     /**
      * Creates an mesh and gets the file name
@@ -47,7 +50,6 @@ public class ShaderAsset implements IAsset {
      */
     public ShaderAsset(File file) {
         this.file = file;
-        matrixBuffer = BufferUtils.createFloatBuffer(16);
         try {
             this.name = CommonUtils.removeExtension(file);
         } catch (IOException e) {
@@ -56,6 +58,106 @@ public class ShaderAsset implements IAsset {
     }
 
 
+    /**
+     * Gets the handle of a float uniform, handles should be fetched once and kept
+     *
+     * @param name uniform's name
+     * @return the handle
+     */
+    public UniformFloat scalar(String name) {
+        return handle(name, UniformFloat.class, UniformFloat::new);
+    }
+
+    /**
+     * Gets the handle of a boolean uniform
+     *
+     * @param name uniform's name
+     * @return the handle
+     */
+    public UniformBool bool(String name) {
+        return handle(name, UniformBool.class, UniformBool::new);
+    }
+
+    /**
+     * Gets the handle of a vec2 uniform
+     *
+     * @param name uniform's name
+     * @return the handle
+     */
+    public UniformVec2 vec2(String name) {
+        return handle(name, UniformVec2.class, UniformVec2::new);
+    }
+
+    /**
+     * Gets the handle of a vec3 uniform
+     *
+     * @param name uniform's name
+     * @return the handle
+     */
+    public UniformVec3 vec3(String name) {
+        return handle(name, UniformVec3.class, UniformVec3::new);
+    }
+
+    /**
+     * Gets the handle of a vec4 uniform
+     *
+     * @param name uniform's name
+     * @return the handle
+     */
+    public UniformVec4 vec4(String name) {
+        return handle(name, UniformVec4.class, UniformVec4::new);
+    }
+
+    /**
+     * Gets the handle of a mat4 uniform
+     *
+     * @param name uniform's name
+     * @return the handle
+     */
+    public UniformMat4 mat4(String name) {
+        return handle(name, UniformMat4.class, UniformMat4::new);
+    }
+
+    /**
+     * Gets the handle of a mat4[] uniform
+     *
+     * @param name uniform's name
+     * @return the handle
+     */
+    public UniformMat4Array mat4Array(String name) {
+        return handle(name, UniformMat4Array.class, UniformMat4Array::new);
+    }
+
+    /**
+     * Gets or creates the handle of a uniform. Handles created before the program
+     * links are resolved when it links
+     *
+     * @param name    uniform's name
+     * @param type    the handle type
+     * @param factory creates the handle if there isn't one yet
+     * @return the handle
+     */
+    private <T extends Uniform> T handle(String name, Class<T> type, BiFunction<String, UniformStats, T> factory) {
+        Uniform handle = handles.get(name);
+        if (handle == null) {
+            handle = factory.apply(name, uniformStats);
+            if (loaded)
+                handle.resolve(locationOf(name));
+            handles.put(name, handle);
+        } else if (!type.isInstance(handle)) {
+            throw new IllegalArgumentException("Uniform " + name + " of " + this.name + " is a " + handle.getClass().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+        return type.cast(handle);
+    }
+
+    /**
+     * Gets the location of a uniform, declared uniforms were looked up when the program linked
+     */
+    private int locationOf(String name) {
+        Integer location = uniforms.get(name);
+        return location != null ? location : GL20.glGetUniformLocation(programID, name);
+    }
+
     /**
      * Pass a uniform float to shader
      *
@@ -63,7 +165,7 @@ public class ShaderAsset implements IAsset {
      * @param value the value of the uniform
      */
     public void loadFloat(String name, float value) {
-        GL20.glUniform1f(uniforms.get(name), value);
+        scalar(name).load(value);
     }
 
     /**
@@ -83,7 +185,7 @@ public class ShaderAsset implements IAsset {
      * @param vec  the vec to passed to the shader
      */
     public void loadVec3(String name, Vector3f vec) {
-        GL20.glUniform3f(uniforms.get(name), vec.x, vec.y, vec.z);
+        vec3(name).load(vec);
     }
 
     /**
@@ -93,7 +195,7 @@ public class ShaderAsset implements IAsset {
      * @param vec  the vec4 value
      */
     public void loadVec4(String name, Vector4f vec) {
-        GL20.glUniform4f(uniforms.get(name), vec.x, vec.y, vec.z, vec.w);
+        vec4(name).load(vec);
     }
 
     /**
@@ -103,8 +205,7 @@ public class ShaderAsset implements IAsset {
      * @param value the boolean value
      */
     public void loadBool(String name, boolean value) {
-        int val = (value) ? 1 : 0;
-        GL20.glUniform1i(uniforms.get(name), val);
+        bool(name).load(value);
     }
 
     /**
@@ -114,8 +215,18 @@ public class ShaderAsset implements IAsset {
      * @param mat  the matrix value
      */
     public void loadMat4(String name, Matrix4f mat) {
-        mat.get(matrixBuffer);
-        glUniformMatrix4fv(uniforms.get(name), false, matrixBuffer);
+        mat4(name).load(mat);
+    }
+
+    /**
+     * Loads an matrix array straight from a buffer of column major matrices,
+     * the buffer is uploaded as is without any copying
+     *
+     * @param name the matrix[] name
+     * @param mats the packed matrices, 16 floats each
+     */
+    public void loadMat4Array(String name, FloatBuffer mats) {
+        mat4Array(name).load(mats);
     }
 
     /**
@@ -131,7 +242,7 @@ public class ShaderAsset implements IAsset {
             for (int i = 0; i < length; i++) {
                 mats[i].get(16 * i, fb);
             }
-            glUniformMatrix4fv(uniforms.get(name), false, fb);
+            mat4Array(name).load(fb);
         }
     }
 
@@ -141,7 +252,7 @@ public class ShaderAsset implements IAsset {
      * @param name the matrix name in the shader
      */
     public void loadVec2(String name, Vector2f vec) {
-        GL20.glUniform2f(uniforms.get(name), vec.x, vec.y);
+        vec2(name).load(vec);
     }
 
 
@@ -157,8 +268,24 @@ public class ShaderAsset implements IAsset {
      */
     public void load() {
         if (!loaded) {
-            String[] sources = parseSource();
+            prepare();
+            upload();
+        }
+    }
+
+    /**
+     * Reads the shader sources from file, this doesn't touch opengl
+     */
+    public void prepare() {
+        if (!loaded && sources == null)
+            sources = parseSource();
+    }
 
+    /**
+     * Compiles and links the prepared sources
+     */
+    public void upload() {
+        if (!loaded && sources != null) {
             vertexID = GL20.glCreateShader(GL20.GL_VERTEX_SHADER);
             GL20.glShaderSource(vertexID, sources[0]);
             GL20.glCompileShader(vertexID);
@@ -184,15 +311,22 @@ public class ShaderAsset implements IAsset {
             GL20.glLinkProgram(programID);
             GL20.glValidateProgram(programID);
             parseUniforms();
+            for (Uniform handle : handles.values())
+                handle.resolve(locationOf(handle.getName()));
             parseSamplers();
+            parseBlocks();
+            sources = null;
             loaded = true;
         }
     }
 
     /**
-     * This method will take the line and parse the uniforms
+     * This method will take the line and parse the uniforms,
+     * shaders that only read uniform blocks can leave it out
      */
     private void parseUniforms() {
+        if (uniformLine == null)
+            return;
         String rawUniforms = CommonUtils.getTextAfter(uniformLine, ':', 1).trim();
         if (rawUniforms.contains(",")) {
             String[] uniforms = rawUniforms.split(",");
@@ -228,6 +362,26 @@ public class ShaderAsset implements IAsset {
         }
     }
 
+    /**
+     * This method will parse the uniform blocks and wire each
+     * of them up to its binding point, blocks are optional
+     */
+    private void parseBlocks() {
+        if (blocksLine == null)
+            return;
+        String rawBlocks = CommonUtils.getTextAfter(blocksLine, ':', 1).trim();
+        for (String untrimmed : rawBlocks.split(",")) {
+            String[] combo = untrimmed.trim().split(" ");
+            String name = combo[0];
+            int binding = Integer.parseInt(combo[1]);
+            int index = GL31.glGetUniformBlockIndex(programID, name);
+            if (index == GL31.GL_INVALID_INDEX)
+                System.err.println("Uniform block " + name + " isn't used by " + this.name);
+            else
+                GL31.glUniformBlockBinding(programID, index, binding);
+        }
+    }
+
     /**
      * This method will parse the binds
      * for the given shader and assign them
@@ -272,6 +426,8 @@ public class ShaderAsset implements IAsset {
                     samplerLine = line;
                 else if (line.startsWith("//define_binds"))
                     bindsLine = line;
+                else if (line.startsWith("//define_blocks"))
+                    blocksLine = line;
                 if (isInVert && !line.startsWith("//FRAG_SHADER")) {
                     vertexSource.append(line).append("\n");
                     isInFrag = false;
@@ -306,6 +462,9 @@ public class ShaderAsset implements IAsset {
             GL20.glDeleteShader(vertexID);
             GL20.glDeleteShader(fragmentID);
             GL20.glDeleteProgram(programID);
+            for (Uniform handle : handles.values())
+                handle.resolve(-1);
+            uniforms.clear();
             loaded = false;
         }
     }
@@ -46,6 +46,16 @@ public final class RawModel extends Table {
   public int indicesLength() { int o = __offset(20); return o != 0 ? __vector_len(o) : 0; }
   public ByteBuffer indicesAsByteBuffer() { return __vector_as_bytebuffer(20, 4); }
   public ByteBuffer indicesInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 20, 4); }
+  public boolean ordered() { int o = __offset(22); return o != 0 ? 0!=bb.get(o + bb_pos) : false; }
+  public float bounds(int j) { int o = __offset(24); return o != 0 ? bb.getFloat(__vector(o) + j * 4) : 0; }
+  public int boundsLength() { int o = __offset(24); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer boundsAsByteBuffer() { return __vector_as_bytebuffer(24, 4); }
+  public ByteBuffer boundsInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 24, 4); }
+  public int layout() { int o = __offset(26); return o != 0 ? bb.getInt(o + bb_pos) : 0; }
+  public int vertexData(int j) { int o = __offset(28); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int vertexDataLength() { int o = __offset(28); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer vertexDataAsByteBuffer() { return __vector_as_bytebuffer(28, 1); }
+  public ByteBuffer vertexDataInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 28, 1); }
 
   public static int createRawModel(FlatBufferBuilder builder,
       int nameOffset,
@@ -56,8 +66,15 @@ public final class RawModel extends Table {
       int tangentsOffset,
       int boneIdsOffset,
       int boneWeightsOffset,
-      int indicesOffset) {
-    builder.startObject(9);
+      int indicesOffset,
+      boolean ordered,
+      int boundsOffset,
+      int layout,
+      int vertexDataOffset) {
+    builder.startObject(13);
+    RawModel.addVertexData(builder, vertexDataOffset);
+    RawModel.addLayout(builder, layout);
+    RawModel.addBounds(builder, boundsOffset);
     RawModel.addIndices(builder, indicesOffset);
     RawModel.addBoneWeights(builder, boneWeightsOffset);
     RawModel.addBoneIds(builder, boneIdsOffset);
@@ -66,11 +83,12 @@ public final class RawModel extends Table {
     RawModel.addTextureCoordinates(builder, textureCoordinatesOffset);
     RawModel.addVertices(builder, verticesOffset);
     RawModel.addName(builder, nameOffset);
+    RawModel.addOrdered(builder, ordered);
     RawModel.addBones(builder, bones);
     return RawModel.endRawModel(builder);
   }
 
-  public static void startRawModel(FlatBufferBuilder builder) { builder.startObject(9); }
+  public static void startRawModel(FlatBufferBuilder builder) { builder.startObject(13); }
   public static void addName(FlatBufferBuilder builder, int nameOffset) { builder.addOffset(0, nameOffset, 0); }
   public static void addBones(FlatBufferBuilder builder, boolean bones) { builder.addBoolean(1, bones, false); }
   public static void addVertices(FlatBufferBuilder builder, int verticesOffset) { builder.addOffset(2, verticesOffset, 0); }
@@ -94,6 +112,14 @@ public final class RawModel extends Table {
   public static void addIndices(FlatBufferBuilder builder, int indicesOffset) { builder.addOffset(8, indicesOffset, 0); }
   public static int createIndicesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startIndicesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addOrdered(FlatBufferBuilder builder, boolean ordered) { builder.addBoolean(9, ordered, false); }
+  public static void addBounds(FlatBufferBuilder builder, int boundsOffset) { builder.addOffset(10, boundsOffset, 0); }
+  public static int createBoundsVector(FlatBufferBuilder builder, float[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addFloat(data[i]); return builder.endVector(); }
+  public static void startBoundsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addLayout(FlatBufferBuilder builder, int layout) { builder.addInt(11, layout, 0); }
+  public static void addVertexData(FlatBufferBuilder builder, int vertexDataOffset) { builder.addOffset(12, vertexDataOffset, 0); }
+  public static int createVertexDataVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startVertexDataVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
   public static int endRawModel(FlatBufferBuilder builder) {
     int o = builder.endObject();
     return o;
@@ -1,8 +1,8 @@
 package nexus.core.registry.parsers;
 
 import lombok.SneakyThrows;
-import nexus.core.animation.AnimatedFrame;
 import nexus.core.animation.Bone;
+import nexus.core.animation.JointTracks;
 import nexus.core.animation.Node;
 import nexus.core.animation.VertexWeight;
 import nexus.core.render.Animation;
@@ -18,13 +18,14 @@ import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class will does various tasks to model
  * files to generate uniform outputs
  */
 public class AssimpParser {
-    private static final Map<String, List<Animation>> cache = new HashMap<>();
+    private static final Map<String, List<Animation>> cache = new ConcurrentHashMap<>();
     public static final int DEFAULT_PARAMETERS =
             Assimp.aiProcess_Triangulate |
                     Assimp.aiProcess_GenSmoothNormals |
@@ -241,47 +242,62 @@ public class AssimpParser {
                 buildTransFormationMatrices(aiNodeAnim, node);
             }
 
-            List<AnimatedFrame> frames = buildAnimationFrames(bones, rootNode, rootTransformation);
-            Animation animation = new Animation();
-            animation.setName(aiAnimation.mName().dataString());
-            animation.setFrames(frames);
-            animation.setDuration(aiAnimation.mDuration());
+            Animation animation = new Animation(buildJointTracks(aiAnimation.mName().dataString(), aiAnimation.mDuration(), bones, rootNode, rootTransformation));
             animations.add(animation);
         }
         return animations;
     }
 
     /**
-     * Builds the actual animation frames
+     * Builds the joint tracks, every keyframe is decomposed once here with
+     * the root transform already applied
      *
+     * @param name               the animation name
+     * @param duration           the animation duration
      * @param boneList           the list of bones to use to build animations
      * @param rootNode           the root node
      * @param rootTransformation the root transform
-     * @return returns a list of animated frames
+     * @return returns the joint tracks
      */
-    private static List<AnimatedFrame> buildAnimationFrames(List<Bone> boneList, Node rootNode, Matrix4f rootTransformation) {
+    private static JointTracks buildJointTracks(String name, double duration, List<Bone> boneList, Node rootNode, Matrix4f rootTransformation) {
         int numFrames = rootNode.getAnimationFrames();
-        List<AnimatedFrame> frameList = new ArrayList<>();
+        int numBones = boneList.size();
+        int[] jointSlots = new int[numBones];
+        int[] jointParents = new int[numBones];
+        for (int j = 0; j < numBones; j++) {
+            jointSlots[j] = j;
+            jointParents[j] = findParentBone(boneList, rootNode.findByName(boneList.get(j).getBoneName()));
+        }
+        JointTracks tracks = new JointTracks(name, duration, jointSlots, jointParents, numFrames);
+        Matrix4f transform = new Matrix4f();
         for (int i = 0; i < numFrames; i++) {
-            AnimatedFrame frame = new AnimatedFrame();
-            frame.setRootTransformation(new Matrix4f(rootTransformation));
-            frameList.add(frame);
-
-            int numBones = boneList.size();
             for (int j = 0; j < numBones; j++) {
                 Bone bone = boneList.get(j);
                 Node node = rootNode.findByName(bone.getBoneName());
-                Matrix4f boneMatrix = Node.getParentTransforms(node, i);
-                Matrix4f parentMatrix = new Matrix4f(boneMatrix);
-                boneMatrix.mul(bone.getOffsetMatrix());
-                frame.setMatrix(j, parentMatrix, bone.getOffsetMatrix(), node.getTimes().isEmpty() ? 0 : node.getTimes().get(i));
+                rootTransformation.mul(Node.getParentTransforms(node, i), transform).mul(bone.getOffsetMatrix());
+                tracks.setKey(i, j, transform);
+                tracks.getTimestamps()[i] = node.getTimes().isEmpty() ? 0 : node.getTimes().get(i);
             }
         }
-
-        return frameList;
+        return tracks;
     }
 
 
+    /**
+     * Finds the closest ancestor of a node that is also a bone
+     *
+     * @param boneList the list of bones
+     * @param node     the bone's node
+     * @return the index of the parent bone, or -1 if there is none
+     */
+    private static int findParentBone(List<Bone> boneList, Node node) {
+        for (Node parent = node == null ? null : node.getParent(); parent != null; parent = parent.getParent())
+            for (int i = 0; i < boneList.size(); i++)
+                if (boneList.get(i).getBoneName().equals(parent.getName()))
+                    return i;
+        return -1;
+    }
+
     /**
      * Builds the transformations from the given node
      *
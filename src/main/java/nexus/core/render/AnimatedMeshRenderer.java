@@ -2,34 +2,43 @@ package nexus.core.render;
 
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.All;
+import lombok.Getter;
 import nexus.context.Context;
+import nexus.core.defaults.ContextThread;
+import nexus.core.defaults.FrameSystem;
 import nexus.core.defaults.IteratingInitSystem;
+import nexus.core.defaults.Reads;
+import nexus.core.defaults.Writes;
 import nexus.core.math.Transform;
 import nexus.core.player.LocalPlayer;
 import nexus.core.registry.Registry;
-import nexus.core.registry.assets.AnimationAsset;
 import nexus.core.registry.assets.ShaderAsset;
-import org.joml.Matrix4f;
+import nexus.util.opengl.UniformMat4;
+import nexus.util.opengl.UniformMat4Array;
 import org.joml.Vector3f;
-import org.lwjgl.opengl.GL11;
-
-import java.text.DecimalFormat;
-
-import static org.lwjgl.opengl.GL11.*;
 
 /**
- * Renders a quad to screen
+ * Submits the animated meshes to the render queue
  */
 @All({Transform.class, Model.class, Texture.class, AnimationMap.class, Bones.class})
-public class AnimatedMeshRenderer extends IteratingInitSystem {
+@ContextThread
+@Reads(Visibility.class)
+@Writes({Transform.class, RenderQueue.class})
+public class AnimatedMeshRenderer extends IteratingInitSystem implements RenderPass, FrameSystem {
     private Context coreContext;
-    private ShaderAsset meshShader;
+    @Getter
+    private ShaderAsset shader;
     public ComponentMapper<Transform> mTransform;
     public ComponentMapper<Model> mModel;
     public ComponentMapper<Texture> mTexture;
     public ComponentMapper<AnimationMap> mAnimation;
     public ComponentMapper<Bones> mBones;
     private LocalPlayer localPlayer;
+    private RenderQueue renderQueue;
+    private Visibility visibility;
+    private UniformMat4 modelMatrix;
+    private UniformMat4Array jointsMatrix;
+    private final Vector3f position = new Vector3f(), cameraPosition = new Vector3f();
 
     public AnimatedMeshRenderer(Context coreContext) {
         this.coreContext = coreContext;
@@ -39,50 +48,44 @@ public class AnimatedMeshRenderer extends IteratingInitSystem {
      * Setup the renderer
      */
     public void postInitialization() {
-        meshShader = coreContext.get(Registry.class).get("core:shaders:animated", ShaderAsset.class);
+        shader = coreContext.get(Registry.class).get("core:shaders:animated", ShaderAsset.class);
         localPlayer = coreContext.get(LocalPlayer.class);
-
-//        System.out.println(coreContext.get(Registry.class).get("core:animations:Praying", AnimationAsset.class).toComponent());
-    }
-
-    /**
-     * This is temporary, soon we are going
-     * to remove this and put it somewhere else
-     */
-    protected void begin() {
-        glClear(GL_DEPTH_BUFFER_BIT | GL_COLOR_BUFFER_BIT);
-        glClearColor(0.01f, 0.2f, 0.34f, 1);
-        GL11.glEnable(GL_DEPTH_TEST);
-        GL11.glEnable(GL_CULL_FACE);
-        GL11.glCullFace(GL_BACK);
-        meshShader.start();
-        meshShader.loadMat4("projectionMatrix", localPlayer.getCamera().getProjectionMatrix());
-        meshShader.loadMat4("viewMatrix", localPlayer.getCamera().getViewMatrix());
+        renderQueue = coreContext.get(RenderQueue.class);
+        visibility = coreContext.get(Visibility.class);
+        renderQueue.register(this);
+        modelMatrix = shader.mat4("modelMatrix");
+        jointsMatrix = shader.mat4Array("jointsMatrix");
     }
 
     /**
-     * Render the entities
+     * Submit the entities
      *
      * @param entityId the entity to render
      */
     protected void process(int entityId) {
+        if (!visibility.isVisible(entityId))
+            return;
         Transform transform = mTransform.get(entityId);
-        Model model = mModel.get(entityId);
-        Texture texture = mTexture.get(entityId);
-        AnimationMap animation = mAnimation.get(entityId);
-        Bones bones = mBones.get(entityId);
-        texture.bind();
-        meshShader.loadMat4("modelMatrix", transform.getMatrix());
-        Matrix4f[] frame = animation.update(world.delta);
-        meshShader.loadMat4Array("jointsMatrix", frame);
-        model.draw();
-        texture.unbind();
+        transform.getRenderMatrix().getTranslation(position);
+        float depth = position.distance(localPlayer.getTransform().getRenderMatrix().getTranslation(cameraPosition));
+        renderQueue.submit(this, mTexture.get(entityId), mModel.get(entityId), depth, entityId);
+    }
+
+    /**
+     * The camera comes from the camera block, so there's nothing to load per frame
+     */
+    public void beginPass() {
     }
 
     /**
-     * Called at the end of rendering
+     * Draws an entity with its joint palette
+     *
+     * @param entityId the entity to draw
+     * @param model    the entity's model
      */
-    protected void end() {
-        meshShader.stop();
+    public void draw(int entityId, Model model) {
+        modelMatrix.load(mTransform.get(entityId).getRenderMatrix());
+        jointsMatrix.load(mAnimation.get(entityId).getMatrices());
+        model.drawBound();
     }
 }
@@ -3,67 +3,140 @@ package nexus.core.render;
 import com.artemis.Component;
 import lombok.Getter;
 import lombok.Setter;
+import nexus.core.animation.AnimationLod;
+import nexus.core.animation.JointPalette;
 import org.joml.Matrix4f;
 
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Allows for a player to have multiple animations
+ * Allows for a player to have multiple animations. The animation clips are
+ * shared with every other map created from the same asset, only the playback
+ * state and the joint palette belong to this entity
  */
 public class AnimationMap extends Component {
     @Getter
-    private Map<String, Animation> animations = new HashMap<>();
-    @Setter
-    private Animation currentAnimation;
-    @Setter
+    private final Map<String, Animation> animations;
     @Getter
-    private Animation nextAnimation;
+    private AnimationPlayback currentAnimation;
+    @Getter
+    private AnimationPlayback nextAnimation;
     private float increment = 0;
     private float speed = 1.0f;
-    private Matrix4f[] empty = new Matrix4f[150];
+    private final JointPalette palette = new JointPalette();
+    private JointPalette blendPalette; //Only created once the entity blends
+    @Getter
+    @Setter
+    private AnimationLod lod = AnimationLod.DEFAULT;
+    private int framesSkipped = 0;
+    private float pendingTime = 0;
+    @Getter
+    private int collapsedJoints = 0;
 
     public AnimationMap() {
-        Arrays.fill(empty, new Matrix4f().identity());
+        this(new HashMap<>());
     }
 
     /**
-     * Plays a new animation
+     * Creates an animation map playing from shared clips
      *
-     * @param animation
+     * @param animations the clips by name, not copied
+     */
+    public AnimationMap(Map<String, Animation> animations) {
+        this.animations = animations;
+    }
+
+    /**
+     * Plays a new animation, blending into it if one is already playing
+     *
+     * @param animation the animation name
+     * @param speed     the playback and blend speed
      */
     public void play(String animation, float speed) {
+        Animation clip = animations.get(animation);
+        if (clip == null)
+            return;
         if (currentAnimation == null)
-            currentAnimation = animations.get(animation);
+            currentAnimation = new AnimationPlayback(clip, speed);
         else
-            nextAnimation = animations.get(animation);
+            nextAnimation = new AnimationPlayback(clip, speed);
         this.speed = speed;
     }
 
     /**
-     * Gets the current animations matrices
+     * Steps the current animations and samples them into the palette at full detail
+     *
+     * @param deltaTime the time since the last update
+     */
+    public void update(float deltaTime) {
+        update(deltaTime, 0);
+    }
+
+    /**
+     * Steps the current animations and samples them into the palette, blending
+     * towards the next animation while one is queued. The lod band for the distance
+     * decides whether this frame is sampled, otherwise the time is saved up for the
+     * next sample and the previous palette is kept
+     *
+     * @param deltaTime the time since the last update
+     * @param distance  the distance from the camera
+     * @return true if the palette was sampled, false if the previous palette was reused
      */
-    public Matrix4f[] update(float deltaTime) {
+    public boolean update(float deltaTime, float distance) {
+        collapsedJoints = 0;
         if (currentAnimation == null)
-            return empty;
-        Matrix4f[] matrix = currentAnimation.getNextFrame(deltaTime);
+            return false;
+        pendingTime += deltaTime;
+        AnimationLod.Band band = lod.select(distance);
+        if (band != null && !band.isDue(framesSkipped, pendingTime)) {
+            framesSkipped++;
+            return false;
+        }
+        float step = pendingTime;
+        boolean skipLeaves = band != null && band.isSkipLeaves();
+        framesSkipped = 0;
+        pendingTime = 0;
+        currentAnimation.advance(step);
+        collapsedJoints = currentAnimation.sample(palette, skipLeaves);
         if (nextAnimation != null) {
-            float blend = incrementAnimations(deltaTime);
+            float blend = incrementAnimations(step);
             if (blend >= 1) {
                 increment = 0;
                 currentAnimation = nextAnimation;
                 nextAnimation = null;
             } else {
-                Matrix4f[] nextMatrix = nextAnimation.getNextFrame(deltaTime);
-                Matrix4f[] lerped = new Matrix4f[nextMatrix.length];
-                for (int i = 0; i < nextMatrix.length; i++)
-                    lerped[i] = new Matrix4f(matrix[i]).lerp(nextMatrix[i], blend);
-                return lerped;
+                if (blendPalette == null)
+                    blendPalette = new JointPalette();
+                nextAnimation.advance(step);
+                collapsedJoints += nextAnimation.sample(blendPalette, skipLeaves);
+                palette.blend(blendPalette, blend);
             }
         }
+        return true;
+    }
+
+    /**
+     * Gets the joint matrices sampled by the last update
+     *
+     * @return the joint matrices, ready to upload
+     */
+    public FloatBuffer getMatrices() {
+        return palette.getMatrices();
+    }
 
-        return matrix;
+    /**
+     * Gets a single joint matrix sampled by the last update, used to attach
+     * other entities to a joint
+     *
+     * @param joint the joint matrix index
+     * @param dest  the matrix to copy into
+     * @return dest
+     */
+    public Matrix4f getJointMatrix(int joint, Matrix4f dest) {
+        return palette.get(joint, dest);
     }
 
     /**
@@ -79,7 +152,7 @@ public class AnimationMap extends Component {
 
 
     /**
-     * Adds an animation to the map
+     * Adds an animation to the map, maps created from an asset share their clips with it
      *
      * @param animation
      */
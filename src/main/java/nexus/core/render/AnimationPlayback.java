@@ -0,0 +1,59 @@
+package nexus.core.render;
+
+import lombok.Getter;
+import lombok.Setter;
+import nexus.core.animation.JointPalette;
+import nexus.core.animation.JointTracks;
+
+/**
+ * The playback state of a single entity playing a shared {@link Animation}
+ */
+public class AnimationPlayback {
+    @Getter
+    private final Animation animation;
+    @Getter
+    @Setter
+    private float speed;
+    @Getter
+    private float time = 0;
+    @Getter
+    private int currentFrame;
+    private int cursor = 0;
+
+    public AnimationPlayback(Animation animation, float speed) {
+        this.animation = animation;
+        this.speed = speed;
+    }
+
+    /**
+     * Increases the current animation time which allows the animation to
+     * progress. If the current animation has reached the end then the timer is
+     * reset, causing the animation to loop.
+     *
+     * @param deltaTime the time since the last step
+     */
+    public void advance(float deltaTime) {
+        time += deltaTime * speed;
+        if (time > animation.getDuration())
+            time %= animation.getDuration();
+    }
+
+    /**
+     * Samples the pose at the current time into the palette
+     *
+     * @param palette    the palette to write the joint matrices into
+     * @param skipLeaves if true leaf joints are collapsed onto their parents
+     * @return the amount of joints that were collapsed instead of sampled
+     */
+    public int sample(JointPalette palette, boolean skipLeaves) {
+        JointTracks tracks = animation.getTracks();
+        float[] timestamps = tracks.getTimestamps();
+        int last = tracks.findFrame(time, cursor);
+        int next = Math.min(last + 1, timestamps.length - 1);
+        cursor = last;
+        currentFrame = next;
+        float totalTime = timestamps[next] - timestamps[last];
+        float progression = totalTime > 0 ? (time - timestamps[last]) / totalTime : 0;
+        return palette.sample(tracks, last, next, progression, skipLeaves);
+    }
+}
@@ -2,29 +2,39 @@ package nexus.core.render;
 
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.All;
+import lombok.Getter;
 import nexus.context.Context;
+import nexus.core.defaults.ContextThread;
+import nexus.core.defaults.FrameSystem;
 import nexus.core.defaults.IteratingInitSystem;
+import nexus.core.defaults.Writes;
 import nexus.core.math.Transform;
 import nexus.core.player.LocalPlayer;
 import nexus.core.registry.Registry;
 import nexus.core.registry.assets.ShaderAsset;
+import nexus.util.opengl.UniformVec3;
 import nexus.util.opengl.Vao;
+import org.joml.Matrix4f;
 import org.joml.Vector3f;
 
-import static org.lwjgl.opengl.GL11.*;
-
 /**
- * Renders billboards in 3d space
+ * Renders billboards in 3d space, submitting them to the render queue
  */
 @All({Billboard.class, Transform.class, Bones.class})
-public class BillboardRenderer extends IteratingInitSystem {
+@ContextThread
+@Writes({Transform.class, RenderQueue.class})
+public class BillboardRenderer extends IteratingInitSystem implements RenderPass, FrameSystem {
     private Context context;
     private LocalPlayer localPlayer;
+    private RenderQueue renderQueue;
+    @Getter
     private ShaderAsset shader;
     private ComponentMapper<Billboard> mBillboard;
     private ComponentMapper<Transform> mTransform;
     private ComponentMapper<Bones> mBones;
-    private Vao billboardModel;
+    private Model billboardModel;
+    private UniformVec3 center, size;
+    private final Vector3f forward = new Vector3f(), position = new Vector3f(), cameraPosition = new Vector3f();
 
     public BillboardRenderer(Context context) {
         this.context = context;
@@ -36,63 +46,66 @@ public class BillboardRenderer extends IteratingInitSystem {
     public void postInitialization() {
         this.localPlayer = context.get(LocalPlayer.class);
         this.shader = context.get(Registry.class).get("core:shaders:billboard", ShaderAsset.class);
-        billboardModel = Vao.create(2);
-        billboardModel.bind();
-        billboardModel.createAttribute(new float[]{
+        this.renderQueue = context.get(RenderQueue.class);
+        renderQueue.register(this);
+        center = shader.vec3("center");
+        size = shader.vec3("size");
+        Vao billboardVao = Vao.create(2);
+        billboardVao.bind();
+        billboardVao.createAttribute(new float[]{
                 //left bottom triangle
                 -0.5f, +0.5f, 0.0f, // v0 - x1, y1, z1
                 -0.5f, -0.5f, 0.0f, // v1 - x2, y2, z2
                 +0.5f, -0.5f, 0.0f, // v2 - x3, y3, z3
                 +0.5f, +0.5f, 0.0f // v3 - x4, y4, z4
         }, 3);
-        billboardModel.createAttribute(new float[]{
+        billboardVao.createAttribute(new float[]{
                 0, 0,
                 1, 0,
                 0, 1,
                 1, 1
         }, 2);
 
-        billboardModel.createIndexBuffer(new int[]{
+        billboardVao.createIndexBuffer(new int[]{
                 0, 1, 3, // top left triangle (v0, v1, v2)
                 3, 1, 2 // bottom right triangle (v3 v1 v2)
         });
-        billboardModel.unbind();
+        billboardVao.unbind();
+        billboardModel = new Model();
+        billboardModel.addVao(billboardVao);
     }
 
     /**
-     * Begin shader code
+     * The camera comes from the camera block, so there's nothing to load per frame
      */
-    protected void begin() {
-        shader.start();
-        shader.loadVec3("cameraRight", localPlayer.getCamera().getRight());
-        shader.loadVec3("cameraUp", localPlayer.getCamera().getUp());
-        shader.loadMat4("projectionMatrix", localPlayer.getCamera().getProjectionMatrix());
-        shader.loadMat4("viewMatrix", localPlayer.getCamera().getViewMatrix());
+    public void beginPass() {
     }
 
     /**
-     * Render the billboard to the entity
+     * Submit the billboard of the entity
      *
      * @param entityId entity to render to
      */
     protected void process(int entityId) {
-        Transform transform = mTransform.get(entityId);
-        Billboard billboard = mBillboard.get(entityId);
-        Vector3f forward = new Vector3f();
-        transform.getMatrix().positiveZ(forward);
-        forward = forward.mul(0.2f);
-        Vector3f center = new Vector3f(transform.getPosition()).add(forward).add(0, transform.getScale().y, 0).add(new Vector3f(0, billboard.getSize().y * 1.5f, 0));
-        shader.loadVec3("center", center);
-        shader.loadVec3("size", new Vector3f(billboard.getSize(), billboard.isFixed() ? 1 : 0));
-        billboardModel.bind();
-        glDrawElements(GL_TRIANGLES, billboardModel.getIndexCount(), GL_UNSIGNED_INT, 0);
-        billboardModel.unbind();
+        mTransform.get(entityId).getRenderMatrix().getTranslation(position);
+        float depth = position.distance(localPlayer.getTransform().getRenderMatrix().getTranslation(cameraPosition));
+        renderQueue.submit(this, null, billboardModel, depth, entityId);
     }
 
     /**
-     * End shader code
+     * Render the billboard to the entity
+     *
+     * @param entityId entity to render to
+     * @param model    the billboard quad
      */
-    protected void end() {
-        shader.stop();
+    public void draw(int entityId, Model model) {
+        Transform transform = mTransform.get(entityId);
+        Billboard billboard = mBillboard.get(entityId);
+        Matrix4f matrix = transform.getRenderMatrix();
+        matrix.positiveZ(forward).mul(0.2f);
+        matrix.getTranslation(position).add(forward).add(0, transform.getScale().y + billboard.getSize().y * 1.5f, 0);
+        center.load(position);
+        size.load(billboard.getSize().x, billboard.getSize().y, billboard.isFixed() ? 1 : 0);
+        model.drawBound();
     }
 }
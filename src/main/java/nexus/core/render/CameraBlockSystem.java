@@ -0,0 +1,100 @@
+package nexus.core.render;
+
+import com.artemis.annotations.All;
+import lombok.Getter;
+import nexus.context.Context;
+import nexus.core.defaults.ContextThread;
+import nexus.core.defaults.FrameSystem;
+import nexus.core.defaults.InitSystem;
+import nexus.core.defaults.Writes;
+import nexus.core.math.Transform;
+import nexus.core.player.Camera;
+import nexus.core.player.LocalPlayer;
+import nexus.util.opengl.Ubo;
+import org.joml.Vector3f;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Uploads the camera once per frame into a uniform buffer shared by every
+ * shader. Shaders read it by declaring the block below and wiring it up with
+ * {@code //define_blocks: Camera 0}
+ * <pre>
+ * layout(std140) uniform Camera {
+ *     mat4 projectionMatrix;
+ *     mat4 viewMatrix;
+ *     vec4 cameraRight;
+ *     vec4 cameraUp;
+ * };
+ * </pre>
+ */
+@All(Transform.class)
+@ContextThread
+@Writes(Camera.class)
+public class CameraBlockSystem extends InitSystem implements FrameSystem {
+    public static final int BINDING = 0;
+    private static final int FLOATS = 16 + 16 + 4 + 4;
+    private Context coreContext;
+    private LocalPlayer localPlayer;
+    private Ubo ubo;
+    private final FloatBuffer buffer = BufferUtils.createFloatBuffer(FLOATS);
+    private float[] block = new float[FLOATS], lastBlock = new float[FLOATS];
+    @Getter
+    private long uploads = 0, skippedUploads = 0;
+
+    public CameraBlockSystem(Context coreContext) {
+        this.coreContext = coreContext;
+    }
+
+    /**
+     * Creates the uniform buffer
+     */
+    public void postInitialization() {
+        localPlayer = coreContext.get(LocalPlayer.class);
+        ubo = Ubo.create(BINDING, FLOATS * 4);
+        Arrays.fill(lastBlock, Float.NaN);
+    }
+
+    /**
+     * We need to process every frame
+     *
+     * @return processing check
+     */
+    protected boolean checkProcessing() {
+        return true;
+    }
+
+    /**
+     * Writes the camera into the block, only uploading it when it changed
+     */
+    protected void processSystem() {
+        Camera camera = localPlayer.getCamera();
+        camera.getProjectionMatrix().get(block, 0);
+        camera.getViewMatrix().get(block, 16);
+        put(camera.getRight(), 32);
+        put(camera.getUp(), 36);
+        if (Arrays.equals(block, lastBlock)) {
+            skippedUploads++;
+            return;
+        }
+        buffer.clear();
+        buffer.put(block).flip();
+        ubo.update(buffer);
+        uploads++;
+        float[] swap = lastBlock;
+        lastBlock = block;
+        block = swap;
+    }
+
+    /**
+     * Writes a vec3 padded to a vec4, as std140 lays them out
+     */
+    private void put(Vector3f vec, int offset) {
+        block[offset] = vec.x;
+        block[offset + 1] = vec.y;
+        block[offset + 2] = vec.z;
+        block[offset + 3] = 0;
+    }
+}
@@ -0,0 +1,202 @@
+package nexus.core.render;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import lombok.Getter;
+import nexus.context.Context;
+import nexus.core.defaults.FrameSystem;
+import nexus.core.defaults.InitSystem;
+import nexus.core.defaults.Reads;
+import nexus.core.defaults.Writes;
+import nexus.core.math.Bounds;
+import nexus.core.math.Frustum;
+import nexus.core.math.Transform;
+import nexus.core.player.Camera;
+import nexus.core.player.LocalPlayer;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Culls every model against the camera frustum before the renderers run. The
+ * bounding sphere of each model is moved into world space and gathered into
+ * arrays, then the arrays are tested against the frustum planes, split across
+ * a fork join pool when there are enough of them. Renderers skip whatever the
+ * {@link Visibility} marks as culled. Animated models use their bind pose bounds
+ */
+@All({Transform.class, Model.class})
+@Reads(Camera.class)
+@Writes({Transform.class, Visibility.class})
+public class FrustumCullingSystem extends InitSystem implements FrameSystem {
+    private static final int BATCH_SIZE = 4096; //Spheres tested per task before splitting stops
+    private Context coreContext;
+    private final ForkJoinPool pool;
+    @Getter
+    private final boolean parallel;
+    public ComponentMapper<Transform> mTransform;
+    public ComponentMapper<Model> mModel;
+    private LocalPlayer localPlayer;
+    private final Visibility visibility = new Visibility();
+    private final Frustum frustum = new Frustum();
+    private final Matrix4f projectionView = new Matrix4f();
+    private final Vector4f sphere = new Vector4f();
+    private final Vector3f position = new Vector3f();
+    private float[] x = new float[0], y = new float[0], z = new float[0], radius = new float[0];
+    private boolean[] visible = new boolean[0];
+    private float[] cachedSpheres = new float[0]; //World spheres by entity id, 4 floats each
+    private int[] cachedVersions = new int[0]; //The transform version each sphere was computed for
+    private Bounds[] cachedBounds = new Bounds[0]; //The model bounds each sphere was computed from
+    @Getter
+    private int testedLastFrame, visibleLastFrame;
+
+    public FrustumCullingSystem(Context coreContext) {
+        this(coreContext, true);
+    }
+
+    /**
+     * Creates the culling system
+     *
+     * @param coreContext the core context
+     * @param parallel    if true large worlds are culled on the common fork join pool
+     */
+    public FrustumCullingSystem(Context coreContext, boolean parallel) {
+        this.coreContext = coreContext;
+        this.parallel = parallel;
+        this.pool = parallel ? ForkJoinPool.commonPool() : null;
+        coreContext.put(Visibility.class, visibility);
+    }
+
+    /**
+     * Gets the local player, whose camera is culled against
+     */
+    public void postInitialization() {
+        localPlayer = coreContext.get(LocalPlayer.class);
+    }
+
+    /**
+     * Forgets the cached sphere of a new entity, its id may have been used before
+     *
+     * @param entityId the entity
+     */
+    protected void inserted(int entityId) {
+        if (entityId < cachedVersions.length) {
+            cachedVersions[entityId] = 0;
+            cachedBounds[entityId] = null;
+        }
+    }
+
+    /**
+     * We need to process every frame
+     *
+     * @return processing check
+     */
+    protected boolean checkProcessing() {
+        return true;
+    }
+
+    /**
+     * Gathers the world space spheres, culls them and publishes the result
+     */
+    protected void processSystem() {
+        IntBag actives = subscription.getEntities();
+        int[] ids = actives.getData();
+        int size = actives.size();
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++)
+            gather(ids[i], i);
+        Camera camera = localPlayer.getCamera();
+        frustum.set(projectionView.set(camera.getProjectionMatrix()).mul(camera.getViewMatrix()));
+        if (parallel && size > BATCH_SIZE)
+            visibleLastFrame = pool.invoke(new CullTask(0, size));
+        else
+            visibleLastFrame = frustum.cull(x, y, z, radius, visible, 0, size);
+        for (int i = 0; i < size; i++)
+            visibility.set(ids[i], visible[i]);
+        testedLastFrame = size;
+    }
+
+    /**
+     * Moves an entity's bounding sphere into world space and stores it at the
+     * index, reusing the cached sphere if neither the transform nor the model's
+     * bounds changed
+     */
+    private void gather(int entityId, int index) {
+        Transform transform = mTransform.get(entityId);
+        transform.updateMatrix();
+        if (entityId >= cachedVersions.length) {
+            int length = Math.max(entityId + 1, Math.max(1024, cachedVersions.length * 2));
+            cachedVersions = Arrays.copyOf(cachedVersions, length);
+            cachedSpheres = Arrays.copyOf(cachedSpheres, length * 4);
+            cachedBounds = Arrays.copyOf(cachedBounds, length);
+        }
+        Bounds bounds = mModel.get(entityId).getBounds();
+        int cached = entityId * 4;
+        if (cachedVersions[entityId] == transform.getVersion() && cachedBounds[entityId] == bounds) {
+            x[index] = cachedSpheres[cached];
+            y[index] = cachedSpheres[cached + 1];
+            z[index] = cachedSpheres[cached + 2];
+            radius[index] = cachedSpheres[cached + 3];
+            return;
+        }
+        if (bounds == null) {
+            transform.getMatrix().getTranslation(position);
+            x[index] = position.x;
+            y[index] = position.y;
+            z[index] = position.z;
+            radius[index] = Float.POSITIVE_INFINITY;
+        } else {
+            bounds.toWorldSphere(transform.getMatrix(), sphere);
+            x[index] = sphere.x;
+            y[index] = sphere.y;
+            z[index] = sphere.z;
+            radius[index] = sphere.w;
+        }
+        cachedSpheres[cached] = x[index];
+        cachedSpheres[cached + 1] = y[index];
+        cachedSpheres[cached + 2] = z[index];
+        cachedSpheres[cached + 3] = radius[index];
+        cachedVersions[entityId] = transform.getVersion();
+        cachedBounds[entityId] = bounds;
+    }
+
+    /**
+     * Grows the sphere arrays to fit every entity
+     */
+    private void ensureCapacity(int size) {
+        if (size <= x.length)
+            return;
+        int length = Math.max(size, x.length * 2);
+        x = Arrays.copyOf(x, length);
+        y = Arrays.copyOf(y, length);
+        z = Arrays.copyOf(z, length);
+        radius = Arrays.copyOf(radius, length);
+        visible = Arrays.copyOf(visible, length);
+    }
+
+    /**
+     * Culls a range of spheres, splitting it in half until it's small enough
+     */
+    private class CullTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int start, end;
+
+        private CullTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        protected Integer compute() {
+            if (end - start <= BATCH_SIZE)
+                return frustum.cull(x, y, z, radius, visible, start, end);
+            int middle = (start + end) >>> 1;
+            CullTask left = new CullTask(start, middle);
+            left.fork();
+            return new CullTask(middle, end).compute() + left.join();
+        }
+    }
+}
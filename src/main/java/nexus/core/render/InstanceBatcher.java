@@ -0,0 +1,141 @@
+package nexus.core.render;
+
+import lombok.Getter;
+import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups entities that share a model and a texture so each group can be drawn
+ * with a single instanced draw call. The batcher only collects and sorts, it never
+ * touches opengl, batches and their buffers are reused as long as they're
+ * drawn every frame
+ */
+public class InstanceBatcher {
+    private static final Comparator<Batch> ORDER = Comparator.comparingInt((Batch batch) -> batch.textureId).thenComparingInt(batch -> batch.model.getId());
+    private final Map<Model, List<Batch>> lookup = new IdentityHashMap<>();
+    private final List<Batch> batches = new ArrayList<>();
+    @Getter
+    private int instanceCount = 0;
+
+    /**
+     * Clears the batches from the last frame, keeping their buffers. Batches that
+     * weren't used in the last frame are dropped, so models that are gone don't
+     * keep their batches alive
+     */
+    public void begin() {
+        Iterator<List<Batch>> models = lookup.values().iterator();
+        while (models.hasNext()) {
+            List<Batch> modelBatches = models.next();
+            modelBatches.removeIf(batch -> batch.count == 0);
+            if (modelBatches.isEmpty())
+                models.remove();
+        }
+        for (Batch batch : batches)
+            batch.count = 0;
+        batches.clear();
+        instanceCount = 0;
+    }
+
+    /**
+     * Adds an instance to the batch for its model and texture
+     *
+     * @param model   the model to draw
+     * @param texture the texture to draw it with
+     * @param matrix  the instance's model matrix
+     */
+    public void add(Model model, Texture texture, Matrix4f matrix) {
+        Batch batch = find(model, texture);
+        if (batch.count == 0)
+            batches.add(batch);
+        batch.add(matrix);
+        instanceCount++;
+    }
+
+    /**
+     * Finds or creates the batch for the model and texture
+     */
+    private Batch find(Model model, Texture texture) {
+        List<Batch> modelBatches = lookup.computeIfAbsent(model, key -> new ArrayList<>());
+        for (int i = 0; i < modelBatches.size(); i++)
+            if (modelBatches.get(i).textureId == texture.getTextureID())
+                return modelBatches.get(i);
+        Batch batch = new Batch(model, texture);
+        modelBatches.add(batch);
+        return batch;
+    }
+
+    /**
+     * Finishes the frame, sorting the batches by texture and then model so
+     * consecutive batches share as much state as possible
+     *
+     * @return the batches to draw, valid until the next {@link #begin()}
+     */
+    public List<Batch> end() {
+        batches.sort(ORDER);
+        for (Batch batch : batches)
+            batch.matrices.limit(batch.count * 16).position(0);
+        return batches;
+    }
+
+    /**
+     * @return the amount of batches, which is the amount of draw calls needed
+     */
+    public int getBatchCount() {
+        return batches.size();
+    }
+
+    /**
+     * @return the amount of batches kept for reuse, including the ones not drawn this frame
+     */
+    public int getRetainedCount() {
+        int retained = 0;
+        for (List<Batch> modelBatches : lookup.values())
+            retained += modelBatches.size();
+        return retained;
+    }
+
+    /**
+     * The instances sharing a model and texture
+     */
+    public static class Batch {
+        @Getter
+        private final Model model;
+        @Getter
+        private final Texture texture;
+        @Getter
+        private final int textureId;
+        @Getter
+        private int count = 0;
+        @Getter
+        private FloatBuffer matrices = BufferUtils.createFloatBuffer(16 * 16);
+
+        private Batch(Model model, Texture texture) {
+            this.model = model;
+            this.texture = texture;
+            this.textureId = texture.getTextureID();
+        }
+
+        /**
+         * Adds a matrix, growing the buffer when it's full
+         */
+        private void add(Matrix4f matrix) {
+            if ((count + 1) * 16 > matrices.capacity()) {
+                FloatBuffer grown = BufferUtils.createFloatBuffer(matrices.capacity() * 2);
+                matrices.limit(count * 16).position(0);
+                grown.put(matrices);
+                matrices = grown;
+            }
+            matrices.limit(matrices.capacity());
+            matrix.get(count * 16, matrices);
+            count++;
+        }
+    }
+}
@@ -3,67 +3,163 @@ package nexus.core.render;
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.All;
 import com.artemis.annotations.Exclude;
+import lombok.Getter;
 import nexus.context.Context;
+import nexus.core.defaults.ContextThread;
+import nexus.core.defaults.FrameSystem;
 import nexus.core.defaults.IteratingInitSystem;
+import nexus.core.defaults.Reads;
+import nexus.core.defaults.Writes;
 import nexus.core.math.Transform;
 import nexus.core.player.LocalPlayer;
 import nexus.core.registry.Registry;
 import nexus.core.registry.assets.ShaderAsset;
+import nexus.util.opengl.StreamBuffer;
+import nexus.util.opengl.UniformMat4;
+import org.joml.Vector3f;
+import org.lwjgl.opengl.GL15;
+
+import java.util.List;
 
 /**
- * Renders a quad to screen
+ * Renders the static meshes. By default entities sharing a model and texture
+ * are batched and each batch is submitted as one instanced draw, otherwise every
+ * entity is submitted on its own. The instance matrices of every batch are
+ * streamed into one buffer per frame
  */
 @All({Transform.class, Model.class, Texture.class})
 @Exclude(AnimationMap.class)
-public class MeshRenderer extends IteratingInitSystem {
+@ContextThread
+@Reads(Visibility.class)
+@Writes({Transform.class, RenderQueue.class})
+public class MeshRenderer extends IteratingInitSystem implements RenderPass, FrameSystem {
+    private static final int INSTANCE_LOCATION = 8; //The instance matrix takes up locations 8 to 11
+    private static final int MATRIX_BYTES = 16 * Float.BYTES;
     private Context coreContext;
-    private ShaderAsset meshShader;
+    @Getter
+    private ShaderAsset shader;
     public ComponentMapper<Transform> mTransform;
     public ComponentMapper<Model> mModel;
     public ComponentMapper<Texture> mTexture;
     private LocalPlayer localPlayer;
+    private RenderQueue renderQueue;
+    private Visibility visibility;
+    @Getter
+    private final boolean instanced;
+    private final InstanceBatcher batcher = new InstanceBatcher();
+    private final Vector3f position = new Vector3f(), cameraPosition = new Vector3f();
+    private List<InstanceBatcher.Batch> batches;
+    private StreamBuffer instances;
+    private long[] offsets = new long[64]; //Where each batch's matrices start in the stream buffer
+    private UniformMat4 modelMatrix;
+    @Getter
+    private int drawCallsLastFrame, instancesLastFrame;
 
     public MeshRenderer(Context coreContext) {
+        this(coreContext, true);
+    }
+
+    /**
+     * Creates the mesh renderer
+     *
+     * @param coreContext the core context
+     * @param instanced   if true entities sharing a model and texture are drawn together
+     */
+    public MeshRenderer(Context coreContext, boolean instanced) {
         this.coreContext = coreContext;
+        this.instanced = instanced;
     }
 
     /**
      * Setup the renderer
      */
     public void postInitialization() {
-        meshShader = coreContext.get(Registry.class).get("core:shaders:mesh", ShaderAsset.class);
+        shader = coreContext.get(Registry.class).get(instanced ? "core:shaders:mesh_instanced" : "core:shaders:mesh", ShaderAsset.class);
         localPlayer = coreContext.get(LocalPlayer.class);
+        renderQueue = coreContext.get(RenderQueue.class);
+        visibility = coreContext.get(Visibility.class);
+        renderQueue.register(this);
+        if (!instanced)
+            modelMatrix = shader.mat4("modelMatrix");
+        if (instanced)
+            instances = StreamBuffer.create(GL15.GL_ARRAY_BUFFER, 4096 * MATRIX_BYTES);
     }
 
     /**
-     * This is temporary, soon we are going
-     * to remove this and put it somewhere else
+     * Starts collecting the batches for this frame
      */
     protected void begin() {
-        meshShader.start();
-        meshShader.loadMat4("projectionMatrix", localPlayer.getCamera().getProjectionMatrix());
-        meshShader.loadMat4("viewMatrix", localPlayer.getCamera().getViewMatrix());
+        batcher.begin();
+        drawCallsLastFrame = 0;
     }
 
     /**
-     * Render the entities
+     * Submit the entities, or add them to their batch when instancing
      *
      * @param entityId the entity to render
      */
     protected void process(int entityId) {
+        if (!visibility.isVisible(entityId))
+            return;
         Transform transform = mTransform.get(entityId);
         Model model = mModel.get(entityId);
         Texture texture = mTexture.get(entityId);
-        texture.bind();
-        meshShader.loadMat4("modelMatrix", transform.getMatrix());
-        model.draw();
-        texture.unbind();
+        if (instanced)
+            batcher.add(model, texture, transform.getRenderMatrix());
+        else
+            renderQueue.submit(this, texture, model, depth(transform), entityId);
     }
 
     /**
-     * Called at the end of rendering
+     * Streams the instance matrices and submits the batches when instancing,
+     * each batch's payload is its index
      */
     protected void end() {
-        meshShader.stop();
+        if (instanced) {
+            batches = batcher.end();
+            int bytes = 0;
+            for (int i = 0; i < batches.size(); i++)
+                bytes += StreamBuffer.padded(batches.get(i).getCount() * MATRIX_BYTES);
+            instances.begin(bytes);
+            if (offsets.length < batches.size())
+                offsets = new long[Math.max(batches.size(), offsets.length * 2)];
+            for (int i = 0; i < batches.size(); i++) {
+                InstanceBatcher.Batch batch = batches.get(i);
+                batch.getModel().enableInstanceMatrices(INSTANCE_LOCATION);
+                offsets[i] = instances.write(batch.getMatrices());
+                renderQueue.submit(this, batch.getTexture(), batch.getModel(), 0, i);
+            }
+        }
+        instancesLastFrame = instanced ? batcher.getInstanceCount() : subscription.getEntities().size();
+    }
+
+    /**
+     * The camera comes from the camera block, so there's nothing to load per frame
+     */
+    public void beginPass() {
+    }
+
+    /**
+     * Draws an entity, or a whole batch when instancing
+     *
+     * @param payload the entity, or the batch index when instancing
+     * @param model   the model to draw
+     */
+    public void draw(int payload, Model model) {
+        if (instanced) {
+            model.drawBoundInstanced(batches.get(payload).getCount(), instances, offsets[payload]);
+        } else {
+            modelMatrix.load(mTransform.get(payload).getRenderMatrix());
+            model.drawBound();
+        }
+        drawCallsLastFrame += model.getVaos().size();
+    }
+
+    /**
+     * Gets the distance from the camera in world space, used to draw front to back
+     */
+    private float depth(Transform transform) {
+        transform.getRenderMatrix().getTranslation(position);
+        return position.distance(localPlayer.getTransform().getRenderMatrix().getTranslation(cameraPosition));
     }
 }
@@ -1,7 +1,12 @@
 package nexus.core.render;
 
 import com.artemis.Component;
+import lombok.Getter;
+import lombok.Setter;
+import nexus.core.math.Bounds;
+import nexus.util.opengl.StreamBuffer;
 import nexus.util.opengl.Vao;
+import org.lwjgl.opengl.GL31;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,7 +18,14 @@ import static org.lwjgl.opengl.GL11.*;
  * Represents a model
  */
 public class Model extends Component {
+    private static int nextId = 0;
+    @Getter
+    private final int id = nextId++;
+    @Getter
     private final List<Vao> vaos = new ArrayList<>();
+    @Getter
+    @Setter
+    private Bounds bounds; //Covers every vao, in model space
 
     /**
      * Create a new model with a list of vaos
@@ -67,6 +79,57 @@ public class Model extends Component {
         }
     }
 
+    /**
+     * Draw all vaos of this mesh. A model with a single vao expects it to
+     * already be bound, so consecutive draws of it don't rebind it
+     */
+    public void drawBound() {
+        if (isSingle()) {
+            glDrawElements(GL_TRIANGLES, vaos.get(0).getIndexCount(), GL_UNSIGNED_INT, 0);
+            return;
+        }
+        draw();
+    }
+
+    /**
+     * Draw all vaos of this mesh once per instance, reading the instance matrices
+     * from the buffer. A model with a single vao expects it to already be bound
+     *
+     * @param count     the amount of instances
+     * @param instances the buffer holding a matrix per instance
+     * @param offset    the byte offset of the first instance's matrix
+     */
+    public void drawBoundInstanced(int count, StreamBuffer instances, long offset) {
+        if (isSingle()) {
+            vaos.get(0).pointInstanceMatrices(instances, offset);
+            GL31.glDrawElementsInstanced(GL_TRIANGLES, vaos.get(0).getIndexCount(), GL_UNSIGNED_INT, 0, count);
+            return;
+        }
+        for (Vao vao : vaos) {
+            vao.bind();
+            vao.pointInstanceMatrices(instances, offset);
+            GL31.glDrawElementsInstanced(GL_TRIANGLES, vao.getIndexCount(), GL_UNSIGNED_INT, 0, count);
+            vao.unbind();
+        }
+    }
+
+    /**
+     * Makes every vao read a matrix per instance
+     *
+     * @param location the first attribute location of the instance matrix
+     */
+    public void enableInstanceMatrices(int location) {
+        for (Vao vao : vaos)
+            vao.enableInstanceMatrices(location);
+    }
+
+    /**
+     * @return true if this model only has one vao, which can stay bound between draws
+     */
+    public boolean isSingle() {
+        return vaos.size() == 1;
+    }
+
     /**
      * Gets the index count for a given model
      *
@@ -3,7 +3,10 @@ package nexus.core.render;
 import com.artemis.ComponentMapper;
 import com.artemis.annotations.All;
 import nexus.context.Context;
+import nexus.core.defaults.ContextThread;
+import nexus.core.defaults.FrameSystem;
 import nexus.core.defaults.IteratingInitSystem;
+import nexus.core.defaults.Writes;
 import nexus.core.math.Transform;
 import nexus.core.registry.Registry;
 import nexus.core.registry.assets.ImageAsset;
@@ -16,7 +19,9 @@ import static org.lwjgl.opengl.GL11.*;
  * Renders a quad to screen
  */
 @All({Transform.class, Model.class, Texture.class})
-public class QuadRenderer extends IteratingInitSystem {
+@ContextThread
+@Writes(Transform.class)
+public class QuadRenderer extends IteratingInitSystem implements FrameSystem {
     private Context coreContext;
     private ShaderAsset quadShader;
     public ComponentMapper<Transform> mTransform;
@@ -0,0 +1,28 @@
+package nexus.core.render;
+
+import nexus.core.registry.assets.ShaderAsset;
+
+/**
+ * A renderer that submits its draws to the {@link RenderQueue} instead of
+ * drawing them directly. The queue binds the shader, texture and model of each
+ * draw, only calling back into the pass for what is specific to it
+ */
+public interface RenderPass {
+    /**
+     * @return the shader every draw of this pass uses
+     */
+    ShaderAsset getShader();
+
+    /**
+     * Called once per frame after the shader has been started, loads the per frame uniforms
+     */
+    void beginPass();
+
+    /**
+     * Draws a single submitted draw, the shader, texture and model are already bound
+     *
+     * @param payload the payload given when the draw was submitted
+     * @param model   the model to draw
+     */
+    void draw(int payload, Model model);
+}
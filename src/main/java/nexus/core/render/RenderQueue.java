@@ -0,0 +1,143 @@
+package nexus.core.render;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects every draw of the frame so they can be sorted by state before being
+ * drawn. Each draw gets a 64 bit key, from the most significant bits down it holds
+ * the pass, texture, model, quantized depth and the index of the draw's payload.
+ * Sorting the keys groups draws sharing a shader, then a texture, then a model, and
+ * orders them front to back inside a group. The queue itself never touches opengl,
+ * {@link RenderQueueSystem} draws it
+ */
+public class RenderQueue {
+    private static final int INDEX_BITS = 18, DEPTH_BITS = 14, MODEL_BITS = 12, TEXTURE_BITS = 12, PASS_BITS = 7;
+    private static final int DEPTH_SHIFT = INDEX_BITS;
+    private static final int MODEL_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+    private static final int TEXTURE_SHIFT = MODEL_SHIFT + MODEL_BITS;
+    private static final int PASS_SHIFT = TEXTURE_SHIFT + TEXTURE_BITS;
+    public static final int MAX_DRAWS = 1 << INDEX_BITS;
+    public static final int MAX_PASSES = 1 << PASS_BITS;
+    private final List<RenderPass> passes = new ArrayList<>();
+    private long[] keys = new long[256];
+    private int[] passIndices = new int[256];
+    private int[] payloads = new int[256];
+    private Texture[] textures = new Texture[256];
+    private Model[] models = new Model[256];
+    @Getter
+    private int size = 0;
+    @Getter
+    @Setter
+    private float depthRange = 1000; //Depths past this all share the last depth bucket
+    private boolean overflowed = false;
+
+    /**
+     * Registers a pass, passes are drawn in the order they were registered
+     *
+     * @param pass the pass to register
+     */
+    public void register(RenderPass pass) {
+        if (passes.contains(pass))
+            return;
+        if (passes.size() == MAX_PASSES)
+            throw new IllegalStateException("Too many render passes, the max is " + MAX_PASSES);
+        passes.add(pass);
+    }
+
+    /**
+     * Submits a draw for this frame
+     *
+     * @param pass    the pass drawing it, must be registered
+     * @param texture the texture to bind, or null for none
+     * @param model   the model to bind
+     * @param depth   the distance from the camera
+     * @param payload passed back to the pass when it's drawn
+     */
+    public void submit(RenderPass pass, Texture texture, Model model, float depth, int payload) {
+        if (size == MAX_DRAWS) {
+            if (!overflowed)
+                System.out.println("Render queue is full, dropping draws past " + MAX_DRAWS);
+            overflowed = true;
+            return;
+        }
+        if (size == keys.length)
+            grow();
+        int passIndex = passes.indexOf(pass);
+        keys[size] = createKey(passIndex, texture == null ? 0 : texture.getTextureID(), model.getId(), depth, size);
+        passIndices[size] = passIndex;
+        payloads[size] = payload;
+        textures[size] = texture;
+        models[size] = model;
+        size++;
+    }
+
+    /**
+     * Packs the state of a draw into its sort key
+     */
+    private long createKey(int pass, int texture, int model, float depth, int index) {
+        float clamped = Math.max(0, Math.min(depth / depthRange, 1));
+        long quantized = (long) (clamped * ((1 << DEPTH_BITS) - 1));
+        return ((long) pass << PASS_SHIFT)
+                | ((long) (texture & ((1 << TEXTURE_BITS) - 1)) << TEXTURE_SHIFT)
+                | ((long) (model & ((1 << MODEL_BITS) - 1)) << MODEL_SHIFT)
+                | (quantized << DEPTH_SHIFT)
+                | index;
+    }
+
+    /**
+     * Doubles the size of the draw arrays
+     */
+    private void grow() {
+        int length = Math.min(keys.length * 2, MAX_DRAWS);
+        keys = Arrays.copyOf(keys, length);
+        passIndices = Arrays.copyOf(passIndices, length);
+        payloads = Arrays.copyOf(payloads, length);
+        textures = Arrays.copyOf(textures, length);
+        models = Arrays.copyOf(models, length);
+    }
+
+    /**
+     * Sorts the submitted draws by their keys
+     */
+    public void sort() {
+        Arrays.sort(keys, 0, size);
+    }
+
+    /**
+     * Gets the submission index of the draw at the given sorted position
+     */
+    private int indexOf(int draw) {
+        return (int) (keys[draw] & (MAX_DRAWS - 1));
+    }
+
+    public RenderPass getPass(int draw) {
+        return passes.get(passIndices[indexOf(draw)]);
+    }
+
+    public Texture getTexture(int draw) {
+        return textures[indexOf(draw)];
+    }
+
+    public Model getModel(int draw) {
+        return models[indexOf(draw)];
+    }
+
+    public int getPayload(int draw) {
+        return payloads[indexOf(draw)];
+    }
+
+    /**
+     * Clears the draws, keeping the arrays for the next frame
+     */
+    public void clear() {
+        Arrays.fill(textures, 0, size, null);
+        Arrays.fill(models, 0, size, null);
+        size = 0;
+        overflowed = false;
+    }
+}
@@ -0,0 +1,107 @@
+package nexus.core.render;
+
+import com.artemis.annotations.All;
+import lombok.Getter;
+import nexus.context.Context;
+import nexus.core.defaults.ContextThread;
+import nexus.core.defaults.FrameSystem;
+import nexus.core.defaults.InitSystem;
+import nexus.core.defaults.Writes;
+import nexus.core.math.Transform;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Draws the {@link RenderQueue} once every renderer has submitted to it. The
+ * draws are sorted by their keys and state is only changed when the next draw
+ * needs a different shader, texture or model than the last one. It runs after
+ * all of the renderers, so it has to be registered last
+ */
+@All(Transform.class)
+@ContextThread
+@Writes(RenderQueue.class)
+public class RenderQueueSystem extends InitSystem implements FrameSystem {
+    private final RenderQueue queue = new RenderQueue();
+    @Getter
+    private int drawsLastFrame, shaderChangesLastFrame, textureChangesLastFrame, modelChangesLastFrame;
+    @Getter
+    private int stateChangesAvoidedLastFrame;
+
+    public RenderQueueSystem(Context coreContext) {
+        coreContext.put(RenderQueue.class, queue);
+    }
+
+    /**
+     * We need to process every frame
+     *
+     * @return processing check
+     */
+    protected boolean checkProcessing() {
+        return true;
+    }
+
+    /**
+     * Clears the screen, then sorts and draws the queue
+     */
+    protected void processSystem() {
+        glClear(GL_DEPTH_BUFFER_BIT | GL_COLOR_BUFFER_BIT);
+        glClearColor(0.01f, 0.2f, 0.34f, 1);
+        glEnable(GL_DEPTH_TEST);
+        glEnable(GL_CULL_FACE);
+        glCullFace(GL_BACK);
+        queue.sort();
+        RenderPass pass = null;
+        Texture texture = null;
+        Model model = null;
+        int shaderChanges = 0, textureChanges = 0, modelChanges = 0;
+        for (int i = 0, size = queue.getSize(); i < size; i++) {
+            RenderPass nextPass = queue.getPass(i);
+            Texture nextTexture = queue.getTexture(i);
+            Model nextModel = queue.getModel(i);
+            if (nextPass != pass) {
+                if (pass != null)
+                    pass.getShader().stop();
+                nextPass.getShader().start();
+                nextPass.beginPass();
+                pass = nextPass;
+                shaderChanges++;
+            }
+            if (textureId(nextTexture) != textureId(texture)) {
+                if (nextTexture != null)
+                    nextTexture.bind();
+                else
+                    texture.unbind();
+                textureChanges++;
+            }
+            texture = nextTexture;
+            if (nextModel != model) {
+                if (model != null && model.isSingle())
+                    model.unbindFirst();
+                if (nextModel.isSingle())
+                    nextModel.bindFirst();
+                model = nextModel;
+                modelChanges++;
+            }
+            pass.draw(queue.getPayload(i), model);
+        }
+        if (model != null && model.isSingle())
+            model.unbindFirst();
+        if (texture != null)
+            texture.unbind();
+        if (pass != null)
+            pass.getShader().stop();
+        drawsLastFrame = queue.getSize();
+        shaderChangesLastFrame = shaderChanges;
+        textureChangesLastFrame = textureChanges;
+        modelChangesLastFrame = modelChanges;
+        stateChangesAvoidedLastFrame = drawsLastFrame * 3 - shaderChanges - textureChanges - modelChanges;
+        queue.clear();
+    }
+
+    /**
+     * @return the id of the texture, or 0 for no texture
+     */
+    private static int textureId(Texture texture) {
+        return texture == null ? 0 : texture.getTextureID();
+    }
+}
@@ -0,0 +1,76 @@
+package nexus.core.render;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import lombok.Getter;
+import nexus.context.Context;
+import nexus.core.defaults.FrameSystem;
+import nexus.core.defaults.IteratingInitSystem;
+import nexus.core.defaults.Reads;
+import nexus.core.defaults.Writes;
+import nexus.core.math.Transform;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Stands in for the renderers when the engine runs headless. Nothing is drawn,
+ * instead it records what the renderers would have submitted, the visible
+ * entities and the draw calls they'd take up. Static entities sharing a model
+ * and texture count as one instanced draw, animated entities as one draw each
+ */
+@All({Transform.class, Model.class, Texture.class})
+@Reads(Visibility.class)
+@Writes({})
+public class RenderRecorder extends IteratingInitSystem implements FrameSystem {
+    private Context coreContext;
+    public ComponentMapper<Model> mModel;
+    public ComponentMapper<Texture> mTexture;
+    public ComponentMapper<AnimationMap> mAnimation;
+    private Visibility visibility;
+    private final Set<Long> batches = new HashSet<>();
+    private int visible, animated;
+    @Getter
+    private int visibleLastFrame, drawCallsLastFrame;
+    @Getter
+    private long frames, totalDrawCalls;
+
+    public RenderRecorder(Context coreContext) {
+        this.coreContext = coreContext;
+    }
+
+    /**
+     * Gets the culling result
+     */
+    public void postInitialization() {
+        visibility = coreContext.get(Visibility.class);
+    }
+
+    protected void begin() {
+        batches.clear();
+        visible = 0;
+        animated = 0;
+    }
+
+    /**
+     * Records an entity if it would have been drawn
+     *
+     * @param entityId the entity
+     */
+    protected void process(int entityId) {
+        if (visibility != null && !visibility.isVisible(entityId))
+            return;
+        visible++;
+        if (mAnimation.has(entityId))
+            animated++;
+        else
+            batches.add((long) mModel.get(entityId).getId() << 32 | mTexture.get(entityId).getTextureID());
+    }
+
+    protected void end() {
+        visibleLastFrame = visible;
+        drawCallsLastFrame = animated + batches.size();
+        totalDrawCalls += drawCallsLastFrame;
+        frames++;
+    }
+}
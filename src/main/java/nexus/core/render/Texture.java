@@ -1,6 +1,7 @@
 package nexus.core.render;
 
 import com.artemis.Component;
+import lombok.Getter;
 import lombok.Setter;
 import org.lwjgl.opengl.GL11;
 
@@ -8,6 +9,7 @@ import org.lwjgl.opengl.GL11;
  * Represents a texture
  */
 public class Texture extends Component {
+    @Getter
     @Setter
     private int textureID;
 
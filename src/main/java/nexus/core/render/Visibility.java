@@ -0,0 +1,34 @@
+package nexus.core.render;
+
+import java.util.Arrays;
+
+/**
+ * The result of frustum culling, indexed by entity id. Entities the culling
+ * system hasn't tested are always visible
+ */
+public class Visibility {
+    private boolean[] culled = new boolean[1024];
+
+    /**
+     * @param entityId the entity to check
+     * @return true unless the entity was culled this frame
+     */
+    public boolean isVisible(int entityId) {
+        return entityId >= culled.length || !culled[entityId];
+    }
+
+    /**
+     * Sets whether an entity is visible
+     *
+     * @param entityId the entity
+     * @param visible  true if it's inside the frustum
+     */
+    public void set(int entityId, boolean visible) {
+        if (entityId >= culled.length) {
+            if (visible)
+                return;
+            culled = Arrays.copyOf(culled, Math.max(culled.length * 2, entityId + 1));
+        }
+        culled[entityId] = !visible;
+    }
+}
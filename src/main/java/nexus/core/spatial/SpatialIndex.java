@@ -0,0 +1,702 @@
+package nexus.core.spatial;
+
+import com.artemis.utils.IntBag;
+import lombok.Getter;
+import nexus.core.math.Frustum;
+
+import java.util.Arrays;
+
+/**
+ * A dynamic bounding volume hierarchy over entity bounding spheres. Every leaf
+ * holds one entity and stores a fattened box around its sphere, so a sphere that
+ * moves a little stays inside its box and the tree is left alone. Only when it
+ * leaves the box is the leaf removed and inserted again, picking the sibling that
+ * grows the tree's surface area the least and rotating the tree back into balance
+ * on the way up. Nodes live in parallel arrays indexed by node id, nothing is
+ * allocated per entity. Each node's fields are interleaved so a traversal step
+ * touches one or two cache lines. Queries reuse internal stacks, so an index must
+ * only be used by one thread at a time
+ */
+public class SpatialIndex {
+    public static final int NULL = -1;
+    private static final int PARENT = 0, FIRST = 1, SECOND = 2, HEIGHT = 3; //Offsets into a node's links
+    private final float margin;
+    private int root = NULL;
+    private int freeList = NULL;
+    @Getter
+    private int nodeCount = 0;
+    @Getter
+    private int proxyCount = 0;
+    @Getter
+    private long reinsertions = 0;
+    private int capacity = 0;
+    //Node boxes interleaved as min xyz and max xyz, the fat box for leaves
+    private float[] boxes;
+    //The exact sphere of each leaf interleaved as xyz and radius
+    private float[] spheres;
+    //Node links interleaved as parent, first child, second child and height
+    private int[] links;
+    private int[] entity;
+    private int[] stack = new int[64];
+    private float[] heapDistance = new float[64];
+    private int[] heapNode = new int[64];
+    private float[] nearestDistance = new float[8];
+    private int[] nearestEntity = new int[8];
+
+    public SpatialIndex() {
+        this(0.5f);
+    }
+
+    /**
+     * Creates an empty index
+     *
+     * @param margin how far a leaf's box reaches past its sphere, larger margins mean fewer reinsertions but looser boxes
+     */
+    public SpatialIndex(float margin) {
+        this.margin = margin;
+        allocateArrays(16);
+    }
+
+    /**
+     * Adds an entity to the index
+     *
+     * @param entityId the entity
+     * @param x        the sphere center x
+     * @param y        the sphere center y
+     * @param z        the sphere center z
+     * @param radius   the sphere radius
+     * @return the proxy of the entity, used to move or remove it
+     */
+    public int add(int entityId, float x, float y, float z, float radius) {
+        int node = allocateNode();
+        entity[node] = entityId;
+        setSphere(node, x, y, z, radius);
+        fatten(node);
+        insertLeaf(node);
+        proxyCount++;
+        return node;
+    }
+
+    /**
+     * Removes an entity from the index
+     *
+     * @param proxy the proxy returned when the entity was added
+     */
+    public void remove(int proxy) {
+        removeLeaf(proxy);
+        freeNode(proxy);
+        proxyCount--;
+    }
+
+    /**
+     * Moves an entity's sphere, the tree is only changed if the sphere left the leaf's box
+     *
+     * @param proxy  the proxy returned when the entity was added
+     * @param x      the sphere center x
+     * @param y      the sphere center y
+     * @param z      the sphere center z
+     * @param radius the sphere radius
+     * @return true if the leaf had to be reinserted
+     */
+    public boolean move(int proxy, float x, float y, float z, float radius) {
+        setSphere(proxy, x, y, z, radius);
+        if (x - radius >= boxes[proxy * 6] && y - radius >= boxes[proxy * 6 + 1] && z - radius >= boxes[proxy * 6 + 2]
+                && x + radius <= boxes[proxy * 6 + 3] && y + radius <= boxes[proxy * 6 + 4] && z + radius <= boxes[proxy * 6 + 5])
+            return false;
+        removeLeaf(proxy);
+        fatten(proxy);
+        insertLeaf(proxy);
+        reinsertions++;
+        return true;
+    }
+
+    /**
+     * Rebuilds the whole tree top down, splitting the leaves at the median of the
+     * axis their centers spread along the most. This gives a much tighter tree than
+     * inserting the leaves one at a time, so it's worth doing after adding a lot
+     * of entities at once. The proxies stay valid
+     */
+    public void rebuild() {
+        if (root == NULL)
+            return;
+        int[] leaves = new int[proxyCount];
+        int count = 0;
+        for (int node = 0; node < capacity; node++) {
+            if (links[node * 4 + HEIGHT] < 0)
+                continue;
+            if (isLeaf(node))
+                leaves[count++] = node;
+            else
+                freeNode(node);
+        }
+        root = build(leaves, 0, count);
+        links[root * 4 + PARENT] = NULL;
+    }
+
+    /**
+     * Builds the subtree over a range of leaves
+     *
+     * @return the root of the subtree
+     */
+    private int build(int[] leaves, int start, int end) {
+        if (end - start == 1)
+            return leaves[start];
+        float minX = Float.POSITIVE_INFINITY, minY = minX, minZ = minX;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+        for (int i = start; i < end; i++) {
+            int leaf = leaves[i];
+            minX = Math.min(minX, spheres[leaf * 4]);
+            minY = Math.min(minY, spheres[leaf * 4 + 1]);
+            minZ = Math.min(minZ, spheres[leaf * 4 + 2]);
+            maxX = Math.max(maxX, spheres[leaf * 4]);
+            maxY = Math.max(maxY, spheres[leaf * 4 + 1]);
+            maxZ = Math.max(maxZ, spheres[leaf * 4 + 2]);
+        }
+        float spreadX = maxX - minX, spreadY = maxY - minY, spreadZ = maxZ - minZ;
+        int axis = spreadX >= spreadY && spreadX >= spreadZ ? 0 : spreadY >= spreadZ ? 1 : 2;
+        int middle = (start + end) >>> 1;
+        select(leaves, start, end - 1, middle, axis);
+        int first = build(leaves, start, middle);
+        int second = build(leaves, middle, end);
+        int node = allocateNode();
+        links[node * 4 + FIRST] = first;
+        links[node * 4 + SECOND] = second;
+        links[first * 4 + PARENT] = node;
+        links[second * 4 + PARENT] = node;
+        links[node * 4 + HEIGHT] = 1 + Math.max(links[first * 4 + HEIGHT], links[second * 4 + HEIGHT]);
+        union(node, first, second);
+        return node;
+    }
+
+    /**
+     * Partially sorts a range of leaves so the one at the index is the one that
+     * would be there if they were sorted by their center on the axis
+     */
+    private void select(int[] leaves, int low, int high, int index, int axis) {
+        while (high > low) {
+            float pivot = spheres[leaves[(low + high) >>> 1] * 4 + axis];
+            int i = low, j = high;
+            while (i <= j) {
+                while (spheres[leaves[i] * 4 + axis] < pivot)
+                    i++;
+                while (spheres[leaves[j] * 4 + axis] > pivot)
+                    j--;
+                if (i <= j) {
+                    int swap = leaves[i];
+                    leaves[i++] = leaves[j];
+                    leaves[j--] = swap;
+                }
+            }
+            if (index <= j)
+                high = j;
+            else if (index >= i)
+                low = i;
+            else
+                return;
+        }
+    }
+
+    /**
+     * Finds every entity whose sphere intersects the frustum
+     *
+     * @param frustum the frustum
+     * @param result  receives the entities, it isn't cleared first
+     */
+    public void queryFrustum(Frustum frustum, IntBag result) {
+        int top = push(0, root);
+        while (top > 0) {
+            int node = stack[--top];
+            if (!frustum.intersectsAabb(boxes[node * 6], boxes[node * 6 + 1], boxes[node * 6 + 2], boxes[node * 6 + 3], boxes[node * 6 + 4], boxes[node * 6 + 5]))
+                continue;
+            if (isLeaf(node)) {
+                if (frustum.intersectsSphere(spheres[node * 4], spheres[node * 4 + 1], spheres[node * 4 + 2], spheres[node * 4 + 3]))
+                    result.add(entity[node]);
+            } else {
+                top = push(top, links[node * 4 + FIRST]);
+                top = push(top, links[node * 4 + SECOND]);
+            }
+        }
+    }
+
+    /**
+     * Finds every entity whose sphere intersects a sphere
+     *
+     * @param result receives the entities, it isn't cleared first
+     */
+    public void querySphere(float x, float y, float z, float radius, IntBag result) {
+        int top = push(0, root);
+        while (top > 0) {
+            int node = stack[--top];
+            if (boxDistanceSquared(node, x, y, z) > radius * radius)
+                continue;
+            if (isLeaf(node)) {
+                float reach = radius + spheres[node * 4 + 3];
+                if (distanceSquared(node, x, y, z) <= reach * reach)
+                    result.add(entity[node]);
+            } else {
+                top = push(top, links[node * 4 + FIRST]);
+                top = push(top, links[node * 4 + SECOND]);
+            }
+        }
+    }
+
+    /**
+     * Finds every entity whose sphere is hit by a ray
+     *
+     * @param maxDistance how far along the ray to look
+     * @param result      receives the entities in no particular order, it isn't cleared first
+     */
+    public void queryRay(float originX, float originY, float originZ, float directionX, float directionY, float directionZ, float maxDistance, IntBag result) {
+        float length = (float) Math.sqrt(directionX * directionX + directionY * directionY + directionZ * directionZ);
+        if (length == 0)
+            return;
+        float dx = directionX / length, dy = directionY / length, dz = directionZ / length;
+        float inverseX = 1 / dx, inverseY = 1 / dy, inverseZ = 1 / dz;
+        int top = push(0, root);
+        while (top > 0) {
+            int node = stack[--top];
+            if (!rayHitsBox(node, originX, originY, originZ, inverseX, inverseY, inverseZ, maxDistance))
+                continue;
+            if (isLeaf(node)) {
+                if (rayHitsSphere(node, originX, originY, originZ, dx, dy, dz, maxDistance))
+                    result.add(entity[node]);
+            } else {
+                top = push(top, links[node * 4 + FIRST]);
+                top = push(top, links[node * 4 + SECOND]);
+            }
+        }
+    }
+
+    /**
+     * Finds the entities whose sphere centers are nearest to a point. Nodes are
+     * visited nearest first and skipped once they're further than the current kth result
+     *
+     * @param count  the amount of entities to find
+     * @param result receives the entities nearest first, it isn't cleared first
+     */
+    public void queryNearest(float x, float y, float z, int count, IntBag result) {
+        if (root == NULL || count <= 0)
+            return;
+        if (nearestDistance.length < count) {
+            nearestDistance = new float[count];
+            nearestEntity = new int[count];
+        }
+        int found = 0;
+        int heapSize = heapPush(0, root, boxDistanceSquared(root, x, y, z));
+        while (heapSize > 0) {
+            float distance = heapDistance[0];
+            int node = heapNode[0];
+            heapSize = heapPop(heapSize);
+            if (found == count && distance >= nearestDistance[0])
+                break;
+            if (isLeaf(node)) {
+                float centerDistance = distanceSquared(node, x, y, z);
+                if (found < count)
+                    found = nearestPush(found, centerDistance, entity[node]);
+                else if (centerDistance < nearestDistance[0])
+                    nearestReplaceTop(found, centerDistance, entity[node]);
+            } else {
+                heapSize = heapPush(heapSize, links[node * 4 + FIRST], boxDistanceSquared(links[node * 4 + FIRST], x, y, z));
+                heapSize = heapPush(heapSize, links[node * 4 + SECOND], boxDistanceSquared(links[node * 4 + SECOND], x, y, z));
+            }
+        }
+        //The results are a max heap, popping them gives furthest first
+        int start = result.size();
+        for (int i = 0; i < found; i++)
+            result.add(0);
+        for (int i = found - 1; i >= 0; i--) {
+            result.set(start + i, nearestEntity[0]);
+            nearestDistance[0] = nearestDistance[i];
+            nearestEntity[0] = nearestEntity[i];
+            siftDown(nearestDistance, nearestEntity, 0, i, true);
+        }
+    }
+
+    /**
+     * @return the height of the tree, 0 for a single leaf and -1 when empty
+     */
+    public int getHeight() {
+        return root == NULL ? -1 : links[root * 4 + HEIGHT];
+    }
+
+    private boolean isLeaf(int node) {
+        return links[node * 4 + FIRST] == NULL;
+    }
+
+    private void setSphere(int node, float x, float y, float z, float radius) {
+        spheres[node * 4] = x;
+        spheres[node * 4 + 1] = y;
+        spheres[node * 4 + 2] = z;
+        spheres[node * 4 + 3] = radius;
+    }
+
+    /**
+     * Sets a leaf's box to its sphere grown by the margin
+     */
+    private void fatten(int node) {
+        float reach = spheres[node * 4 + 3] + margin;
+        boxes[node * 6] = spheres[node * 4] - reach;
+        boxes[node * 6 + 1] = spheres[node * 4 + 1] - reach;
+        boxes[node * 6 + 2] = spheres[node * 4 + 2] - reach;
+        boxes[node * 6 + 3] = spheres[node * 4] + reach;
+        boxes[node * 6 + 4] = spheres[node * 4 + 1] + reach;
+        boxes[node * 6 + 5] = spheres[node * 4 + 2] + reach;
+    }
+
+    /**
+     * Sets a node's box to enclose two other nodes
+     */
+    private void union(int node, int a, int b) {
+        boxes[node * 6] = Math.min(boxes[a * 6], boxes[b * 6]);
+        boxes[node * 6 + 1] = Math.min(boxes[a * 6 + 1], boxes[b * 6 + 1]);
+        boxes[node * 6 + 2] = Math.min(boxes[a * 6 + 2], boxes[b * 6 + 2]);
+        boxes[node * 6 + 3] = Math.max(boxes[a * 6 + 3], boxes[b * 6 + 3]);
+        boxes[node * 6 + 4] = Math.max(boxes[a * 6 + 4], boxes[b * 6 + 4]);
+        boxes[node * 6 + 5] = Math.max(boxes[a * 6 + 5], boxes[b * 6 + 5]);
+    }
+
+    private float area(int node) {
+        float dx = boxes[node * 6 + 3] - boxes[node * 6], dy = boxes[node * 6 + 4] - boxes[node * 6 + 1], dz = boxes[node * 6 + 5] - boxes[node * 6 + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    private float combinedArea(int a, int b) {
+        float dx = Math.max(boxes[a * 6 + 3], boxes[b * 6 + 3]) - Math.min(boxes[a * 6], boxes[b * 6]);
+        float dy = Math.max(boxes[a * 6 + 4], boxes[b * 6 + 4]) - Math.min(boxes[a * 6 + 1], boxes[b * 6 + 1]);
+        float dz = Math.max(boxes[a * 6 + 5], boxes[b * 6 + 5]) - Math.min(boxes[a * 6 + 2], boxes[b * 6 + 2]);
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Inserts a leaf next to the sibling that makes the tree grow the least
+     */
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            links[leaf * 4 + PARENT] = NULL;
+            return;
+        }
+        int index = root;
+        while (!isLeaf(index)) {
+            int first = links[index * 4 + FIRST], second = links[index * 4 + SECOND];
+            float area = area(index);
+            float combined = combinedArea(index, leaf);
+            float cost = 2 * combined;
+            float inheritance = 2 * (combined - area);
+            float firstCost = combinedArea(first, leaf) - (isLeaf(first) ? 0 : area(first)) + inheritance;
+            float secondCost = combinedArea(second, leaf) - (isLeaf(second) ? 0 : area(second)) + inheritance;
+            if (cost < firstCost && cost < secondCost)
+                break;
+            index = firstCost < secondCost ? first : second;
+        }
+        int sibling = index;
+        int oldParent = links[sibling * 4 + PARENT];
+        int newParent = allocateNode();
+        links[newParent * 4 + PARENT] = oldParent;
+        union(newParent, leaf, sibling);
+        links[newParent * 4 + HEIGHT] = links[sibling * 4 + HEIGHT] + 1;
+        if (oldParent != NULL) {
+            if (links[oldParent * 4 + FIRST] == sibling)
+                links[oldParent * 4 + FIRST] = newParent;
+            else
+                links[oldParent * 4 + SECOND] = newParent;
+        } else {
+            root = newParent;
+        }
+        links[newParent * 4 + FIRST] = sibling;
+        links[newParent * 4 + SECOND] = leaf;
+        links[sibling * 4 + PARENT] = newParent;
+        links[leaf * 4 + PARENT] = newParent;
+        refit(links[leaf * 4 + PARENT]);
+    }
+
+    /**
+     * Removes a leaf, its sibling takes the place of their parent
+     */
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+        int oldParent = links[leaf * 4 + PARENT];
+        int grandParent = links[oldParent * 4 + PARENT];
+        int sibling = links[oldParent * 4 + FIRST] == leaf ? links[oldParent * 4 + SECOND] : links[oldParent * 4 + FIRST];
+        if (grandParent != NULL) {
+            if (links[grandParent * 4 + FIRST] == oldParent)
+                links[grandParent * 4 + FIRST] = sibling;
+            else
+                links[grandParent * 4 + SECOND] = sibling;
+            links[sibling * 4 + PARENT] = grandParent;
+            freeNode(oldParent);
+            refit(grandParent);
+        } else {
+            root = sibling;
+            links[sibling * 4 + PARENT] = NULL;
+            freeNode(oldParent);
+        }
+    }
+
+    /**
+     * Walks up from a node, balancing and refitting the boxes and heights
+     */
+    private void refit(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int first = links[index * 4 + FIRST], second = links[index * 4 + SECOND];
+            links[index * 4 + HEIGHT] = 1 + Math.max(links[first * 4 + HEIGHT], links[second * 4 + HEIGHT]);
+            union(index, first, second);
+            index = links[index * 4 + PARENT];
+        }
+    }
+
+    /**
+     * Rotates the taller child of a node up if the children's heights differ by more than one
+     *
+     * @return the node now in the place of the given one
+     */
+    private int balance(int a) {
+        if (isLeaf(a) || links[a * 4 + HEIGHT] < 2)
+            return a;
+        int b = links[a * 4 + FIRST], c = links[a * 4 + SECOND];
+        int difference = links[c * 4 + HEIGHT] - links[b * 4 + HEIGHT];
+        if (difference > 1)
+            return rotateUp(a, c, b, false);
+        if (difference < -1)
+            return rotateUp(a, b, c, true);
+        return a;
+    }
+
+    /**
+     * Rotates the tall child up into the place of a, a becomes its child
+     *
+     * @param a        the unbalanced node
+     * @param tall     the child of a to rotate up
+     * @param other    the other child of a, it stays below a
+     * @param leftTall true if tall is a's first child
+     * @return the tall node, now in the place of a
+     */
+    private int rotateUp(int a, int tall, int other, boolean leftTall) {
+        int f = links[tall * 4 + FIRST], g = links[tall * 4 + SECOND];
+        links[tall * 4 + FIRST] = a;
+        links[tall * 4 + PARENT] = links[a * 4 + PARENT];
+        links[a * 4 + PARENT] = tall;
+        if (links[tall * 4 + PARENT] != NULL) {
+            int up = links[tall * 4 + PARENT];
+            if (links[up * 4 + FIRST] == a)
+                links[up * 4 + FIRST] = tall;
+            else
+                links[up * 4 + SECOND] = tall;
+        } else {
+            root = tall;
+        }
+        //The taller grandchild stays with tall, the shorter one moves under a
+        int keep = links[f * 4 + HEIGHT] > links[g * 4 + HEIGHT] ? f : g;
+        int give = keep == f ? g : f;
+        links[tall * 4 + SECOND] = keep;
+        if (leftTall)
+            links[a * 4 + FIRST] = give;
+        else
+            links[a * 4 + SECOND] = give;
+        links[give * 4 + PARENT] = a;
+        union(a, other, give);
+        union(tall, a, keep);
+        links[a * 4 + HEIGHT] = 1 + Math.max(links[other * 4 + HEIGHT], links[give * 4 + HEIGHT]);
+        links[tall * 4 + HEIGHT] = 1 + Math.max(links[a * 4 + HEIGHT], links[keep * 4 + HEIGHT]);
+        return tall;
+    }
+
+    private float distanceSquared(int node, float x, float y, float z) {
+        float dx = spheres[node * 4] - x, dy = spheres[node * 4 + 1] - y, dz = spheres[node * 4 + 2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * @return the squared distance from a point to a node's box, 0 if the point is inside
+     */
+    private float boxDistanceSquared(int node, float x, float y, float z) {
+        float dx = Math.max(Math.max(boxes[node * 6] - x, x - boxes[node * 6 + 3]), 0);
+        float dy = Math.max(Math.max(boxes[node * 6 + 1] - y, y - boxes[node * 6 + 4]), 0);
+        float dz = Math.max(Math.max(boxes[node * 6 + 2] - z, z - boxes[node * 6 + 5]), 0);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Slab test of a ray against a node's box. An axis the ray runs parallel to has an
+     * infinite inverse, its slab is a containment test instead since an origin on the
+     * face would give 0 * infinity
+     */
+    private boolean rayHitsBox(int node, float ox, float oy, float oz, float ix, float iy, float iz, float maxDistance) {
+        float near = 0, far = maxDistance;
+        for (int axis = 0; axis < 3; axis++) {
+            float origin = axis == 0 ? ox : axis == 1 ? oy : oz;
+            float inverse = axis == 0 ? ix : axis == 1 ? iy : iz;
+            float min = boxes[node * 6 + axis], max = boxes[node * 6 + 3 + axis];
+            if (Float.isInfinite(inverse)) {
+                if (origin < min || origin > max)
+                    return false;
+                continue;
+            }
+            float t1 = (min - origin) * inverse, t2 = (max - origin) * inverse;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        return near <= far;
+    }
+
+    /**
+     * Tests a normalized ray against a leaf's sphere
+     */
+    private boolean rayHitsSphere(int node, float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance) {
+        float cx = spheres[node * 4] - ox, cy = spheres[node * 4 + 1] - oy, cz = spheres[node * 4 + 2] - oz;
+        float along = cx * dx + cy * dy + cz * dz;
+        float radiusSquared = spheres[node * 4 + 3] * spheres[node * 4 + 3];
+        float centerSquared = cx * cx + cy * cy + cz * cz;
+        if (centerSquared <= radiusSquared)
+            return true;
+        if (along < 0)
+            return false;
+        float offsetSquared = centerSquared - along * along;
+        if (offsetSquared > radiusSquared)
+            return false;
+        return along - (float) Math.sqrt(radiusSquared - offsetSquared) <= maxDistance;
+    }
+
+    private int push(int top, int node) {
+        if (node == NULL)
+            return top;
+        if (top == stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[top] = node;
+        return top + 1;
+    }
+
+    /**
+     * Pushes a node onto the min heap of nodes to visit
+     */
+    private int heapPush(int size, int node, float distance) {
+        if (size == heapNode.length) {
+            heapNode = Arrays.copyOf(heapNode, size * 2);
+            heapDistance = Arrays.copyOf(heapDistance, size * 2);
+        }
+        int index = size;
+        while (index > 0) {
+            int up = (index - 1) >>> 1;
+            if (heapDistance[up] <= distance)
+                break;
+            heapDistance[index] = heapDistance[up];
+            heapNode[index] = heapNode[up];
+            index = up;
+        }
+        heapDistance[index] = distance;
+        heapNode[index] = node;
+        return size + 1;
+    }
+
+    /**
+     * Removes the nearest node from the heap of nodes to visit
+     */
+    private int heapPop(int size) {
+        size--;
+        heapDistance[0] = heapDistance[size];
+        heapNode[0] = heapNode[size];
+        siftDown(heapDistance, heapNode, 0, size, false);
+        return size;
+    }
+
+    /**
+     * Adds a result to the max heap of the nearest entities found so far
+     */
+    private int nearestPush(int size, float distance, int entityId) {
+        int index = size;
+        while (index > 0) {
+            int up = (index - 1) >>> 1;
+            if (nearestDistance[up] >= distance)
+                break;
+            nearestDistance[index] = nearestDistance[up];
+            nearestEntity[index] = nearestEntity[up];
+            index = up;
+        }
+        nearestDistance[index] = distance;
+        nearestEntity[index] = entityId;
+        return size + 1;
+    }
+
+    /**
+     * Replaces the furthest of the nearest entities found so far
+     */
+    private void nearestReplaceTop(int size, float distance, int entityId) {
+        nearestDistance[0] = distance;
+        nearestEntity[0] = entityId;
+        siftDown(nearestDistance, nearestEntity, 0, size, true);
+    }
+
+    /**
+     * Restores a binary heap after its element at the index got further from the top
+     *
+     * @param max true for a max heap, false for a min heap
+     */
+    private static void siftDown(float[] keys, int[] values, int index, int size, boolean max) {
+        float key = keys[index];
+        int value = values[index];
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && (max ? keys[child + 1] > keys[child] : keys[child + 1] < keys[child]))
+                child++;
+            if (max ? keys[child] <= key : keys[child] >= key)
+                break;
+            keys[index] = keys[child];
+            values[index] = values[child];
+            index = child;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    private int allocateNode() {
+        if (freeList == NULL)
+            allocateArrays(capacity * 2);
+        int node = freeList;
+        freeList = links[node * 4 + PARENT];
+        links[node * 4 + PARENT] = NULL;
+        links[node * 4 + FIRST] = NULL;
+        links[node * 4 + SECOND] = NULL;
+        links[node * 4 + HEIGHT] = 0;
+        entity[node] = -1;
+        nodeCount++;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        links[node * 4 + PARENT] = freeList;
+        links[node * 4 + HEIGHT] = -1;
+        freeList = node;
+        nodeCount--;
+    }
+
+    /**
+     * Grows the node arrays, chaining the new nodes onto the free list
+     */
+    private void allocateArrays(int capacity) {
+        int old = this.capacity;
+        boxes = grow(boxes, capacity * 6);
+        spheres = grow(spheres, capacity * 4);
+        links = grow(links, capacity * 4);
+        entity = grow(entity, capacity);
+        for (int i = capacity - 1; i >= old; i--) {
+            links[i * 4 + PARENT] = freeList;
+            links[i * 4 + HEIGHT] = -1;
+            freeList = i;
+        }
+        this.capacity = capacity;
+    }
+
+    private static float[] grow(float[] array, int capacity) {
+        return array == null ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+}
@@ -0,0 +1,132 @@
+package nexus.core.spatial;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import lombok.Getter;
+import nexus.context.Context;
+import nexus.core.defaults.InitSystem;
+import nexus.core.defaults.Reads;
+import nexus.core.defaults.Writes;
+import nexus.core.math.Bounds;
+import nexus.core.math.Transform;
+import nexus.core.math.TransformBuffer;
+import nexus.core.render.Model;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the {@link SpatialIndex} in the core context up to date with every
+ * entity that has a transform and a model. Entities are added and removed as
+ * they enter and leave the aspect, and every frame the spheres of the entities
+ * whose matrix changed are moved in the index, which only touches the tree for
+ * spheres that left their leaf's box. When a large share of the entities arrived in the same frame,
+ * like after loading a scene, the tree is rebuilt top down once they're placed
+ */
+@All({Transform.class, Model.class})
+@Reads(TransformBuffer.class)
+@Writes({Transform.class, SpatialIndex.class})
+public class SpatialIndexSystem extends InitSystem {
+    public ComponentMapper<Transform> mTransform;
+    public ComponentMapper<Model> mModel;
+    private Context coreContext;
+    private TransformBuffer transforms;
+    @Getter
+    private final SpatialIndex index = new SpatialIndex();
+    private final Vector4f sphere = new Vector4f();
+    private final Vector3f position = new Vector3f();
+    private int[] proxies = new int[1024];
+    private int insertedThisFrame = 0;
+    @Getter
+    private int reinsertedLastFrame;
+    @Getter
+    private int rebuilds = 0;
+
+    public SpatialIndexSystem(Context coreContext) {
+        this.coreContext = coreContext;
+        coreContext.put(SpatialIndex.class, index);
+        Arrays.fill(proxies, SpatialIndex.NULL);
+    }
+
+    /**
+     * Gets the transform buffer, which lists the entities that moved
+     */
+    public void postInitialization() {
+        transforms = coreContext.get(TransformBuffer.class);
+    }
+
+    /**
+     * We need to process every frame
+     *
+     * @return processing check
+     */
+    protected boolean checkProcessing() {
+        return true;
+    }
+
+    /**
+     * Adds a new entity to the index
+     *
+     * @param entityId the entity
+     */
+    protected void inserted(int entityId) {
+        if (entityId >= proxies.length) {
+            int length = proxies.length;
+            proxies = Arrays.copyOf(proxies, Math.max(length * 2, entityId + 1));
+            Arrays.fill(proxies, length, proxies.length, SpatialIndex.NULL);
+        }
+        worldSphere(entityId);
+        proxies[entityId] = index.add(entityId, sphere.x, sphere.y, sphere.z, sphere.w);
+        insertedThisFrame++;
+    }
+
+    /**
+     * Removes an entity from the index
+     *
+     * @param entityId the entity
+     */
+    protected void removed(int entityId) {
+        if (entityId < proxies.length && proxies[entityId] != SpatialIndex.NULL) {
+            index.remove(proxies[entityId]);
+            proxies[entityId] = SpatialIndex.NULL;
+        }
+    }
+
+    /**
+     * Moves the sphere of every entity whose matrix changed this frame, or of
+     * every entity without a transform buffer, rebuilding the tree if most of it
+     * was inserted since the last frame
+     */
+    protected void processSystem() {
+        if (insertedThisFrame > 64 && insertedThisFrame * 4 > index.getProxyCount()) {
+            index.rebuild();
+            rebuilds++;
+        }
+        insertedThisFrame = 0;
+        IntBag moved = transforms == null ? subscription.getEntities() : transforms.getChanged();
+        int[] ids = moved.getData();
+        long before = index.getReinsertions();
+        for (int i = 0, size = moved.size(); i < size; i++) {
+            int entityId = ids[i];
+            if (entityId >= proxies.length || proxies[entityId] == SpatialIndex.NULL)
+                continue;
+            worldSphere(entityId);
+            index.move(proxies[entityId], sphere.x, sphere.y, sphere.z, sphere.w);
+        }
+        reinsertedLastFrame = (int) (index.getReinsertions() - before);
+    }
+
+    /**
+     * Computes an entity's world space sphere, models without bounds get a point at their world position
+     */
+    private void worldSphere(int entityId) {
+        Transform transform = mTransform.get(entityId);
+        Bounds bounds = mModel.get(entityId).getBounds();
+        if (bounds == null)
+            sphere.set(transform.getMatrix().getTranslation(position), 0);
+        else
+            bounds.toWorldSphere(transform.getMatrix(), sphere);
+    }
+}
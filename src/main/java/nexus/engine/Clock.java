@@ -0,0 +1,40 @@
+package nexus.engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Where the engine loops get their time from, so the timing logic can be driven
+ * by a fake clock instead of the real one
+ */
+public interface Clock {
+    /**
+     * The system clock. Sleeping parks the thread until shortly before the
+     * deadline and spins the rest, parking alone overshoots by too much to pace frames
+     */
+    Clock SYSTEM = new Clock() {
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        public void sleep(long nanos) {
+            long deadline = System.nanoTime() + nanos;
+            long spin = 1_000_000; //The last millisecond is spun
+            if (nanos > spin)
+                LockSupport.parkNanos(nanos - spin);
+            while (System.nanoTime() < deadline)
+                Thread.onSpinWait();
+        }
+    };
+
+    /**
+     * @return the current time in nanoseconds, only meaningful relative to other calls
+     */
+    long nanoTime();
+
+    /**
+     * Blocks the thread
+     *
+     * @param nanos the time to wait in nanoseconds
+     */
+    void sleep(long nanos);
+}
@@ -7,40 +7,88 @@ import com.artemis.WorldConfigurationBuilder;
 import com.artemis.utils.ImmutableBag;
 import lombok.Getter;
 import nexus.context.Context;
+import nexus.core.animation.AnimationSystem;
 import nexus.core.defaults.InitSystem;
 import nexus.core.input.InputSystem;
+import nexus.core.math.HierarchySystem;
+import nexus.core.math.InterpolationSystem;
+import nexus.core.math.TransformSystem;
 import nexus.core.player.CameraSystem;
 import nexus.core.registry.Registry;
 import nexus.core.registry.RegistrySystem;
+import nexus.core.registry.UploadQueue;
 import nexus.core.render.AnimatedMeshRenderer;
 import nexus.core.render.BillboardRenderer;
+import nexus.core.render.CameraBlockSystem;
+import nexus.core.render.FrustumCullingSystem;
 import nexus.core.render.MeshRenderer;
+import nexus.core.render.RenderQueueSystem;
+import nexus.core.render.RenderRecorder;
+import nexus.core.spatial.SpatialIndexSystem;
 import nexus.gui.Menu;
+import nexus.util.Profiler;
+import nexus.util.opengl.GLUtils;
+import nexus.util.opengl.GpuTimer;
 import nexus.window.Display;
 
 import java.io.File;
 import java.io.IOException;
 
 /**
- * Represents the core engine of the game
+ * Represents the core engine of the game. The simulation runs in fixed ticks and
+ * the frame systems once per rendered frame, see {@link FrameLoop}. The systems of
+ * each are run by the {@link SystemScheduler}, the {@link Profiler} records them
  */
 public class CoreEngine {
+    public static final float TICK_RATE = 60; //Simulation ticks per second
+    private static final float FRAME_CAP = 240; //Frames per second without vsync
+    private static final int MAX_CATCH_UP = 5; //Ticks a slow frame can catch up on
     @Getter
     private final Context coreContext = new Context();
     private final File resourceFolder;
+    @Getter
+    private final boolean headless;
     private Display display;
     private World world;
     private Menu menu;
+    private UploadQueue uploadQueue;
+    @Getter
+    private final SystemScheduler scheduler = new SystemScheduler(true);
+    private InterpolationSystem interpolation;
+    @Getter
+    private FrameLoop frameLoop;
 
     public CoreEngine(String resources, String title, int width, int height, boolean resizable, boolean vSync, int startMonitor) throws IOException {
         resourceFolder = new File(resources);
         if (!resourceFolder.exists())
             throw new IOException("Resource folder not found!");
+        headless = false;
+        frameLoop = coreContext.put(FrameLoop.class, new FrameLoop(TICK_RATE, vSync ? 0 : FRAME_CAP, MAX_CATCH_UP, Clock.SYSTEM));
         display = coreContext.put(Display.class, new Display(title, width, height, resizable, vSync, startMonitor, true));
         menu = new Menu(coreContext);
         preInitialization();
     }
 
+    /**
+     * Creates a headless engine. The world gets the same registry, scripts and
+     * gameplay systems, but no window or opengl context is created and the
+     * renderers are replaced by a {@link RenderRecorder}. The engine is fully
+     * initialized once this returns, ticks are driven by {@link #run(Ticker)}
+     * or by calling {@link #render(float)} directly
+     *
+     * @param resources the resource folder
+     */
+    public CoreEngine(String resources) throws IOException {
+        resourceFolder = new File(resources);
+        if (!resourceFolder.exists())
+            throw new IOException("Resource folder not found!");
+        headless = true;
+        GLUtils.setHeadless(true);
+        registerWorld();
+        preInitializeSystems();
+        postInitialization();
+    }
+
     /**
      * Called to register anything before the window has been created
      */
@@ -51,19 +99,37 @@ public class CoreEngine {
     }
 
     /**
-     * Register the world and core systems
+     * Register the world and core systems, a headless world leaves
+     * out every system that needs opengl
      */
     private void registerWorld() {
-        WorldConfiguration config = new WorldConfigurationBuilder()
+        WorldConfigurationBuilder builder = new WorldConfigurationBuilder()
+                .register(scheduler)
                 .with(new RegistrySystem(resourceFolder, coreContext))
                 .with(new InputSystem(coreContext))
-                .with(new CameraSystem(coreContext))
-                //.with(new QuadRenderer(coreContext))
-                .with(new AnimatedMeshRenderer(coreContext))
-                .with(new BillboardRenderer(coreContext))
-                .with(new MeshRenderer(coreContext))
-                .build();
+                .with(new CameraSystem(coreContext));
+        if (!headless)
+            builder.with(new CameraBlockSystem(coreContext));
+        builder.with(new AnimationSystem(coreContext))
+                .with(new HierarchySystem(coreContext))
+                .with(new TransformSystem(coreContext));
+        if (!headless)
+            builder.with(interpolation = new InterpolationSystem(coreContext));
+        builder.with(new FrustumCullingSystem(coreContext))
+                .with(new SpatialIndexSystem(coreContext));
+        if (headless)
+            builder.with(new RenderRecorder(coreContext));
+        else
+            builder//.with(new QuadRenderer(coreContext))
+                    .with(new AnimatedMeshRenderer(coreContext))
+                    .with(new BillboardRenderer(coreContext))
+                    .with(new MeshRenderer(coreContext))
+                    .with(new RenderQueueSystem(coreContext));
+        WorldConfiguration config = builder.build();
         this.world = new World(config);
+        System.out.println(scheduler);
+        coreContext.put(SystemScheduler.class, scheduler);
+        this.uploadQueue = coreContext.get(UploadQueue.class);
         coreContext.put(World.class, world);
     }
 
@@ -92,16 +158,50 @@ public class CoreEngine {
                 initSys.postInitialization();
             }
         }
-        menu.initialize();
+        if (!headless)
+            Profiler.setGpuTimer(GpuTimer.create());
+        if (menu != null)
+            menu.initialize();
+    }
+
+    /**
+     * Runs a headless engine until the ticker stops, then shuts it down
+     *
+     * @param ticker the ticker driving the world
+     */
+    public void run(Ticker ticker) {
+        if (!headless)
+            throw new IllegalStateException("The windowed engine is driven by its display");
+        ticker.run(this);
+        shutdown();
     }
 
 
     /**
-     * All main rendering goes on here
+     * Runs a single simulation tick
      *
-     * @param deltaTime
+     * @param delta the fixed tick delta
+     */
+    public void tick(float delta) {
+        if (interpolation != null)
+            interpolation.capture();
+        scheduler.setPhase(PhasedInvocationStrategy.Phase.TICK);
+        world.setDelta(delta);
+        world.process();
+    }
+
+    /**
+     * All main rendering goes on here, transforms are drawn
+     * interpolated by the alpha of the frame loop
+     *
+     * @param deltaTime the time since the last frame
      */
     public void render(float deltaTime) {
+        Profiler.beginFrame();
+        uploadQueue.drain();
+        if (interpolation != null)
+            interpolation.setAlpha(frameLoop.getAlpha());
+        scheduler.setPhase(PhasedInvocationStrategy.Phase.FRAME);
         world.setDelta(deltaTime);
         world.process();
     }
@@ -119,9 +219,12 @@ public class CoreEngine {
      * Request the engine to stop running
      */
     public void shutdown() {
+        if (!headless)
+            Profiler.setGpuTimer(null);
         coreContext.get(Registry.class).unloadAll();
         world.dispose();
-        display.shutdown();
+        if (display != null)
+            display.shutdown();
     }
 
 }
@@ -0,0 +1,94 @@
+package nexus.engine;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The timing of the windowed engine loop. Simulation runs in fixed ticks while
+ * frames are rendered as often as the frame cap allows. Every frame the elapsed
+ * time is added to an accumulator and the ticks that fit in it are run, what is
+ * left over becomes the alpha the renderers interpolate with. When a frame takes
+ * too long only a limited amount of ticks is caught up and the rest is dropped,
+ * so a single stall can't snowball into every following frame running behind.
+ * Nothing here touches glfw, the time comes from a {@link Clock}
+ */
+public class FrameLoop {
+    @Getter
+    private final float tickRate;
+    private final long tickNanos;
+    private final Clock clock;
+    @Getter
+    @Setter
+    private float frameCap; //Frames per second, 0 for no cap
+    @Getter
+    @Setter
+    private int maxTicksPerFrame; //The catch up limit
+    private long lastFrame = -1, frameStart, accumulator;
+    @Getter
+    private float frameDelta, alpha;
+    @Getter
+    private long frames, ticks, droppedTicks;
+
+    /**
+     * Creates a frame loop
+     *
+     * @param tickRate         the simulation ticks per second
+     * @param frameCap         the max frames per second, 0 for no cap
+     * @param maxTicksPerFrame the max ticks a frame runs to catch up
+     * @param clock            where the time comes from
+     */
+    public FrameLoop(float tickRate, float frameCap, int maxTicksPerFrame, Clock clock) {
+        this.tickRate = tickRate;
+        this.tickNanos = (long) (1_000_000_000.0 / tickRate);
+        this.frameCap = frameCap;
+        this.maxTicksPerFrame = maxTicksPerFrame;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts a frame, the first frame always runs a single tick
+     *
+     * @return the amount of ticks to run before rendering this frame
+     */
+    public int advance() {
+        long now = clock.nanoTime();
+        if (lastFrame < 0) {
+            accumulator = tickNanos;
+            frameDelta = getTickDelta();
+        } else {
+            accumulator += now - lastFrame;
+            frameDelta = (now - lastFrame) / 1_000_000_000f;
+        }
+        lastFrame = now;
+        frameStart = now;
+        long due = accumulator / tickNanos;
+        int run = (int) Math.min(due, maxTicksPerFrame);
+        if (due > run) {
+            droppedTicks += due - run;
+            accumulator -= (due - run) * tickNanos;
+        }
+        accumulator -= run * tickNanos;
+        alpha = (float) accumulator / tickNanos;
+        ticks += run;
+        frames++;
+        return run;
+    }
+
+    /**
+     * Waits out the rest of the frame when there's a frame cap
+     */
+    public void pace() {
+        if (frameCap <= 0)
+            return;
+        long remaining = frameStart + (long) (1_000_000_000.0 / frameCap) - clock.nanoTime();
+        if (remaining > 0)
+            clock.sleep(remaining);
+    }
+
+    /**
+     * @return the time every tick advances the simulation by, in seconds
+     */
+    public float getTickDelta() {
+        return 1f / tickRate;
+    }
+}
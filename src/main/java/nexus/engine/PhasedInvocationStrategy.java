@@ -0,0 +1,59 @@
+package nexus.engine;
+
+import com.artemis.BaseSystem;
+import com.artemis.SystemInvocationStrategy;
+import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
+import lombok.Getter;
+import lombok.Setter;
+import nexus.core.defaults.FrameSystem;
+
+/**
+ * Splits the world's systems into the simulation tick and the rendered frame.
+ * Processing the world only runs the systems of the current phase, in the order
+ * they were registered, {@link FrameSystem}s belong to the frame
+ */
+public class PhasedInvocationStrategy extends SystemInvocationStrategy {
+    @Getter
+    @Setter
+    private Phase phase = Phase.TICK;
+    private final BitVector frameSystems = new BitVector();
+
+    /**
+     * Sorts the systems into their phases
+     */
+    protected void setSystems(Bag<BaseSystem> systems) {
+        super.setSystems(systems);
+        frameSystems.clear();
+        for (int i = 0; i < systems.size(); i++)
+            if (systems.get(i) instanceof FrameSystem)
+                frameSystems.set(i);
+    }
+
+    /**
+     * Runs the enabled systems of the current phase
+     */
+    protected void process() {
+        BaseSystem[] data = systems.getData();
+        boolean frame = phase == Phase.FRAME;
+        for (int i = 0, size = systems.size(); i < size; i++) {
+            if (disabled.get(i) || frameSystems.get(i) != frame)
+                continue;
+            updateEntityStates();
+            data[i].process();
+        }
+        updateEntityStates();
+    }
+
+    /**
+     * @param index the index of the system in the world
+     * @return true if the system runs once per frame
+     */
+    protected boolean isFrameSystem(int index) {
+        return frameSystems.get(index);
+    }
+
+    public enum Phase {
+        TICK, FRAME
+    }
+}
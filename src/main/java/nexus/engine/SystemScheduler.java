@@ -0,0 +1,430 @@
+package nexus.engine;
+
+import com.artemis.BaseSystem;
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.annotations.Exclude;
+import com.artemis.annotations.One;
+import com.artemis.utils.Bag;
+import lombok.Getter;
+import nexus.core.defaults.ContextThread;
+import nexus.core.defaults.Reads;
+import nexus.core.defaults.Writes;
+import nexus.util.Profiler;
+import nexus.util.TraceRing;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Runs the systems of each phase in parallel where their access allows it. What
+ * a system reads comes from its aspect, its component mappers and {@link Reads},
+ * what it writes from {@link Writes}. Two systems conflict when one writes what
+ * the other reads or writes, a conflicting system always waits for the ones
+ * registered before it, so the result is the same as running them in order.
+ * Of the systems that are ready one runs on the thread processing the world and
+ * the rest are handed to the fork join pool, so a chain of dependent systems
+ * never waits on a hand off. {@link ContextThread} systems always run on the
+ * thread processing the world, as do systems without declared writes, which run
+ * on their own. Entity changes are applied before and after each phase, and
+ * before every system that runs alone. Artemis's own managers don't process
+ * anything, so they don't conflict with any system. Every system is timed, and
+ * recorded by the {@link Profiler} while it's enabled
+ */
+public class SystemScheduler extends PhasedInvocationStrategy {
+    private final ForkJoinPool pool;
+    @Getter
+    private final boolean parallel;
+    private Access[] access = new Access[0];
+    private final Graph[] graphs = new Graph[Phase.values().length];
+    @Getter
+    private List<Timing> systemTimings = Collections.emptyList();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final LinkedBlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+    private final ArrayDeque<Integer> local = new ArrayDeque<>(); //Ready systems that have to run on this thread
+    private final ArrayDeque<Integer> ready = new ArrayDeque<>(); //Ready systems that can run anywhere
+    private volatile Throwable failure;
+
+    /**
+     * Creates the scheduler
+     *
+     * @param parallel if false every system runs in order on the calling thread, still timed
+     */
+    public SystemScheduler(boolean parallel) {
+        this.parallel = parallel;
+        this.pool = parallel ? ForkJoinPool.commonPool() : null;
+    }
+
+    /**
+     * Works out the access of every system and builds the graph of each phase
+     */
+    protected void setSystems(Bag<BaseSystem> systems) {
+        super.setSystems(systems);
+        int size = systems.size();
+        access = new Access[size];
+        List<Timing> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            access[i] = Access.of(systems.get(i));
+            list.add(new Timing(systems.get(i).getClass().getSimpleName()));
+        }
+        systemTimings = Collections.unmodifiableList(list);
+        for (Phase phase : Phase.values())
+            graphs[phase.ordinal()] = new Graph(phase);
+    }
+
+    /**
+     * Runs the systems of the current phase
+     */
+    protected void process() {
+        long start = System.nanoTime();
+        Graph graph = graphs[getPhase().ordinal()];
+        if (parallel)
+            processParallel(graph);
+        else
+            processInOrder(graph);
+        long end = System.nanoTime();
+        phaseNanos[getPhase().ordinal()] = end - start;
+        Profiler.record(getPhase().name(), TraceRing.Category.PHASE, start, end);
+    }
+
+    private void processInOrder(Graph graph) {
+        BaseSystem[] data = systems.getData();
+        for (int index : graph.systems) {
+            if (disabled.get(index))
+                continue;
+            updateEntityStates();
+            run(index, data[index]);
+        }
+        updateEntityStates();
+    }
+
+    /**
+     * Starts the systems without dependencies, then starts every system once the
+     * last system it depends on finished. The bookkeeping all happens on this thread.
+     * Once a system fails nothing else is started, the systems already on the pool
+     * are waited on and the failure is rethrown
+     */
+    private void processParallel(Graph graph) {
+        local.clear();
+        ready.clear();
+        completed.clear();
+        failure = null;
+        updateEntityStates();
+        int[] waiting = graph.waiting;
+        System.arraycopy(graph.dependencies, 0, waiting, 0, waiting.length);
+        int remaining = graph.systems.length;
+        int dispatched = 0;
+        for (int node = 0; node < graph.systems.length; node++)
+            if (waiting[node] == 0)
+                release(graph, node);
+        BaseSystem[] data = systems.getData();
+        while (remaining > 0 && failure == null) {
+            Integer node = local.poll();
+            if (node == null && !ready.isEmpty()) {
+                node = ready.poll();
+                for (Integer other = ready.poll(); other != null; other = ready.poll()) {
+                    dispatch(graph.systems[other], other);
+                    dispatched++;
+                }
+            }
+            if (node != null) {
+                int index = graph.systems[node];
+                try {
+                    if (access[index].exclusive)
+                        updateEntityStates();
+                    run(index, data[index]);
+                } catch (Throwable t) {
+                    failure = t;
+                    break;
+                }
+            } else {
+                node = awaitCompleted();
+                dispatched--;
+                if (failure != null)
+                    break;
+            }
+            remaining--;
+            for (int successor : graph.successors[node])
+                if (--waiting[successor] == 0)
+                    release(graph, successor);
+        }
+        for (; dispatched > 0; dispatched--)
+            awaitCompleted();
+        local.clear();
+        ready.clear();
+        updateEntityStates();
+        if (failure != null)
+            throw new RuntimeException("A system failed while running in parallel", failure);
+    }
+
+    /**
+     * Waits for a system on the pool to finish, an interrupt is kept for later so
+     * the phase never ends with systems still running
+     *
+     * @return the node that finished
+     */
+    private int awaitCompleted() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return completed.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a system whose dependencies all finished
+     */
+    private void release(Graph graph, int node) {
+        int index = graph.systems[node];
+        Access systemAccess = access[index];
+        if (disabled.get(index) || systemAccess.pinned || systemAccess.exclusive || systemAccess.internal)
+            local.add(node);
+        else
+            ready.add(node);
+    }
+
+    /**
+     * Runs a system on the pool
+     */
+    private void dispatch(int index, int node) {
+        BaseSystem system = systems.get(index);
+        pool.execute(() -> {
+            try {
+                if (failure == null)
+                    run(index, system);
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                completed.add(node);
+            }
+        });
+    }
+
+    /**
+     * Processes and times a system, disabled systems are skipped. The gpu work
+     * of systems on the context thread is timed while profiling
+     */
+    private void run(int index, BaseSystem system) {
+        if (disabled.get(index))
+            return;
+        Timing timing = systemTimings.get(index);
+        boolean gpu = access[index].pinned && Profiler.isEnabled();
+        if (gpu)
+            Profiler.beginGpu(timing.getName());
+        long start = System.nanoTime();
+        system.process();
+        long end = System.nanoTime();
+        if (gpu)
+            Profiler.endGpu();
+        timing.record(end - start);
+        if (!access[index].internal)
+            Profiler.record(timing.getName(), TraceRing.Category.SYSTEM, start, end);
+    }
+
+    /**
+     * @param phase the phase
+     * @return the wall time the last run of the phase took in nanoseconds
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @param phase the phase
+     * @return the most systems of the phase that can run at the same time
+     */
+    public int getWidth(Phase phase) {
+        return graphs[phase.ordinal()].width;
+    }
+
+    /**
+     * @return every phase's systems grouped by how many systems they wait on in a row,
+     * leaving out artemis's managers
+     */
+    public String toString() {
+        StringBuilder builder = new StringBuilder("SystemScheduler{parallel=").append(parallel);
+        for (Graph graph : graphs)
+            builder.append(", ").append(graph);
+        return builder.append('}').toString();
+    }
+
+    /**
+     * The systems of a phase and which of them have to wait on each other
+     */
+    private class Graph {
+        private final Phase phase;
+        private final int[] systems; //The world index of each node, in registration order
+        private final int[][] successors; //The nodes waiting on each node
+        private final int[] dependencies; //How many nodes each node waits on
+        private final int[] waiting; //The dependencies left while the phase runs
+        private final int[] levels; //The longest chain of dependencies leading up to each node
+        private final int width;
+
+        private Graph(Phase phase) {
+            this.phase = phase;
+            int count = 0;
+            int[] indices = new int[access.length];
+            for (int i = 0; i < access.length; i++)
+                if (isFrameSystem(i) == (phase == Phase.FRAME))
+                    indices[count++] = i;
+            this.systems = Arrays.copyOf(indices, count);
+            this.dependencies = new int[count];
+            this.waiting = new int[count];
+            this.levels = new int[count];
+            List<List<Integer>> edges = new ArrayList<>();
+            for (int node = 0; node < count; node++)
+                edges.add(new ArrayList<>());
+            for (int later = 0; later < count; later++) {
+                for (int earlier = 0; earlier < later; earlier++) {
+                    if (!access[systems[earlier]].conflicts(access[systems[later]]))
+                        continue;
+                    edges.get(earlier).add(later);
+                    dependencies[later]++;
+                    levels[later] = Math.max(levels[later], levels[earlier] + 1);
+                }
+            }
+            this.successors = new int[count][];
+            for (int node = 0; node < count; node++)
+                successors[node] = edges.get(node).stream().mapToInt(Integer::intValue).toArray();
+            int[] perLevel = new int[count + 1];
+            int widest = 0;
+            for (int node = 0; node < count; node++)
+                if (!access[systems[node]].internal)
+                    widest = Math.max(widest, ++perLevel[levels[node]]);
+            this.width = widest;
+        }
+
+        public String toString() {
+            StringBuilder builder = new StringBuilder(phase.name().toLowerCase()).append("=[");
+            int deepest = -1;
+            for (int level : levels)
+                deepest = Math.max(deepest, level);
+            for (int level = 0; level <= deepest; level++) {
+                if (level > 0)
+                    builder.append(" -> ");
+                List<String> names = new ArrayList<>();
+                for (int node = 0; node < systems.length; node++)
+                    if (levels[node] == level && !access[systems[node]].internal)
+                        names.add(systemTimings.get(systems[node]).getName());
+                builder.append(names.size() == 1 ? names.get(0) : names.toString());
+            }
+            return builder.append(']').toString();
+        }
+    }
+
+    /**
+     * What a system reads and writes
+     */
+    private static class Access {
+        private final Set<Class<?>> reads = new HashSet<>(), writes = new HashSet<>();
+        private boolean exclusive, pinned, internal;
+
+        /**
+         * Reads the aspect, component mappers and declarations of a system
+         */
+        private static Access of(BaseSystem system) {
+            Access access = new Access();
+            Class<?> type = system.getClass();
+            if (type.getName().startsWith("com.artemis.")) {
+                access.internal = true;
+                return access;
+            }
+            access.pinned = type.isAnnotationPresent(ContextThread.class);
+            access.exclusive = !type.isAnnotationPresent(Writes.class);
+            for (Class<?> current = type; current != null && current != BaseSystem.class; current = current.getSuperclass()) {
+                All all = current.getAnnotation(All.class);
+                if (all != null)
+                    Collections.addAll(access.reads, all.value());
+                One one = current.getAnnotation(One.class);
+                if (one != null)
+                    Collections.addAll(access.reads, one.value());
+                Exclude exclude = current.getAnnotation(Exclude.class);
+                if (exclude != null)
+                    Collections.addAll(access.reads, exclude.value());
+                for (Field field : current.getDeclaredFields()) {
+                    Type generic = field.getGenericType();
+                    if (field.getType() == ComponentMapper.class && generic instanceof ParameterizedType) {
+                        Type component = ((ParameterizedType) generic).getActualTypeArguments()[0];
+                        if (component instanceof Class)
+                            access.reads.add((Class<?>) component);
+                    }
+                }
+            }
+            Reads reads = type.getAnnotation(Reads.class);
+            if (reads != null)
+                Collections.addAll(access.reads, reads.value());
+            Writes writes = type.getAnnotation(Writes.class);
+            if (writes != null)
+                Collections.addAll(access.writes, writes.value());
+            return access;
+        }
+
+        /**
+         * @return true if the two systems can't run at the same time
+         */
+        private boolean conflicts(Access other) {
+            if (internal || other.internal)
+                return false;
+            if (exclusive || other.exclusive || (pinned && other.pinned))
+                return true;
+            for (Class<?> type : writes)
+                if (other.reads.contains(type) || other.writes.contains(type))
+                    return true;
+            for (Class<?> type : other.writes)
+                if (reads.contains(type))
+                    return true;
+            return false;
+        }
+    }
+
+    /**
+     * How long a system takes to process
+     */
+    public static class Timing {
+        @Getter
+        private final String name;
+        @Getter
+        private long lastNanos, maxNanos, runs;
+        private double averageNanos;
+
+        private Timing(String name) {
+            this.name = name;
+        }
+
+        private void record(long nanos) {
+            lastNanos = nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            averageNanos = runs == 0 ? nanos : averageNanos * 0.95 + nanos * 0.05;
+            runs++;
+        }
+
+        /**
+         * @return the moving average in milliseconds, weighted towards the recent runs
+         */
+        public double getAverageMillis() {
+            return averageNanos / 1_000_000.0;
+        }
+
+        public String toString() {
+            return String.format("%s: %.3fms (max %.3fms)", name, getAverageMillis(), maxNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package nexus.engine;
+
+import lombok.Getter;
+
+/**
+ * Drives a headless engine at a fixed timestep. Every tick advances the world
+ * by the same delta, in real time the ticker sleeps until the next tick is due,
+ * otherwise the ticks run back to back, which is what benchmarks want. Every
+ * tick is followed by a frame, which only runs the render recorder headless
+ */
+public class Ticker {
+    @Getter
+    private final float tickRate;
+    @Getter
+    private final boolean realTime;
+    @Getter
+    private final long maxTicks; //-1 to run until stopped
+    private final Clock clock;
+    private volatile boolean running = false;
+    @Getter
+    private long ticks;
+    @Getter
+    private long elapsedNanos, busyNanos, slowestTickNanos; //Busy leaves out the time spent waiting
+
+    /**
+     * Creates a ticker
+     *
+     * @param tickRate the ticks per second
+     * @param realTime if true ticks are paced to the tick rate
+     * @param maxTicks the amount of ticks to run, -1 to run until stopped
+     */
+    public Ticker(float tickRate, boolean realTime, long maxTicks) {
+        this(tickRate, realTime, maxTicks, Clock.SYSTEM);
+    }
+
+    /**
+     * Creates a ticker
+     *
+     * @param tickRate the ticks per second
+     * @param realTime if true ticks are paced to the tick rate
+     * @param maxTicks the amount of ticks to run, -1 to run until stopped
+     * @param clock    where the time comes from
+     */
+    public Ticker(float tickRate, boolean realTime, long maxTicks, Clock clock) {
+        this.tickRate = tickRate;
+        this.realTime = realTime;
+        this.maxTicks = maxTicks;
+        this.clock = clock;
+    }
+
+    /**
+     * Ticks the engine until stopped or the max ticks were run
+     *
+     * @param coreEngine the engine to tick
+     */
+    public void run(CoreEngine coreEngine) {
+        float delta = 1f / tickRate;
+        long tickNanos = (long) (1_000_000_000.0 / tickRate);
+        long start = clock.nanoTime();
+        long next = start;
+        running = true;
+        while (running && (maxTicks < 0 || ticks < maxTicks)) {
+            long tickStart = clock.nanoTime();
+            coreEngine.tick(delta);
+            coreEngine.render(delta);
+            long tickEnd = clock.nanoTime();
+            busyNanos += tickEnd - tickStart;
+            slowestTickNanos = Math.max(slowestTickNanos, tickEnd - tickStart);
+            ticks++;
+            if (realTime) {
+                next += tickNanos;
+                if (next > tickEnd)
+                    clock.sleep(next - tickEnd);
+                else
+                    next = tickEnd; //Fell behind, don't try to catch up
+            }
+        }
+        running = false;
+        elapsedNanos = clock.nanoTime() - start;
+    }
+
+    /**
+     * Stops the ticker after the current tick, safe to call from any thread
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * @return true while the ticker is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the average time a tick took in milliseconds, without the waiting
+     */
+    public double getAverageTickMillis() {
+        return ticks == 0 ? 0 : busyNanos / 1_000_000.0 / ticks;
+    }
+
+    public String toString() {
+        return String.format("Ticker{ticks=%d, elapsed=%.1fms, average=%.3fms, slowest=%.3fms}",
+                ticks, elapsedNanos / 1_000_000.0, getAverageTickMillis(), slowestTickNanos / 1_000_000.0);
+    }
+}
@@ -12,6 +12,7 @@ public class Config {
     public final ImBool mainWindow = new ImBool();
     public final ImBool assetBrowser = new ImBool(true);
     public final ImBool console = new ImBool();
+    public final ImBool profiler = new ImBool();
     public final ImString consoleInput = new ImString();
     public final ImString modelInput = new ImString();
     public Component selectedComponent;
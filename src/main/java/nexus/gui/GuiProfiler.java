@@ -0,0 +1,108 @@
+package nexus.gui;
+
+import imgui.ImBool;
+import nexus.context.Context;
+import nexus.engine.FrameLoop;
+import nexus.engine.PhasedInvocationStrategy.Phase;
+import nexus.engine.SystemScheduler;
+import nexus.util.Profiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+
+import static imgui.ImGui.*;
+
+/**
+ * Shows where the frame time goes, the cpu time of every system from the
+ * scheduler and the gpu time of the ones on the context thread. Recording
+ * fills the profiler's trace, which can be exported for chrome://tracing
+ */
+public class GuiProfiler {
+    private static final int HISTORY = 120; //Frames shown in the graph
+    private Context context;
+    private Config config;
+    private GuiConsole console;
+    private SystemScheduler scheduler;
+    private FrameLoop frameLoop;
+    private final ImBool recording = new ImBool();
+    private final float[] frameMillis = new float[HISTORY];
+    private final SimpleDateFormat formatter = new SimpleDateFormat("yyyyMMdd-HHmmss");
+
+    public GuiProfiler(Context context) {
+        this.context = context;
+        this.config = context.get(Config.class);
+        this.console = context.get(GuiConsole.class);
+        this.scheduler = context.get(SystemScheduler.class);
+        this.frameLoop = context.get(FrameLoop.class);
+    }
+
+    /**
+     * Draw the profiler
+     */
+    public void draw() {
+        if (!config.profiler.get())
+            return;
+        System.arraycopy(frameMillis, 1, frameMillis, 0, HISTORY - 1);
+        frameMillis[HISTORY - 1] = frameLoop.getFrameDelta() * 1000;
+        if (collapsingHeader("Profiler")) {
+            recording.set(Profiler.isEnabled());
+            if (checkbox("Record", recording))
+                Profiler.setEnabled(recording.get());
+            sameLine();
+            if (button("Export trace"))
+                export();
+            sameLine();
+            if (button("Clear##profiler"))
+                Profiler.getRing().clear();
+            text(String.format("Frame %.2fms, tick systems %.2fms, frame systems %.2fms",
+                    frameMillis[HISTORY - 1], scheduler.getPhaseNanos(Phase.TICK) / 1_000_000.0, scheduler.getPhaseNanos(Phase.FRAME) / 1_000_000.0));
+            plotLines("##frames", frameMillis, HISTORY);
+            text(String.format("%d events recorded, %d kept", Profiler.getRing().getRecorded(), Math.min(Profiler.getRing().getRecorded(), Profiler.getRing().getCapacity())));
+            separator();
+            Map<String, Long> gpuNanos = Profiler.getGpuNanos();
+            columns(4);
+            text("System");
+            nextColumn();
+            text("Cpu ms");
+            nextColumn();
+            text("Max ms");
+            nextColumn();
+            text("Gpu ms");
+            nextColumn();
+            for (SystemScheduler.Timing timing : scheduler.getSystemTimings()) {
+                if (timing.getRuns() == 0)
+                    continue;
+                text(timing.getName());
+                nextColumn();
+                text(String.format("%.3f", timing.getAverageMillis()));
+                nextColumn();
+                text(String.format("%.3f", timing.getMaxNanos() / 1_000_000.0));
+                nextColumn();
+                Long gpu = gpuNanos.get(timing.getName());
+                text(gpu == null ? "-" : String.format("%.3f", gpu / 1_000_000.0));
+                nextColumn();
+            }
+            columns(1);
+            if (!Profiler.isGpuTimed())
+                text("Gpu timer queries aren't supported");
+            else if (gpuNanos.containsKey("ImGui"))
+                text(String.format("ImGui gpu %.3fms", gpuNanos.get("ImGui") / 1_000_000.0));
+        }
+    }
+
+    /**
+     * Writes the recorded events to a trace file in the working directory
+     */
+    private void export() {
+        File file = new File("trace-" + formatter.format(new Date()) + ".json");
+        try {
+            int events = Profiler.export(file);
+            console.info("Exported " + events + " profiler events to " + file.getAbsolutePath());
+        } catch (IOException e) {
+            console.error("Couldn't export the profiler trace: " + e.getMessage());
+        }
+    }
+}
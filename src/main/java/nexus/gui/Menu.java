@@ -23,6 +23,7 @@ public class Menu {
     private GuiConsole console;
     private GuiAssetBrowser assetBrowser;
     private GuiEntityBrowser entityBrowser;
+    private GuiProfiler profiler;
 
     public Menu(Context context) {
         this.context = context;
@@ -38,6 +39,7 @@ public class Menu {
         this.console = context.put(GuiConsole.class, new GuiConsole(context));
         this.assetBrowser = context.put(GuiAssetBrowser.class, new GuiAssetBrowser(context));
         this.entityBrowser = context.put(GuiEntityBrowser.class, new GuiEntityBrowser(context));
+        this.profiler = context.put(GuiProfiler.class, new GuiProfiler(context));
     }
 
 
@@ -64,6 +66,7 @@ public class Menu {
         if (begin("Assets and Entities", ImGuiWindowFlags.AlwaysAutoResize)) {
             assetBrowser.draw(width);
             entityBrowser.draw();
+            profiler.draw();
         }
         end();
         popStyleVar();
@@ -77,6 +80,7 @@ public class Menu {
             if (beginMenu("Windows")) {
                 menuItem("Asset Browser", "", config.assetBrowser);
                 menuItem("Console", "", config.console);
+                menuItem("Profiler", "", config.profiler);
                 endMenu();
             }
             endMainMenuBar();
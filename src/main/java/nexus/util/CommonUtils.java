@@ -14,11 +14,13 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -429,6 +431,54 @@ public class CommonUtils {
         return ByteBuffer.wrap(data);
     }
 
+    /**
+     * Memory maps a file into a read only direct byte buffer,
+     * the mapping stays valid after the channel has been closed
+     *
+     * @param file the file to map
+     * @return the mapped buffer
+     */
+    @SneakyThrows
+    public static MappedByteBuffer mapFile(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Copies a float vector into a new array in reverse order,
+     * used for bin files that were written before vectors were stored in order
+     *
+     * @param byteBuffer the vector to copy
+     * @return the reversed float array
+     */
+    public static float[] toReversedFloatArray(ByteBuffer byteBuffer) {
+        if (byteBuffer == null)
+            return new float[0];
+        FloatBuffer fb = byteBuffer.asFloatBuffer();
+        float[] floatArray = new float[fb.remaining()];
+        for (int i = 0, j = floatArray.length - 1; j >= 0; i++, j--)
+            floatArray[j] = fb.get(i);
+        return floatArray;
+    }
+
+    /**
+     * Copies an int vector into a new array in reverse order,
+     * used for bin files that were written before vectors were stored in order
+     *
+     * @param byteBuffer the vector to copy
+     * @return the reversed int array
+     */
+    public static int[] toReversedIntArray(ByteBuffer byteBuffer) {
+        if (byteBuffer == null)
+            return new int[0];
+        IntBuffer ib = byteBuffer.asIntBuffer();
+        int[] intArray = new int[ib.remaining()];
+        for (int i = 0, j = intArray.length - 1; j >= 0; i++, j--)
+            intArray[j] = ib.get(i);
+        return intArray;
+    }
+
     /**
      * creates an array of the given vector
      * MUST START VECTOR FIRST
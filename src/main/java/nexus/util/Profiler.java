@@ -0,0 +1,215 @@
+package nexus.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import nexus.util.opengl.GpuTimer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records where the time of every frame goes: the phases, every system, asset
+ * loads and uploads, and the gpu time of the systems on the context thread when
+ * the driver has timer queries. Events go into a {@link TraceRing} that any
+ * thread can record into and can be exported as a chrome trace, which opens in
+ * chrome://tracing or perfetto. While disabled every call returns after reading
+ * a single flag
+ */
+public class Profiler {
+    public static final long GPU_THREAD = -1; //The track gpu events are drawn on
+    private static final TraceRing ring = new TraceRing(1 << 16);
+    private static final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+    private static final Map<String, Long> gpuNanos = new LinkedHashMap<>(); //The last gpu time of every scope, context thread only
+    @Getter
+    @Setter
+    private static volatile boolean enabled = Boolean.getBoolean("nexus.profile");
+    private static GpuTimer gpuTimer;
+    private static boolean gpuOpen = false;
+    private static boolean gpuPending = false; //Queries were placed since the timer was last drained
+
+    private Profiler() {
+    }
+
+    /**
+     * Starts a cpu event
+     *
+     * @return the start time to pass to {@link #end}, 0 while disabled
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Ends a cpu event started with {@link #begin()}
+     *
+     * @param name     the event name
+     * @param category the event category
+     * @param start    the start time, events started while disabled are dropped
+     */
+    public static void end(String name, TraceRing.Category category, long start) {
+        if (start != 0 && enabled)
+            record(name, category, start, System.nanoTime());
+    }
+
+    /**
+     * Records a cpu event on the calling thread's track, for callers that already time themselves
+     *
+     * @param name     the event name
+     * @param category the event category
+     * @param start    the start time in nanoseconds
+     * @param end      the end time in nanoseconds
+     */
+    public static void record(String name, TraceRing.Category category, long start, long end) {
+        if (!enabled)
+            return;
+        Thread thread = Thread.currentThread();
+        long id = thread.getId();
+        if (!threadNames.containsKey(id))
+            threadNames.put(id, thread.getName());
+        ring.record(name, category, start, end - start, id);
+    }
+
+    /**
+     * Gives the profiler a gpu timer, the previous one is deleted. Has to be called on the context thread
+     *
+     * @param timer the timer, null to stop timing the gpu
+     */
+    public static void setGpuTimer(GpuTimer timer) {
+        if (gpuTimer != null)
+            gpuTimer.delete();
+        gpuTimer = timer;
+        gpuOpen = false;
+        gpuPending = false;
+        gpuNanos.clear();
+    }
+
+    /**
+     * @return true if the gpu is being timed
+     */
+    public static boolean isGpuTimed() {
+        return gpuTimer != null;
+    }
+
+    /**
+     * Starts a rendered frame, the gpu events that finished since are recorded.
+     * While disabled nothing touches the gpu, the frame after profiling is turned
+     * off only drains the queries still pending. Has to be called on the context thread
+     */
+    public static void beginFrame() {
+        if (gpuTimer == null)
+            return;
+        gpuOpen = false;
+        if (!enabled) {
+            if (gpuPending) {
+                gpuTimer.drain(Profiler::resolved);
+                gpuPending = false;
+            }
+            return;
+        }
+        gpuTimer.beginFrame(Profiler::resolved);
+        gpuPending = true;
+    }
+
+    /**
+     * Starts timing gpu work, only on the context thread
+     *
+     * @param name the event name
+     */
+    public static void beginGpu(String name) {
+        if (!enabled || gpuTimer == null || gpuOpen)
+            return;
+        gpuTimer.begin(name);
+        gpuOpen = true;
+    }
+
+    /**
+     * Ends the gpu work started with {@link #beginGpu(String)}
+     */
+    public static void endGpu() {
+        if (!gpuOpen)
+            return;
+        gpuTimer.end();
+        gpuOpen = false;
+    }
+
+    private static void resolved(String name, long start, long duration) {
+        gpuNanos.put(name, duration);
+        if (enabled)
+            ring.record(name, TraceRing.Category.GPU, start, duration, GPU_THREAD);
+    }
+
+    /**
+     * @return the last gpu time of every timed scope in nanoseconds, only read on the context thread
+     */
+    public static Map<String, Long> getGpuNanos() {
+        return gpuNanos;
+    }
+
+    /**
+     * @return the ring the events are recorded into
+     */
+    public static TraceRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Writes the events in the ring as a chrome trace
+     *
+     * @param file the json file
+     * @return the amount of events written
+     */
+    public static int export(File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            return export(writer);
+        }
+    }
+
+    /**
+     * Writes the events in the ring as a chrome trace, complete events with their
+     * times in microseconds from the first event, one track per thread
+     *
+     * @param writer where the json goes
+     * @return the amount of events written
+     */
+    public static int export(Writer writer) throws IOException {
+        long[] origin = {Long.MAX_VALUE};
+        ring.forEach((name, category, start, duration, thread) -> origin[0] = Math.min(origin[0], start));
+        StringBuilder json = new StringBuilder("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        Map<Long, String> tracks = new LinkedHashMap<>();
+        int written = ring.forEach((name, category, start, duration, thread) -> {
+            json.append("{\"name\":\"").append(escape(name))
+                    .append("\",\"cat\":\"").append(category.getLabel())
+                    .append("\",\"ph\":\"X\",\"ts\":").append(String.format(Locale.ROOT, "%.3f", (start - origin[0]) / 1000.0))
+                    .append(",\"dur\":").append(String.format(Locale.ROOT, "%.3f", duration / 1000.0))
+                    .append(",\"pid\":1,\"tid\":").append(thread).append("},\n");
+            tracks.putIfAbsent(thread, thread == GPU_THREAD ? "GPU" : threadNames.getOrDefault(thread, "Thread " + thread));
+        });
+        for (Map.Entry<Long, String> track : tracks.entrySet())
+            json.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(track.getKey())
+                    .append(",\"args\":{\"name\":\"").append(escape(track.getValue())).append("\"}},\n");
+        json.append("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"args\":{\"name\":\"NexusEngine\"}}\n]}\n");
+        writer.write(json.toString());
+        return written;
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+                escaped.append('\\').append(c);
+            else if (c < 0x20)
+                escaped.append(String.format("\\u%04x", (int) c));
+            else
+                escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
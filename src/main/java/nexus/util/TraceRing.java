@@ -0,0 +1,133 @@
+package nexus.util;
+
+import lombok.Getter;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size ring of trace events that any thread can record into without
+ * locking. Writers claim a slot by bumping a shared cursor, the oldest events
+ * are overwritten once the ring wraps. Every slot carries the sequence number
+ * of the event it holds, -1 while it's being written, so a reader copying the
+ * ring skips slots that are being overwritten under it instead of waiting
+ */
+public class TraceRing {
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private volatile long floor = 0; //Events before this were cleared
+    private final AtomicLongArray sequences;
+    private final String[] names;
+    private final byte[] categories;
+    private final long[] starts, durations, threads;
+
+    /**
+     * Creates a ring
+     *
+     * @param capacity the amount of events kept, rounded up to a power of two
+     */
+    public TraceRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, -1);
+        this.names = new String[size];
+        this.categories = new byte[size];
+        this.starts = new long[size];
+        this.durations = new long[size];
+        this.threads = new long[size];
+    }
+
+    /**
+     * Records an event
+     *
+     * @param name     the name, kept by reference so constant names don't allocate
+     * @param category the category
+     * @param start    the start in nanoseconds, on the {@link System#nanoTime()} clock
+     * @param duration the duration in nanoseconds
+     * @param thread   the track the event is drawn on, a thread id
+     */
+    public void record(String name, Category category, long start, long duration, long thread) {
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) sequence & mask;
+        sequences.set(slot, -1);
+        VarHandle.storeStoreFence(); //Readers have to see the slot as taken before any of the new values
+        names[slot] = name;
+        categories[slot] = (byte) category.ordinal();
+        starts[slot] = start;
+        durations[slot] = duration;
+        threads[slot] = thread;
+        sequences.set(slot, sequence);
+    }
+
+    /**
+     * @return the amount of events kept
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the amount of events recorded since the ring was cleared, including overwritten ones
+     */
+    public long getRecorded() {
+        return cursor.get() - floor;
+    }
+
+    /**
+     * Copies the events still in the ring, oldest first
+     *
+     * @param visitor gets every event that was fully written
+     * @return the amount of events visited
+     */
+    public int forEach(Visitor visitor) {
+        long end = cursor.get();
+        long start = Math.max(floor, end - getCapacity());
+        int visited = 0;
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            if (sequences.get(slot) != sequence)
+                continue;
+            String name = names[slot];
+            Category category = Category.VALUES[categories[slot]];
+            long eventStart = starts[slot], duration = durations[slot], thread = threads[slot];
+            VarHandle.acquireFence(); //The copy has to be read before the sequence is checked again
+            if (sequences.get(slot) != sequence)
+                continue;
+            visitor.visit(name, category, eventStart, duration, thread);
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * Forgets every event recorded so far, events recorded while this runs may be kept
+     */
+    public void clear() {
+        floor = cursor.get();
+    }
+
+    /**
+     * What an event measured
+     */
+    public enum Category {
+        PHASE("phase"), SYSTEM("system"), ASSET("asset"), UPLOAD("upload"), GPU("gpu"), GUI("gui");
+
+        private static final Category[] VALUES = values();
+        @Getter
+        private final String label;
+
+        Category(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Receives the events of a ring
+     */
+    public interface Visitor {
+        void visit(String name, Category category, long start, long duration, long thread);
+    }
+}
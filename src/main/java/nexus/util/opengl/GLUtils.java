@@ -1,4 +1,10 @@
 package nexus.util.opengl;
 
+import lombok.Getter;
+import lombok.Setter;
+
 public class GLUtils {
+    @Getter
+    @Setter
+    private static boolean headless = false; //No opengl context exists, assets skip their uploads
 }
@@ -0,0 +1,144 @@
+package nexus.util.opengl;
+
+import lombok.Getter;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * Times gpu work with timestamp queries. Every scope places a query when it
+ * begins and one when it ends, the results are read a few frames later when
+ * the gpu is done with them so reading them never stalls. The gpu clock is
+ * lined up with {@link System#nanoTime()} at the start of every frame, so the
+ * results can be drawn on the same timeline as the cpu timings
+ */
+public class GpuTimer {
+    private static final int FRAMES = StreamBuffer.FRAMES + 1; //Frames a query has to finish in before it's dropped
+    private static final int SCOPES = 64; //Scopes timed per frame, the rest are ignored
+    private final int[][] queries = new int[FRAMES][SCOPES * 2];
+    private final String[][] names = new String[FRAMES][SCOPES];
+    private final int[] counts = new int[FRAMES];
+    private final long[] cpuBase = new long[FRAMES], gpuBase = new long[FRAMES];
+    private int frame = -1;
+    private boolean open = false;
+    @Getter
+    private long dropped = 0; //Scopes that weren't finished in time or didn't fit in a frame
+
+    private GpuTimer() {
+        for (int[] frameQueries : queries)
+            GL15.glGenQueries(frameQueries);
+    }
+
+    /**
+     * Creates a timer on the current context
+     *
+     * @return the timer, or null if the driver doesn't support timer queries
+     */
+    public static GpuTimer create() {
+        if (GLUtils.isHeadless())
+            return null;
+        GLCapabilities capabilities = GL.getCapabilities();
+        if (!capabilities.OpenGL33 && !capabilities.GL_ARB_timer_query)
+            return null;
+        return new GpuTimer();
+    }
+
+    /**
+     * Starts the next frame, the scopes of the frame that used its queries
+     * before are read first
+     *
+     * @param results gets every scope that finished
+     */
+    public void beginFrame(Results results) {
+        if (open)
+            end();
+        frame = (frame + 1) % FRAMES;
+        resolve(frame, results);
+        cpuBase[frame] = System.nanoTime();
+        gpuBase[frame] = GL32.glGetInteger64(GL33.GL_TIMESTAMP);
+    }
+
+    /**
+     * Starts timing a scope, has to be ended before the next one begins
+     *
+     * @param name the scope name
+     */
+    public void begin(String name) {
+        if (frame < 0 || open)
+            return;
+        int scope = counts[frame];
+        if (scope >= SCOPES) {
+            dropped++;
+            return;
+        }
+        names[frame][scope] = name;
+        GL33.glQueryCounter(queries[frame][scope * 2], GL33.GL_TIMESTAMP);
+        open = true;
+    }
+
+    /**
+     * Ends the scope that was started last
+     */
+    public void end() {
+        if (!open)
+            return;
+        int scope = counts[frame]++;
+        GL33.glQueryCounter(queries[frame][scope * 2 + 1], GL33.GL_TIMESTAMP);
+        open = false;
+    }
+
+    /**
+     * Reads every scope that finished and drops the rest, the next frame starts
+     * over with empty frames. Used when timing stops, so no query is left pending
+     *
+     * @param results gets every scope that finished
+     */
+    public void drain(Results results) {
+        if (open)
+            end();
+        for (int index = 0; index < FRAMES; index++)
+            resolve(index, results);
+        frame = -1;
+    }
+
+    /**
+     * Reads the finished scopes of a frame and empties it
+     */
+    private void resolve(int index, Results results) {
+        int[] frameQueries = queries[index];
+        for (int scope = 0; scope < counts[index]; scope++) {
+            int last = frameQueries[scope * 2 + 1];
+            if (GL15.glGetQueryObjecti(last, GL15.GL_QUERY_RESULT_AVAILABLE) == GL15.GL_FALSE) {
+                dropped++;
+                continue;
+            }
+            long start = GL33.glGetQueryObjecti64(frameQueries[scope * 2], GL15.GL_QUERY_RESULT);
+            long end = GL33.glGetQueryObjecti64(last, GL15.GL_QUERY_RESULT);
+            results.resolved(names[index][scope], start - gpuBase[index] + cpuBase[index], end - start);
+            names[index][scope] = null;
+        }
+        counts[index] = 0;
+    }
+
+    /**
+     * Deletes the queries, the timer is used up after this
+     */
+    public void delete() {
+        for (int[] frameQueries : queries)
+            GL15.glDeleteQueries(frameQueries);
+    }
+
+    /**
+     * Receives the timings of finished scopes
+     */
+    public interface Results {
+        /**
+         * @param name     the scope name
+         * @param start    when the gpu started the scope, on the {@link System#nanoTime()} clock
+         * @param duration how long the gpu took in nanoseconds
+         */
+        void resolved(String name, long start, long duration);
+    }
+}
@@ -1,8 +1,16 @@
 package nexus.util.opengl;
 
 import lombok.Getter;
+import lombok.Setter;
+import nexus.core.math.Bounds;
+
+import org.lwjgl.BufferUtils;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 
 /**
@@ -29,6 +37,18 @@ public class RawMesh {
     private String name;
     @Getter
     private File file;
+    //Direct views into a mapped bin file, used instead of the arrays when present
+    @Getter
+    private FloatBuffer vertexData, normalData, tangentData, textureCoordData, boneWeightData;
+    @Getter
+    private IntBuffer indexData, boneIdData;
+    //Interleaved vertices read from a bin file, uploaded as they are
+    @Getter
+    private ByteBuffer interleavedData;
+    @Getter
+    private VertexLayout layout;
+    @Setter
+    private Bounds bounds;
 
     /**
      * Create a raw mesh that has a skeleton
@@ -58,6 +78,82 @@ public class RawMesh {
         this.skeleton = false;
     }
 
+    /**
+     * Create a mesh backed by direct buffers, for example views into a memory mapped bin file.
+     * The buffers are uploaded as is, so a null bone id buffer means the mesh has no skeleton
+     */
+    public RawMesh(String name, FloatBuffer vertices, FloatBuffer normals, FloatBuffer tangents, FloatBuffer textureCoords, IntBuffer indices, IntBuffer boneIds, FloatBuffer boneWeights) {
+        this.name = name;
+        this.vertexData = vertices;
+        this.normalData = normals;
+        this.tangentData = tangents;
+        this.textureCoordData = textureCoords;
+        this.indexData = indices;
+        this.boneIdData = boneIds;
+        this.boneWeightData = boneWeights;
+        this.skeleton = boneIds != null && boneWeights != null;
+    }
+
+    /**
+     * Create a mesh from interleaved vertices, for example a view into a memory mapped bin file
+     *
+     * @param name     the mesh name
+     * @param vertices the vertices packed in the layout
+     * @param layout   the layout of the vertices
+     * @param indices  the indices
+     */
+    public RawMesh(String name, ByteBuffer vertices, VertexLayout layout, IntBuffer indices) {
+        this.name = name;
+        this.interleavedData = vertices;
+        this.layout = layout;
+        this.indexData = indices;
+        this.skeleton = layout.isSkinned();
+    }
+
+    /**
+     * Checks to see if this mesh is backed by direct buffers instead of arrays
+     *
+     * @return true if the mesh data is buffered
+     */
+    public boolean isBuffered() {
+        return vertexData != null || interleavedData != null;
+    }
+
+    /**
+     * @return the amount of vertices in the mesh
+     */
+    public int getVertexCount() {
+        if (interleavedData != null)
+            return interleavedData.remaining() / layout.getStride();
+        return (vertexData != null ? vertexData.remaining() : vertices.length) / 4;
+    }
+
+    /**
+     * Interleaves the vertex arrays into a layout, used when writing bin files
+     *
+     * @param layout the layout to pack into
+     * @return the packed vertices
+     */
+    public ByteBuffer pack(VertexLayout layout) {
+        if (isBuffered())
+            throw new IllegalStateException("Only meshes backed by arrays can be packed, " + name + " is buffered");
+        return layout.pack(vertices, normals, tangents, textureCoords, boneWeights, boneIds);
+    }
+
+    /**
+     * Gets the bounds of the mesh, computing them from the vertices
+     * the first time if they weren't read from a bin file
+     *
+     * @return the bounds in mesh space
+     */
+    public Bounds getBounds() {
+        if (bounds == null && interleavedData != null)
+            bounds = Bounds.of(interleavedData.duplicate().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer(), layout.getStride() / Float.BYTES);
+        else if (bounds == null)
+            bounds = isBuffered() ? Bounds.of(vertexData.duplicate(), 4) : Bounds.of(vertices, 4);
+        return bounds;
+    }
+
     /**
      * Deserialize from a file
      *
@@ -68,32 +164,64 @@ public class RawMesh {
     }
 
     /**
-     * Convert the raw mesh into a vao which is readable by opengl
+     * Convert the raw mesh into a vao which is readable by opengl, meshes backed
+     * by arrays are interleaved into the quantized layout first
      * IMPORTANT - THIS MUCH BE RAN AFTER OPENGL HAS BEEN INITIALIZED
      *
      * @return a vao containing the proper data
      */
     public Vao toVao() {
-        Vao vao;
+        if (interleavedData != null)
+            return toInterleavedVao(interleavedData, layout, indexData);
+        if (isBuffered())
+            return toBufferedVao();
+        return toVao(VertexLayout.of(skeleton, true));
+    }
+
+    /**
+     * Convert the raw mesh into a vao, interleaving the vertex arrays into a layout
+     * IMPORTANT - THIS MUCH BE RAN AFTER OPENGL HAS BEEN INITIALIZED
+     *
+     * @param layout the layout to upload the vertices in
+     * @return a vao containing the proper data
+     */
+    public Vao toVao(VertexLayout layout) {
+        IntBuffer indexBuffer = BufferUtils.createIntBuffer(indices.length);
+        indexBuffer.put(indices).flip();
+        return toInterleavedVao(pack(layout), layout, indexBuffer);
+    }
+
+    /**
+     * Uploads interleaved vertices into a single vbo
+     */
+    private Vao toInterleavedVao(ByteBuffer vertices, VertexLayout layout, IntBuffer indices) {
+        Vao vao = Vao.create(layout.getAttributes().length);
+        vao.bind();
+        vao.createInterleavedAttributes(vertices, layout);
+        vao.createIndexBuffer(indices);
+        vao.setIndexCount(indices.remaining());
+        vao.unbind();
+        return vao;
+    }
+
+    /**
+     * Uploads the direct buffers straight to opengl without copying them into arrays first
+     *
+     * @return a vao containing the proper data
+     */
+    private Vao toBufferedVao() {
+        Vao vao = Vao.create(skeleton ? 6 : 4);
+        vao.bind();
+        vao.createAttribute(vertexData, 4);
+        vao.createAttribute(normalData, 3);
+        vao.createAttribute(tangentData, 3);
+        vao.createAttribute(textureCoordData, 2);
         if (skeleton) {
-            vao = Vao.create(6);
-            vao.bind();
-            vao.createAttribute(vertices, 4);
-            vao.createAttribute(normals, 3);
-            vao.createAttribute(tangents, 3);
-            vao.createAttribute(textureCoords, 2);
-            vao.createAttribute(boneWeights, 4);
-            vao.createIntAttribute(boneIds, 4);
-        } else {
-            vao = Vao.create(4);
-            vao.bind();
-            vao.createAttribute(vertices, 4);
-            vao.createAttribute(normals, 3);
-            vao.createAttribute(tangents, 3);
-            vao.createAttribute(textureCoords, 2);
+            vao.createAttribute(boneWeightData, 4);
+            vao.createIntAttribute(boneIdData, 4);
         }
-        vao.createIndexBuffer(indices);
-        vao.setIndexCount(indices.length);
+        vao.createIndexBuffer(indexData);
+        vao.setIndexCount(indexData.remaining());
         vao.unbind();
         return vao;
     }
@@ -0,0 +1,168 @@
+package nexus.util.opengl;
+
+import lombok.Getter;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A buffer for data that's rewritten every frame, like instance matrices. It's
+ * split into a {@link StreamRing} with a region per frame in flight. When the
+ * driver supports buffer storage the whole buffer is mapped once and written
+ * directly, fences keep the cpu from catching up with the gpu. Otherwise the
+ * buffer is orphaned whenever the ring wraps and written with sub data, which
+ * leaves the synchronization to the driver
+ */
+public class StreamBuffer {
+    public static final int FRAMES = 3; //Frames in flight, triple buffering
+    private static final int ALIGNMENT = 256; //Covers the offset alignment of every buffer target
+    private final int type;
+    @Getter
+    private final boolean persistent;
+    private int id;
+    private StreamRing ring;
+    private ByteBuffer mapped; //The whole buffer when it's persistently mapped
+    @Getter
+    private int growths = 0;
+
+    private StreamBuffer(int type, boolean persistent) {
+        this.type = type;
+        this.persistent = persistent;
+    }
+
+    /**
+     * Creates a streaming buffer, using persistent mapping when it's supported
+     *
+     * @param type       the buffer target
+     * @param regionSize the bytes each frame starts out with, grows when needed
+     * @return the new stream buffer
+     */
+    public static StreamBuffer create(int type, int regionSize) {
+        GLCapabilities capabilities = GL.getCapabilities();
+        StreamBuffer buffer = new StreamBuffer(type, capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage);
+        buffer.allocate(regionSize);
+        return buffer;
+    }
+
+    /**
+     * Creates the gl buffer and its ring
+     */
+    private void allocate(int regionSize) {
+        ring = new StreamRing(FRAMES, regionSize, ALIGNMENT, persistent ? FENCES : StreamRing.Fences.NONE);
+        id = GL15.glGenBuffers();
+        GL15.glBindBuffer(type, id);
+        if (persistent) {
+            int flags = GL30.GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT | GL44.GL_MAP_COHERENT_BIT;
+            GL44.glBufferStorage(type, ring.getSize(), flags);
+            mapped = GL30.glMapBufferRange(type, 0, ring.getSize(), flags);
+        } else {
+            GL15.glBufferData(type, ring.getSize(), GL15.GL_STREAM_DRAW);
+        }
+        GL15.glBindBuffer(type, 0);
+    }
+
+    /**
+     * Rounds a size up to the alignment every write starts at, used to work out
+     * how much a frame is going to need
+     *
+     * @param bytes the size of a write
+     * @return the space the write takes up
+     */
+    public static int padded(int bytes) {
+        return (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Starts a frame, growing the buffer first if the frame needs more than a region
+     *
+     * @param bytes the bytes this frame is going to write
+     */
+    public void begin(int bytes) {
+        if (bytes > ring.getRegionSize()) {
+            delete();
+            allocate(Math.max(bytes, ring.getRegionSize() * 2));
+            growths++;
+        }
+        if (ring.beginFrame() == 0 && !persistent) {
+            GL15.glBindBuffer(type, id);
+            GL15.glBufferData(type, ring.getSize(), GL15.GL_STREAM_DRAW);
+            GL15.glBindBuffer(type, 0);
+        }
+    }
+
+    /**
+     * Writes data into this frame's region
+     *
+     * @param data the data from its position to its limit, the position isn't moved
+     * @return the byte offset of the data in the buffer
+     */
+    public long write(FloatBuffer data) {
+        int bytes = data.remaining() * Float.BYTES;
+        long offset = ring.allocate(bytes);
+        if (offset < 0)
+            throw new IllegalStateException("Stream buffer region is full, " + bytes + " bytes don't fit in " + (ring.getRegionSize() - ring.getUsed()));
+        if (persistent) {
+            MemoryUtil.memCopy(MemoryUtil.memAddress(data), MemoryUtil.memAddress(mapped) + offset, bytes);
+        } else {
+            GL15.glBindBuffer(type, id);
+            GL15.glBufferSubData(type, offset, data);
+            GL15.glBindBuffer(type, 0);
+        }
+        return offset;
+    }
+
+    /**
+     * @return the frames that had to wait for the gpu to finish with their region
+     */
+    public long getStalls() {
+        return ring.getStalls();
+    }
+
+    public void bind() {
+        GL15.glBindBuffer(type, id);
+    }
+
+    public void unbind() {
+        GL15.glBindBuffer(type, 0);
+    }
+
+    public void delete() {
+        ring.release();
+        if (persistent) {
+            GL15.glBindBuffer(type, id);
+            GL15.glUnmapBuffer(type);
+            GL15.glBindBuffer(type, 0);
+            mapped = null;
+        }
+        GL15.glDeleteBuffers(id);
+    }
+
+    /**
+     * Gl sync objects
+     */
+    private static final StreamRing.Fences FENCES = new StreamRing.Fences() {
+        public long place() {
+            return GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        }
+
+        public boolean await(long fence) {
+            int status = GL32.glClientWaitSync(fence, 0, 0);
+            if (status == GL32.GL_ALREADY_SIGNALED || status == GL32.GL_CONDITION_SATISFIED)
+                return true;
+            while (status == GL32.GL_TIMEOUT_EXPIRED)
+                status = GL32.glClientWaitSync(fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, 1_000_000);
+            return false;
+        }
+
+        public void delete(long fence) {
+            GL32.glDeleteSync(fence);
+        }
+    };
+}
@@ -0,0 +1,152 @@
+package nexus.util.opengl;
+
+import lombok.Getter;
+
+/**
+ * The bookkeeping of a buffer streamed to every frame. The buffer is split into
+ * one region per frame in flight, each frame writes into the next region and a
+ * fence is placed once the frame's draws were issued. Before a region is written
+ * again its fence is waited on, so the cpu never overwrites data the gpu is still
+ * reading. Nothing here touches opengl, the fences come from a {@link Fences}
+ */
+public class StreamRing {
+    @Getter
+    private final int regions;
+    @Getter
+    private final int regionSize;
+    @Getter
+    private final int alignment;
+    private final Fences fences;
+    private final long[] pending; //The fence placed after each region was last used, 0 for none
+    @Getter
+    private int region = -1;
+    private int cursor = 0;
+    @Getter
+    private long frames, stalls; //Stalls count the frames that had to wait on the gpu
+
+    /**
+     * Creates a ring
+     *
+     * @param regions    the amount of frames in flight, 3 for triple buffering
+     * @param regionSize the bytes each frame can write, rounded up to the alignment
+     * @param alignment  every allocation starts at a multiple of this, a power of two
+     * @param fences     where the fences come from
+     */
+    public StreamRing(int regions, int regionSize, int alignment, Fences fences) {
+        this.regions = regions;
+        this.alignment = alignment;
+        this.regionSize = align(regionSize);
+        this.fences = fences;
+        this.pending = new long[regions];
+    }
+
+    /**
+     * @return the size of the whole buffer in bytes
+     */
+    public long getSize() {
+        return (long) regions * regionSize;
+    }
+
+    /**
+     * Starts the next frame. The frame that used the current region has been
+     * issued by now, so it's fenced, then the next region is waited on and emptied
+     *
+     * @return the region the frame writes to
+     */
+    public int beginFrame() {
+        if (region >= 0)
+            pending[region] = fences.place();
+        region = (region + 1) % regions;
+        if (pending[region] != 0) {
+            if (!fences.await(pending[region]))
+                stalls++;
+            fences.delete(pending[region]);
+            pending[region] = 0;
+        }
+        cursor = 0;
+        frames++;
+        return region;
+    }
+
+    /**
+     * Reserves space in the current region
+     *
+     * @param bytes the amount of bytes
+     * @return the offset from the start of the buffer, or -1 if the region is full
+     */
+    public long allocate(int bytes) {
+        int start = align(cursor);
+        if (region < 0 || start + bytes > regionSize)
+            return -1;
+        cursor = start + bytes;
+        return (long) region * regionSize + start;
+    }
+
+    /**
+     * @return the bytes used in the current region
+     */
+    public int getUsed() {
+        return cursor;
+    }
+
+    /**
+     * Deletes every fence still pending, the ring is used up after this
+     */
+    public void release() {
+        for (int i = 0; i < regions; i++) {
+            if (pending[i] != 0)
+                fences.delete(pending[i]);
+            pending[i] = 0;
+        }
+    }
+
+    /**
+     * Rounds up to the alignment
+     */
+    private int align(int bytes) {
+        return (bytes + alignment - 1) & -alignment;
+    }
+
+    /**
+     * Places and waits on gpu fences
+     */
+    public interface Fences {
+        /**
+         * Fences for the ring that never wait, for buffers whose memory the driver already protects
+         */
+        Fences NONE = new Fences() {
+            public long place() {
+                return 0;
+            }
+
+            public boolean await(long fence) {
+                return true;
+            }
+
+            public void delete(long fence) {
+            }
+        };
+
+        /**
+         * Places a fence after every command issued so far
+         *
+         * @return the fence, 0 if none was placed
+         */
+        long place();
+
+        /**
+         * Blocks until the gpu passed the fence
+         *
+         * @param fence the fence
+         * @return true if it was already passed, false if this had to wait
+         */
+        boolean await(long fence);
+
+        /**
+         * Deletes a fence that was placed
+         *
+         * @param fence the fence
+         */
+        void delete(long fence);
+    }
+}
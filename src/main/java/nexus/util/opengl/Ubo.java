@@ -0,0 +1,57 @@
+package nexus.util.opengl;
+
+import lombok.Getter;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A uniform buffer bound to a fixed binding point, every program whose block
+ * is wired to that binding point reads from it
+ */
+public class Ubo {
+    private final int id;
+    @Getter
+    private final int binding;
+    @Getter
+    private final int size;
+
+    private Ubo(int id, int binding, int size) {
+        this.id = id;
+        this.binding = binding;
+        this.size = size;
+    }
+
+    /**
+     * Creates a uniform buffer and binds it to the binding point
+     *
+     * @param binding the binding point
+     * @param size    the size of the block in bytes
+     * @return the new ubo
+     */
+    public static Ubo create(int binding, int size) {
+        int id = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, id);
+        GL15.glBufferData(GL31.GL_UNIFORM_BUFFER, size, GL15.GL_DYNAMIC_DRAW);
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, 0);
+        GL30.glBindBufferBase(GL31.GL_UNIFORM_BUFFER, binding, id);
+        return new Ubo(id, binding, size);
+    }
+
+    /**
+     * Replaces the contents of the block
+     *
+     * @param data the data laid out as std140
+     */
+    public void update(FloatBuffer data) {
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, id);
+        GL15.glBufferSubData(GL31.GL_UNIFORM_BUFFER, 0, data);
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, 0);
+    }
+
+    public void delete() {
+        GL15.glDeleteBuffers(id);
+    }
+}
@@ -0,0 +1,52 @@
+package nexus.util.opengl;
+
+import lombok.Getter;
+
+/**
+ * A handle to a single uniform of a shader program. The location is resolved
+ * once when the program links and the handle keeps a copy of the last value it
+ * uploaded, so loading the value the program already holds doesn't call opengl.
+ * Values must only be loaded while the owning program is in use
+ */
+public abstract class Uniform {
+    @Getter
+    private final String name;
+    @Getter
+    protected int location = -1;
+    protected boolean synced = false; //True once the shadow copy matches the program
+    protected final UniformStats stats;
+
+    protected Uniform(String name, UniformStats stats) {
+        this.name = name;
+        this.stats = stats;
+    }
+
+    /**
+     * Sets the location after the program links, the shadow copy no longer
+     * matches the program so the next load is always issued
+     *
+     * @param location the uniform location, -1 if the program doesn't use it
+     */
+    public void resolve(int location) {
+        this.location = location;
+        this.synced = false;
+    }
+
+    /**
+     * Checks if a load should be skipped, counting it when it is
+     *
+     * @param unchanged true if the value equals the shadow copy
+     * @return true if the load can be skipped
+     */
+    protected boolean skip(boolean unchanged) {
+        if (location == -1)
+            return true;
+        if (synced && unchanged) {
+            stats.skip();
+            return true;
+        }
+        synced = true;
+        stats.issue();
+        return false;
+    }
+}
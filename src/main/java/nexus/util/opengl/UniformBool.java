@@ -0,0 +1,21 @@
+package nexus.util.opengl;
+
+import org.lwjgl.opengl.GL20;
+
+/**
+ * A boolean uniform, uploaded as an int
+ */
+public class UniformBool extends Uniform {
+    private boolean shadow;
+
+    public UniformBool(String name, UniformStats stats) {
+        super(name, stats);
+    }
+
+    public void load(boolean value) {
+        if (skip(shadow == value))
+            return;
+        shadow = value;
+        GL20.glUniform1i(location, value ? 1 : 0);
+    }
+}
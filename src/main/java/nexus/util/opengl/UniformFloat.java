@@ -0,0 +1,21 @@
+package nexus.util.opengl;
+
+import org.lwjgl.opengl.GL20;
+
+/**
+ * A float uniform
+ */
+public class UniformFloat extends Uniform {
+    private float shadow;
+
+    public UniformFloat(String name, UniformStats stats) {
+        super(name, stats);
+    }
+
+    public void load(float value) {
+        if (skip(Float.floatToIntBits(shadow) == Float.floatToIntBits(value)))
+            return;
+        shadow = value;
+        GL20.glUniform1f(location, value);
+    }
+}
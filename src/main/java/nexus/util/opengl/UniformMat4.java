@@ -0,0 +1,27 @@
+package nexus.util.opengl;
+
+import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL20;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A mat4 uniform
+ */
+public class UniformMat4 extends Uniform {
+    private final Matrix4f shadow = new Matrix4f();
+    private final FloatBuffer buffer = BufferUtils.createFloatBuffer(16);
+
+    public UniformMat4(String name, UniformStats stats) {
+        super(name, stats);
+    }
+
+    public void load(Matrix4f value) {
+        if (skip(shadow.equals(value)))
+            return;
+        shadow.set(value);
+        value.get(buffer);
+        GL20.glUniformMatrix4fv(location, false, buffer);
+    }
+}
@@ -0,0 +1,27 @@
+package nexus.util.opengl;
+
+import org.lwjgl.opengl.GL20;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A mat4[] uniform. Arrays like joint palettes change nearly every load, so
+ * there's no shadow copy and every load is issued
+ */
+public class UniformMat4Array extends Uniform {
+
+    public UniformMat4Array(String name, UniformStats stats) {
+        super(name, stats);
+    }
+
+    /**
+     * Uploads the buffer as is without any copying
+     *
+     * @param matrices the packed matrices, 16 floats each
+     */
+    public void load(FloatBuffer matrices) {
+        if (skip(false))
+            return;
+        GL20.glUniformMatrix4fv(location, false, matrices);
+    }
+}
@@ -0,0 +1,30 @@
+package nexus.util.opengl;
+
+import lombok.Getter;
+
+/**
+ * Counts the uniform uploads of a shader program, uploads of a value the
+ * program already holds are skipped instead of issued
+ */
+public class UniformStats {
+    @Getter
+    private long issued = 0;
+    @Getter
+    private long skipped = 0;
+
+    void issue() {
+        issued++;
+    }
+
+    void skip() {
+        skipped++;
+    }
+
+    /**
+     * Resets both counters
+     */
+    public void reset() {
+        issued = 0;
+        skipped = 0;
+    }
+}
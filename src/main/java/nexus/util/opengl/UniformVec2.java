@@ -0,0 +1,22 @@
+package nexus.util.opengl;
+
+import org.joml.Vector2f;
+import org.lwjgl.opengl.GL20;
+
+/**
+ * A vec2 uniform
+ */
+public class UniformVec2 extends Uniform {
+    private final Vector2f shadow = new Vector2f();
+
+    public UniformVec2(String name, UniformStats stats) {
+        super(name, stats);
+    }
+
+    public void load(Vector2f value) {
+        if (skip(shadow.equals(value)))
+            return;
+        shadow.set(value);
+        GL20.glUniform2f(location, value.x, value.y);
+    }
+}
@@ -0,0 +1,26 @@
+package nexus.util.opengl;
+
+import org.joml.Vector3f;
+import org.lwjgl.opengl.GL20;
+
+/**
+ * A vec3 uniform
+ */
+public class UniformVec3 extends Uniform {
+    private final Vector3f shadow = new Vector3f();
+
+    public UniformVec3(String name, UniformStats stats) {
+        super(name, stats);
+    }
+
+    public void load(Vector3f value) {
+        load(value.x, value.y, value.z);
+    }
+
+    public void load(float x, float y, float z) {
+        if (skip(shadow.x == x && shadow.y == y && shadow.z == z))
+            return;
+        shadow.set(x, y, z);
+        GL20.glUniform3f(location, x, y, z);
+    }
+}
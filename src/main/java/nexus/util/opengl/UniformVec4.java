@@ -0,0 +1,22 @@
+package nexus.util.opengl;
+
+import org.joml.Vector4f;
+import org.lwjgl.opengl.GL20;
+
+/**
+ * A vec4 uniform
+ */
+public class UniformVec4 extends Uniform {
+    private final Vector4f shadow = new Vector4f();
+
+    public UniformVec4(String name, UniformStats stats) {
+        super(name, stats);
+    }
+
+    public void load(Vector4f value) {
+        if (skip(shadow.equals(value)))
+            return;
+        shadow.set(value);
+        GL20.glUniform4f(location, value.x, value.y, value.z, value.w);
+    }
+}
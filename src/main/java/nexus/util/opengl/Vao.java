@@ -5,7 +5,9 @@ import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL33;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
@@ -23,6 +25,7 @@ public class Vao {
     private int indexCount;
     private int attributes;
     private int attribPtr = 0;
+    private int instanceLocation = -1;
 
     private Vao(int id, int attributes) {
         this.id = id;
@@ -57,6 +60,9 @@ public class Vao {
         for (int i = 0; i < attributes; i++) {
             GL20.glEnableVertexAttribArray(i);
         }
+        if (instanceLocation >= 0)
+            for (int i = 0; i < 4; i++)
+                GL20.glEnableVertexAttribArray(instanceLocation + i);
     }
 
     /**
@@ -66,6 +72,9 @@ public class Vao {
         for (int i = 0; i < attributes; i++) {
             GL20.glDisableVertexAttribArray(i);
         }
+        if (instanceLocation >= 0)
+            for (int i = 0; i < 4; i++)
+                GL20.glDisableVertexAttribArray(instanceLocation + i);
         GL30.glBindVertexArray(0);
     }
 
@@ -90,6 +99,23 @@ public class Vao {
         indexVbo.storeData(data);
     }
 
+    /**
+     * Stores interleaved vertices in a single vbo and points every attribute of
+     * the layout into it
+     *
+     * @param data   the vertices packed in the layout
+     * @param layout the layout of the vertices
+     */
+    public void createInterleavedAttributes(ByteBuffer data, VertexLayout layout) {
+        Vbo dataVbo = Vbo.create(GL15.GL_ARRAY_BUFFER);
+        dataVbo.bind();
+        dataVbo.storeData(data);
+        layout.apply();
+        dataVbo.unbind();
+        dataVbos.add(dataVbo);
+        attribPtr += layout.getAttributes().length;
+    }
+
     /**
      * Creates a vbo to store some specific data into. This is used for rendering
      *
@@ -150,6 +176,36 @@ public class Vao {
         dataVbos.add(dataVbo);
     }
 
+    /**
+     * Reads a mat4 per instance, a matrix takes up four attribute locations
+     * starting at the given one. Where the matrices are read from is set before
+     * each draw with {@link #pointInstanceMatrices(StreamBuffer, long)}
+     *
+     * @param location the first attribute location
+     */
+    public void enableInstanceMatrices(int location) {
+        if (instanceLocation == location)
+            return;
+        GL30.glBindVertexArray(id);
+        for (int i = 0; i < 4; i++)
+            GL33.glVertexAttribDivisor(location + i, 1);
+        GL30.glBindVertexArray(0);
+        this.instanceLocation = location;
+    }
+
+    /**
+     * Points the instance matrices at an offset in a stream buffer, the vao has to be bound
+     *
+     * @param buffer the buffer holding the matrices
+     * @param offset the byte offset of the first matrix
+     */
+    public void pointInstanceMatrices(StreamBuffer buffer, long offset) {
+        buffer.bind();
+        for (int i = 0; i < 4; i++)
+            GL20.glVertexAttribPointer(instanceLocation + i, 4, GL11.GL_FLOAT, false, 16 * BYTES_PER_FLOAT, offset + (long) i * 4 * BYTES_PER_FLOAT);
+        buffer.unbind();
+    }
+
     /**
      * Unloads the vao from memory
      */
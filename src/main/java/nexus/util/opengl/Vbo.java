@@ -1,8 +1,8 @@
 package nexus.util.opengl;
 
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL15;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 
@@ -46,10 +46,7 @@ public class Vbo {
      * @param data the data that is to be put into the vbo
      */
     public void storeData(float[] data) {
-        FloatBuffer buffer = BufferUtils.createFloatBuffer(data.length);
-        buffer.put(data);
-        buffer.flip();
-        storeData(buffer);
+        GL15.glBufferData(type, data, GL15.GL_STATIC_DRAW);
     }
 
     /**
@@ -58,10 +55,7 @@ public class Vbo {
      * @param data the data that is to be put into the vbo
      */
     public void storeData(int[] data) {
-        IntBuffer buffer = BufferUtils.createIntBuffer(data.length);
-        buffer.put(data);
-        buffer.flip();
-        storeData(buffer);
+        GL15.glBufferData(type, data, GL15.GL_STATIC_DRAW);
     }
 
     /**
@@ -73,6 +67,15 @@ public class Vbo {
         GL15.glBufferData(type, data, GL15.GL_STATIC_DRAW);
     }
 
+    /**
+     * Stores raw bytes into this vbo, like interleaved vertices
+     *
+     * @param data the data that is to be put into the vbo
+     */
+    public void storeData(ByteBuffer data) {
+        GL15.glBufferData(type, data, GL15.GL_STATIC_DRAW);
+    }
+
     public void storeData(FloatBuffer data) {
         GL15.glBufferData(type, data, GL15.GL_STATIC_DRAW);
     }
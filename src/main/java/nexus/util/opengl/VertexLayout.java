@@ -0,0 +1,293 @@
+package nexus.util.opengl;
+
+import lombok.Getter;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Describes how a mesh's vertices are interleaved into a single buffer. The same
+ * layout packs the vertices written to bin files and points the vao attributes at
+ * them, so a mapped bin file is uploaded without touching the vertices. The
+ * quantized layouts store normals and tangents as normalized shorts, texture
+ * coordinates as half floats and the joint weights and indices as bytes. The
+ * attributes keep the locations the shaders bind, positions are always floats
+ */
+public class VertexLayout {
+    public static final int POSITION = 0, NORMAL = 1, TANGENT = 2, TEXTURE_COORDS = 3, JOINT_WEIGHTS = 4, JOINT_INDICES = 5;
+    private static final VertexLayout[] LAYOUTS = {
+            new VertexLayout(false, false), new VertexLayout(true, false),
+            new VertexLayout(false, true), new VertexLayout(true, true)
+    };
+    @Getter
+    private final boolean skinned, quantized;
+    @Getter
+    private final Attribute[] attributes;
+    @Getter
+    private final int stride;
+
+    private VertexLayout(boolean skinned, boolean quantized) {
+        this.skinned = skinned;
+        this.quantized = quantized;
+        this.attributes = new Attribute[skinned ? 6 : 4];
+        int offset = 0;
+        attributes[POSITION] = new Attribute(POSITION, 3, Encoding.FLOAT, offset);
+        offset += attributes[POSITION].getBytes();
+        attributes[NORMAL] = new Attribute(NORMAL, quantized ? 4 : 3, quantized ? Encoding.SHORT_NORM : Encoding.FLOAT, offset);
+        offset += attributes[NORMAL].getBytes();
+        attributes[TANGENT] = new Attribute(TANGENT, quantized ? 4 : 3, quantized ? Encoding.SHORT_NORM : Encoding.FLOAT, offset);
+        offset += attributes[TANGENT].getBytes();
+        attributes[TEXTURE_COORDS] = new Attribute(TEXTURE_COORDS, 2, quantized ? Encoding.HALF : Encoding.FLOAT, offset);
+        offset += attributes[TEXTURE_COORDS].getBytes();
+        if (skinned) {
+            attributes[JOINT_WEIGHTS] = new Attribute(JOINT_WEIGHTS, 4, quantized ? Encoding.UBYTE_NORM : Encoding.FLOAT, offset);
+            offset += attributes[JOINT_WEIGHTS].getBytes();
+            attributes[JOINT_INDICES] = new Attribute(JOINT_INDICES, 4, quantized ? Encoding.UBYTE : Encoding.INT, offset);
+            offset += attributes[JOINT_INDICES].getBytes();
+        }
+        this.stride = offset;
+    }
+
+    /**
+     * Gets a layout
+     *
+     * @param skinned   if true the vertices have joint weights and indices
+     * @param quantized if true the smaller encodings are used
+     * @return the layout
+     */
+    public static VertexLayout of(boolean skinned, boolean quantized) {
+        return LAYOUTS[getId(skinned, quantized)];
+    }
+
+    /**
+     * Gets a layout by the id stored in bin files
+     *
+     * @param id the layout id
+     * @return the layout, or null if the id is unknown
+     */
+    public static VertexLayout get(int id) {
+        return id >= 0 && id < LAYOUTS.length ? LAYOUTS[id] : null;
+    }
+
+    /**
+     * @return the id of this layout, stored in bin files
+     */
+    public int getId() {
+        return getId(skinned, quantized);
+    }
+
+    private static int getId(boolean skinned, boolean quantized) {
+        return (skinned ? 1 : 0) | (quantized ? 2 : 0);
+    }
+
+    /**
+     * Gets the bytes per vertex of the old layout, a separate float vbo per
+     * attribute with the position padded to four floats
+     *
+     * @param skinned if true the vertices have joint weights and indices
+     * @return the bytes per vertex
+     */
+    public static int getSeparateStride(boolean skinned) {
+        return (4 + 3 + 3 + 2) * Float.BYTES + (skinned ? 8 * Float.BYTES : 0);
+    }
+
+    /**
+     * Points the attributes at the bound vbo, the vao has to be bound
+     */
+    public void apply() {
+        for (Attribute attribute : attributes) {
+            Encoding encoding = attribute.getEncoding();
+            if (encoding.integer)
+                GL30.glVertexAttribIPointer(attribute.getLocation(), attribute.getComponents(), encoding.glType, stride, attribute.getOffset());
+            else
+                GL20.glVertexAttribPointer(attribute.getLocation(), attribute.getComponents(), encoding.glType, encoding.normalized, stride, attribute.getOffset());
+        }
+    }
+
+    /**
+     * Interleaves a mesh's vertex arrays into this layout
+     *
+     * @param positions     4 floats per vertex, w is dropped
+     * @param normals       3 floats per vertex
+     * @param tangents      3 floats per vertex
+     * @param textureCoords 2 floats per vertex
+     * @param weights       4 floats per vertex, ignored unless skinned
+     * @param joints        4 ints per vertex, ignored unless skinned
+     * @return the packed vertices in a direct buffer, little endian
+     */
+    public ByteBuffer pack(float[] positions, float[] normals, float[] tangents, float[] textureCoords, float[] weights, int[] joints) {
+        int count = positions.length / 4;
+        ByteBuffer data = BufferUtils.createByteBuffer(count * stride).order(ByteOrder.LITTLE_ENDIAN);
+        for (int v = 0; v < count; v++) {
+            int base = v * stride;
+            for (int c = 0; c < 3; c++)
+                data.putFloat(base + c * 4, positions[v * 4 + c]);
+            put(data, base, attributes[NORMAL], normals, v * 3, 3);
+            put(data, base, attributes[TANGENT], tangents, v * 3, 3);
+            put(data, base, attributes[TEXTURE_COORDS], textureCoords, v * 2, 2);
+            if (!skinned)
+                continue;
+            if (quantized)
+                putWeights(data, base + attributes[JOINT_WEIGHTS].getOffset(), weights, v * 4);
+            else
+                put(data, base, attributes[JOINT_WEIGHTS], weights, v * 4, 4);
+            int offset = base + attributes[JOINT_INDICES].getOffset();
+            for (int c = 0; c < 4; c++) {
+                int joint = joints[v * 4 + c];
+                if (quantized) {
+                    if (joint < 0 || joint > 255)
+                        throw new IllegalArgumentException("Joint index " + joint + " doesn't fit in a byte");
+                    data.put(offset + c, (byte) joint);
+                } else {
+                    data.putInt(offset + c * 4, joint);
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Writes a float attribute in its encoding, components past the source's are zero
+     */
+    private static void put(ByteBuffer data, int base, Attribute attribute, float[] source, int start, int sourceComponents) {
+        int offset = base + attribute.getOffset();
+        for (int c = 0; c < attribute.getComponents(); c++) {
+            float value = c < sourceComponents ? source[start + c] : 0;
+            switch (attribute.getEncoding()) {
+                case FLOAT:
+                    data.putFloat(offset + c * 4, value);
+                    break;
+                case SHORT_NORM:
+                    data.putShort(offset + c * 2, (short) Math.round(Math.max(-1, Math.min(1, value)) * Short.MAX_VALUE));
+                    break;
+                case HALF:
+                    data.putShort(offset + c * 2, toHalf(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException(attribute.getEncoding() + " isn't a float encoding");
+            }
+        }
+    }
+
+    /**
+     * Writes the joint weights as bytes, the rounding error goes to the largest
+     * weight so the bytes still add up to exactly one
+     */
+    private static void putWeights(ByteBuffer data, int offset, float[] weights, int start) {
+        int total = 0, largest = 0;
+        int[] bytes = new int[4];
+        for (int c = 0; c < 4; c++) {
+            bytes[c] = Math.round(Math.max(0, Math.min(1, weights[start + c])) * 255);
+            total += bytes[c];
+            if (bytes[c] > bytes[largest])
+                largest = c;
+        }
+        if (total > 0)
+            bytes[largest] = Math.max(0, bytes[largest] + 255 - total);
+        for (int c = 0; c < 4; c++)
+            data.put(offset + c, (byte) bytes[c]);
+    }
+
+    /**
+     * Converts a float to a half float, rounding to the nearest
+     *
+     * @param value the float
+     * @return the half float bits
+     */
+    public static short toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xff) - 127 + 15;
+        int mantissa = bits & 0x7fffff;
+        if (exponent >= 31) //Too large, or infinity and nan
+            return (short) (sign | 0x7c00 | (((bits >>> 23) & 0xff) == 0xff && mantissa != 0 ? 0x200 : 0));
+        if (exponent <= 0) { //Subnormal or zero
+            if (exponent < -10)
+                return (short) sign;
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+            if (((mantissa >> (shift - 1)) & 1) != 0)
+                half++;
+            return (short) (sign | half);
+        }
+        int half = sign | (exponent << 10) | (mantissa >> 13);
+        if ((mantissa & 0x1000) != 0)
+            half++; //Carries into the exponent when the mantissa overflows, which is still correct
+        return (short) half;
+    }
+
+    /**
+     * Converts a half float back to a float
+     *
+     * @param half the half float bits
+     * @return the float
+     */
+    public static float fromHalf(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+        if (exponent == 0) {
+            float value = mantissa / 1024f / 16384f;
+            return sign != 0 ? -value : value;
+        }
+        if (exponent == 31)
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+
+    /**
+     * How an attribute's components are stored
+     */
+    public enum Encoding {
+        FLOAT(GL11.GL_FLOAT, 4, false, false),
+        SHORT_NORM(GL11.GL_SHORT, 2, true, false),
+        HALF(GL30.GL_HALF_FLOAT, 2, false, false),
+        UBYTE_NORM(GL11.GL_UNSIGNED_BYTE, 1, true, false),
+        UBYTE(GL11.GL_UNSIGNED_BYTE, 1, false, true),
+        INT(GL11.GL_INT, 4, false, true);
+
+        private final int glType;
+        @Getter
+        private final int bytes;
+        private final boolean normalized, integer;
+
+        Encoding(int glType, int bytes, boolean normalized, boolean integer) {
+            this.glType = glType;
+            this.bytes = bytes;
+            this.normalized = normalized;
+            this.integer = integer;
+        }
+    }
+
+    /**
+     * A single attribute of the layout
+     */
+    public static class Attribute {
+        @Getter
+        private final int location, components;
+        @Getter
+        private final Encoding encoding;
+        @Getter
+        private final int offset;
+
+        private Attribute(int location, int components, Encoding encoding, int offset) {
+            this.location = location;
+            this.components = components;
+            this.encoding = encoding;
+            this.offset = offset;
+        }
+
+        /**
+         * @return the bytes the attribute takes up in a vertex
+         */
+        public int getBytes() {
+            return components * encoding.bytes;
+        }
+    }
+}
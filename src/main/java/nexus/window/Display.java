@@ -3,6 +3,7 @@ package nexus.window;
 import lombok.Getter;
 import nexus.context.Context;
 import nexus.engine.CoreEngine;
+import nexus.engine.FrameLoop;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.PointerBuffer;
 import org.lwjgl.glfw.GLFWErrorCallback;
@@ -127,20 +128,20 @@ public class Display {
     }
 
     /**
-     * The main game loop
+     * The main game loop, runs the ticks that are due and renders a frame
      */
     private void mainLoop(CoreEngine coreEngine) {
-        double time = 0;
+        FrameLoop loop = coreEngine.getFrameLoop();
         while (!glfwWindowShouldClose(window)) {
-            // Count frame delta value
-            final double currentTime = glfwGetTime();
-            final double deltaTime = (time > 0) ? (currentTime - time) : 1f / 60f;
-            time = currentTime;
+            int ticks = loop.advance();
+            for (int i = 0; i < ticks; i++)
+                coreEngine.tick(loop.getTickDelta());
 
-            guiState.render(deltaTime, coreEngine);
+            guiState.render(loop.getFrameDelta(), coreEngine);
 
             glfwSwapBuffers(window); // swap the color buffers
             glfwPollEvents();
+            loop.pace();
         }
     }
 
@@ -8,6 +8,8 @@ import imgui.enums.*;
 import imgui.gl3.ImGuiImplGl3;
 import nexus.context.Context;
 import nexus.engine.CoreEngine;
+import nexus.util.Profiler;
+import nexus.util.TraceRing;
 
 import java.util.function.Consumer;
 
@@ -120,11 +122,15 @@ public class GuiState {
 
         coreEngine.render((float) deltaTime);
 
+        long start = Profiler.begin();
+        Profiler.beginGpu("ImGui");
         ImGui.newFrame();
         coreEngine.renderUi((float) deltaTime);
         ImGui.render();
 
         imGuiGl3.render(ImGui.getDrawData());
+        Profiler.endGpu();
+        Profiler.end("ImGui", TraceRing.Category.GUI, start);
 
     }
 }
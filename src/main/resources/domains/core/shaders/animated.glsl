@@ -1,6 +1,7 @@
-//define_uniforms: modelMatrix, projectionMatrix, viewMatrix, jointsMatrix
+//define_uniforms: modelMatrix, jointsMatrix
 //define_samplers: diffuse 0
 //define_binds: vertex 0, normal 1, tangent 2, textureCoords 3, jointWeights 4, jointIndices 5
+//define_blocks: Camera 0
 
 //VERTEX_SHADER
 #version 400 core
@@ -18,8 +19,12 @@ out vec2 pass_textureCoords;
 
 out vec4 pass_jointWeight;
 uniform mat4 modelMatrix;
-uniform mat4 projectionMatrix;
-uniform mat4 viewMatrix;
+layout(std140) uniform Camera {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec4 cameraRight;
+    vec4 cameraUp;
+};
 uniform mat4 jointsMatrix[MAX_JOINTS];
 
 void main(){
@@ -1,20 +1,23 @@
-//define_uniforms: cameraRight, cameraUp, center, size, projectionMatrix, viewMatrix
+//define_uniforms: center, size
 //define_samplers: diffuse 0
 //define_binds: vertex 0, textureCoords 1
+//define_blocks: Camera 0
 
 //VERTEX_SHADER
 #version 400 core
 in vec3 vertex;
 in vec2 textureCoords;
 out vec2 pass_textureCoords;
-uniform mat4 projectionMatrix;
-uniform mat4 viewMatrix;
-uniform vec3 cameraRight;
-uniform vec3 cameraUp;
+layout(std140) uniform Camera {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec4 cameraRight;
+    vec4 cameraUp;
+};
 uniform vec3 center;
 uniform vec3 size;
 void main(){
-    vec3 pos = center + cameraRight * vertex.x * size.x + cameraUp * vertex.y * size.y;
+    vec3 pos = center + cameraRight.xyz * vertex.x * size.x + cameraUp.xyz * vertex.y * size.y;
     gl_Position = projectionMatrix * viewMatrix * vec4(pos, 1.0);
     pass_textureCoords = textureCoords;
 
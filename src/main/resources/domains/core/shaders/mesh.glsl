@@ -1,6 +1,7 @@
-//define_uniforms: modelMatrix, projectionMatrix, viewMatrix
+//define_uniforms: modelMatrix
 //define_samplers: diffuse 0
 //define_binds: vertex 0, normal 1, tangent 2, textureCoords 3
+//define_blocks: Camera 0
 
 //VERTEX_SHADER
 #version 400 core
@@ -12,8 +13,12 @@ in vec2 textureCoords;
 out vec2 pass_textureCoords;
 
 uniform mat4 modelMatrix;
-uniform mat4 projectionMatrix;
-uniform mat4 viewMatrix;
+layout(std140) uniform Camera {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec4 cameraRight;
+    vec4 cameraUp;
+};
 
 void main(){
     mat4 modelViewMatrix =  viewMatrix * modelMatrix;
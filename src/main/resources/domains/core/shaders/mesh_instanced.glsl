@@ -0,0 +1,37 @@
+//define_samplers: diffuse 0
+//define_binds: vertex 0, normal 1, tangent 2, textureCoords 3, instanceMatrix 8
+//define_blocks: Camera 0
+
+//VERTEX_SHADER
+#version 400 core
+
+in vec4 vertex;
+in vec3 normal;
+in vec3 tangent;
+in vec2 textureCoords;
+in mat4 instanceMatrix;
+out vec2 pass_textureCoords;
+
+layout(std140) uniform Camera {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec4 cameraRight;
+    vec4 cameraUp;
+};
+
+void main(){
+    mat4 modelViewMatrix =  viewMatrix * instanceMatrix;
+    vec4 mvPos = modelViewMatrix * vertex;
+    gl_Position = projectionMatrix * mvPos;
+    pass_textureCoords = textureCoords;
+}
+
+//FRAG_SHADER
+#version 400 core
+in vec2 pass_textureCoords;
+out vec4 out_Color;
+uniform sampler2D diffuse;
+
+void main(){
+    out_Color = texture(diffuse, pass_textureCoords);
+}
\ No newline at end of file
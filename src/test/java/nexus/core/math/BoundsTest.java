@@ -0,0 +1,51 @@
+package nexus.core.math;
+
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link Bounds#toWorldSphere} follows the world matrix, including the
+ * scale a child inherits from its parent
+ */
+public class BoundsTest {
+    private static final float EPSILON = 1e-4f;
+    private final Bounds cube = new Bounds(new Vector3f(-1), new Vector3f(1), new Vector3f(), (float) Math.sqrt(3));
+
+    @Test
+    public void scalesRadiusByLongestAxis() {
+        Transform transform = new Transform();
+        transform.setPosition(5, 0, 0);
+        transform.setScale(1, 4, 2);
+        Vector4f sphere = cube.toWorldSphere(transform.getMatrix(), new Vector4f());
+        assertEquals(5, sphere.x, EPSILON);
+        assertEquals(4 * Math.sqrt(3), sphere.w, EPSILON);
+    }
+
+    @Test
+    public void childInheritsParentScale() {
+        Transform parent = new Transform();
+        parent.setPosition(50, 0, 0);
+        parent.setScale(10, 10, 10);
+        Transform child = new Transform();
+        child.setPosition(1, 0, 0);
+        child.setAttached(true);
+        child.updateMatrix();
+        child.updateWorld(parent.getMatrix(), null);
+        Vector4f sphere = cube.toWorldSphere(child.getMatrix(), new Vector4f());
+        assertEquals(60, sphere.x, EPSILON);
+        assertEquals(0, sphere.y, EPSILON);
+        assertEquals(10 * Math.sqrt(3), sphere.w, EPSILON);
+    }
+
+    @Test
+    public void rotationKeepsRadius() {
+        Transform transform = new Transform();
+        transform.setRotation(0.3f, 1.2f, -0.7f);
+        transform.setScale(3, 3, 3);
+        Vector4f sphere = cube.toWorldSphere(transform.getMatrix(), new Vector4f());
+        assertEquals(3 * Math.sqrt(3), sphere.w, EPSILON);
+    }
+}
@@ -0,0 +1,76 @@
+package nexus.core.render;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import nexus.context.Context;
+import nexus.core.math.Bounds;
+import nexus.core.math.Transform;
+import nexus.core.player.LocalPlayer;
+import org.joml.Vector3f;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Culls a small headless world, the local player looks down -z from the origin
+ * and the models only have bounds so nothing touches opengl
+ */
+public class FrustumCullingSystemTest {
+    private World world;
+    private Visibility visibility;
+    private Transform transform;
+    private int entity;
+
+    @Before
+    public void setup() {
+        Context context = new Context();
+        FrustumCullingSystem culling = new FrustumCullingSystem(context, false);
+        world = new World(new WorldConfigurationBuilder().with(culling).build());
+        context.put(World.class, world);
+        context.put(LocalPlayer.class, new LocalPlayer(context));
+        culling.postInitialization();
+        visibility = context.get(Visibility.class);
+        transform = new Transform();
+        transform.setPosition(0, 0, -10);
+        entity = world.create();
+        world.edit(entity).add(transform).add(model(0));
+    }
+
+    private static Model model(float offset) {
+        Model model = new Model();
+        model.setBounds(new Bounds(new Vector3f(offset - 1, -1, -1), new Vector3f(offset + 1, 1, 1), new Vector3f(offset, 0, 0), (float) Math.sqrt(3)));
+        return model;
+    }
+
+    @Test
+    public void keepsModelsInView() {
+        world.process();
+        assertTrue(visibility.isVisible(entity));
+    }
+
+    @Test
+    public void cullsMovedTransforms() {
+        world.process();
+        transform.setPosition(0, 0, 10);
+        world.process();
+        assertFalse(visibility.isVisible(entity));
+    }
+
+    @Test
+    public void replacedModelIsCulledWithItsOwnBounds() {
+        world.process();
+        world.edit(entity).add(model(1000));
+        world.process();
+        assertFalse(visibility.isVisible(entity));
+    }
+
+    @Test
+    public void changedBoundsAreCulledWithoutMoving() {
+        world.process();
+        world.getMapper(Model.class).get(entity).setBounds(model(1000).getBounds());
+        world.process();
+        assertFalse(visibility.isVisible(entity));
+    }
+}
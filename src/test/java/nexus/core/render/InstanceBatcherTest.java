@@ -0,0 +1,112 @@
+package nexus.core.render;
+
+import org.joml.Matrix4f;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks the {@link InstanceBatcher} grouping and ordering, models and textures
+ * are plain components here so nothing touches opengl
+ */
+public class InstanceBatcherTest {
+    private InstanceBatcher batcher;
+    private Model first, second;
+    private Texture low, high;
+
+    @Before
+    public void setup() {
+        batcher = new InstanceBatcher();
+        first = new Model();
+        second = new Model();
+        low = texture(1);
+        high = texture(2);
+    }
+
+    private static Texture texture(int id) {
+        Texture texture = new Texture();
+        texture.setTextureID(id);
+        return texture;
+    }
+
+    @Test
+    public void groupsByModelAndTexture() {
+        batcher.begin();
+        batcher.add(first, low, new Matrix4f());
+        batcher.add(second, low, new Matrix4f());
+        batcher.add(first, low, new Matrix4f());
+        batcher.add(first, high, new Matrix4f());
+        batcher.add(first, texture(1), new Matrix4f().translation(5, 0, 0));
+        List<InstanceBatcher.Batch> batches = batcher.end();
+        assertEquals(3, batches.size());
+        assertEquals(5, batcher.getInstanceCount());
+        InstanceBatcher.Batch shared = batches.get(0);
+        assertSame(first, shared.getModel());
+        assertEquals(3, shared.getCount());
+        assertEquals(3 * 16, shared.getMatrices().remaining());
+        assertEquals(5, shared.getMatrices().get(2 * 16 + 12), 0);
+    }
+
+    @Test
+    public void sortsByTextureThenModel() {
+        batcher.begin();
+        batcher.add(second, high, new Matrix4f());
+        batcher.add(second, low, new Matrix4f());
+        batcher.add(first, high, new Matrix4f());
+        batcher.add(first, low, new Matrix4f());
+        List<InstanceBatcher.Batch> batches = batcher.end();
+        assertEquals(4, batches.size());
+        assertBatch(batches.get(0), first, 1);
+        assertBatch(batches.get(1), second, 1);
+        assertBatch(batches.get(2), first, 2);
+        assertBatch(batches.get(3), second, 2);
+    }
+
+    private static void assertBatch(InstanceBatcher.Batch batch, Model model, int textureId) {
+        assertSame(model, batch.getModel());
+        assertEquals(textureId, batch.getTextureId());
+    }
+
+    @Test
+    public void buffersAreReusedAcrossFrames() {
+        batcher.begin();
+        for (int i = 0; i < 40; i++)
+            batcher.add(first, low, new Matrix4f());
+        FloatBuffer grown = batcher.end().get(0).getMatrices();
+        assertEquals(40 * 16, grown.remaining());
+        batcher.begin();
+        assertEquals(0, batcher.getBatchCount());
+        batcher.add(first, low, new Matrix4f());
+        InstanceBatcher.Batch batch = batcher.end().get(0);
+        assertSame(grown, batch.getMatrices());
+        assertEquals(1, batch.getCount());
+        assertEquals(16, batch.getMatrices().remaining());
+    }
+
+    @Test
+    public void unusedBatchesAreDropped() {
+        batcher.begin();
+        batcher.add(first, low, new Matrix4f());
+        batcher.add(second, low, new Matrix4f());
+        FloatBuffer buffer = batcher.end().get(0).getMatrices();
+        batcher.begin();
+        batcher.add(first, low, new Matrix4f());
+        batcher.end();
+        assertEquals(2, batcher.getRetainedCount());
+        batcher.begin();
+        batcher.end();
+        assertEquals(1, batcher.getRetainedCount());
+        batcher.begin();
+        batcher.end();
+        assertEquals(0, batcher.getRetainedCount());
+        batcher.begin();
+        batcher.add(first, low, new Matrix4f());
+        assertNotSame(buffer, batcher.end().get(0).getMatrices());
+    }
+}
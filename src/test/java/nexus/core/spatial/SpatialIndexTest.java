@@ -0,0 +1,58 @@
+package nexus.core.spatial;
+
+import com.artemis.utils.IntBag;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link SpatialIndex#queryRay} on the edge cases of the box slab test,
+ * the index has no margin so the boxes are exactly the sphere bounds
+ */
+public class SpatialIndexTest {
+    private SpatialIndex index;
+    private IntBag result;
+
+    @Before
+    public void setup() {
+        index = new SpatialIndex(0);
+        index.add(1, 0, 0, 0, 1);
+        index.add(2, 0, 10, 0, 1);
+        index.add(3, 10, 0, 0, 1);
+        index.rebuild();
+        result = new IntBag();
+    }
+
+    @Test
+    public void axisParallelRayFromBoxFaceHits() {
+        index.queryRay(1, -5, 0, 0, 1, 0, 100, result);
+        assertEquals(2, result.size());
+    }
+
+    @Test
+    public void axisParallelRayOutsideSlabMisses() {
+        index.queryRay(1.5f, -5, 0, 0, 1, 0, 100, result);
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void negativeZeroDirectionIsParallel() {
+        index.queryRay(-1, 5, 0, -0f, -1, 0, 100, result);
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0));
+    }
+
+    @Test
+    public void maxDistanceStopsTheRay() {
+        index.queryRay(-5, 0, 0, 1, 0, 0, 10, result);
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0));
+    }
+
+    @Test
+    public void rayPointingAwayMisses() {
+        index.queryRay(-5, 0, 0, -1, 0, 0, 100, result);
+        assertEquals(0, result.size());
+    }
+}
@@ -0,0 +1,118 @@
+package nexus.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drives the {@link FrameLoop} with a fake clock, time only moves when the test
+ * moves it or the loop sleeps
+ */
+public class FrameLoopTest {
+    private static final long TICK = 16_666_666; //Nanoseconds per tick at 60 ticks per second
+    private FakeClock clock;
+    private FrameLoop loop;
+
+    @Before
+    public void setup() {
+        clock = new FakeClock();
+        loop = new FrameLoop(60, 0, 5, clock);
+    }
+
+    @Test
+    public void firstFrameRunsOneTick() {
+        assertEquals(1, loop.advance());
+        assertEquals(0, loop.getAlpha(), 0);
+        assertEquals(1 / 60f, loop.getFrameDelta(), 1e-6f);
+        assertEquals(1, loop.getTicks());
+    }
+
+    @Test
+    public void partialTicksBecomeAlpha() {
+        loop.advance();
+        clock.now += TICK / 2;
+        assertEquals(0, loop.advance());
+        assertEquals(0.5f, loop.getAlpha(), 1e-3f);
+        clock.now += TICK / 4;
+        assertEquals(0, loop.advance());
+        assertEquals(0.75f, loop.getAlpha(), 1e-3f);
+        clock.now += TICK / 2;
+        assertEquals(1, loop.advance());
+        assertEquals(0.25f, loop.getAlpha(), 1e-3f);
+    }
+
+    @Test
+    public void runsEveryTickThatIsDue() {
+        loop.advance();
+        clock.now += TICK * 3 + TICK / 10;
+        assertEquals(3, loop.advance());
+        assertEquals(0.1f, loop.getAlpha(), 1e-3f);
+        assertEquals(0, loop.getDroppedTicks());
+        assertEquals(4, loop.getTicks());
+    }
+
+    @Test
+    public void catchUpIsCappedAndTheRestDropped() {
+        loop.advance();
+        clock.now += TICK * 20 + TICK / 2;
+        assertEquals(5, loop.advance());
+        assertEquals(15, loop.getDroppedTicks());
+        assertEquals(0.5f, loop.getAlpha(), 1e-3f);
+        clock.now += TICK;
+        assertEquals(1, loop.advance());
+        assertEquals(15, loop.getDroppedTicks());
+    }
+
+    @Test
+    public void droppedTicksAddUp() {
+        loop.setMaxTicksPerFrame(2);
+        loop.advance();
+        clock.now += TICK * 5;
+        assertEquals(2, loop.advance());
+        clock.now += TICK * 4;
+        assertEquals(2, loop.advance());
+        assertEquals(5, loop.getDroppedTicks());
+        assertEquals(3, loop.getFrames());
+    }
+
+    @Test
+    public void paceSleepsOutTheFrameCap() {
+        loop.setFrameCap(100);
+        loop.advance();
+        clock.now += 4_000_000;
+        loop.pace();
+        assertEquals(6_000_000, clock.slept);
+        clock.now += 1_000_000;
+        loop.advance();
+        clock.now += 12_000_000;
+        loop.pace();
+        assertEquals(6_000_000, clock.slept);
+    }
+
+    @Test
+    public void uncappedNeverSleeps() {
+        loop.advance();
+        loop.pace();
+        clock.now += 1_000;
+        loop.advance();
+        loop.pace();
+        assertEquals(0, clock.slept);
+    }
+
+    /**
+     * A clock that only moves when told to
+     */
+    private static class FakeClock implements Clock {
+        private long now = 1_000_000_000, slept = 0;
+
+        public long nanoTime() {
+            return now;
+        }
+
+        public void sleep(long nanos) {
+            slept += nanos;
+            now += nanos;
+        }
+    }
+}
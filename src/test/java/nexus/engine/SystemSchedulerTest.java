@@ -0,0 +1,144 @@
+package nexus.engine;
+
+import com.artemis.BaseSystem;
+import com.artemis.Component;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import nexus.core.defaults.FrameSystem;
+import nexus.core.defaults.Reads;
+import nexus.core.defaults.Writes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs small worlds through the {@link SystemScheduler}, the systems only record
+ * that they ran so the order and the failure handling can be checked
+ */
+public class SystemSchedulerTest {
+    private static final List<String> runs = Collections.synchronizedList(new ArrayList<>());
+    private static volatile String failing;
+    private SystemScheduler scheduler;
+    private World world;
+
+    @Before
+    public void setup() {
+        runs.clear();
+        failing = null;
+        scheduler = new SystemScheduler(true);
+        world = new World(new WorldConfigurationBuilder()
+                .register(scheduler)
+                .with(new WriteA(), new WriteB(), new ReadA(), new Alone(), new Frame())
+                .build());
+    }
+
+    @Test
+    public void conflictingSystemsKeepTheirOrder() {
+        tick();
+        assertEquals(4, runs.size());
+        assertTrue(runs.indexOf("WriteA") < runs.indexOf("ReadA"));
+        assertEquals("Alone", runs.get(3));
+    }
+
+    @Test
+    public void phasesOnlyRunTheirSystems() {
+        scheduler.setPhase(PhasedInvocationStrategy.Phase.FRAME);
+        world.process();
+        assertEquals(Collections.singletonList("Frame"), runs);
+    }
+
+    @Test
+    public void failureOnTheCallingThreadLeavesTheSchedulerUsable() {
+        failing = "WriteA";
+        expectFailure();
+        assertTrue("ReadA waits on the failed system", !runs.contains("ReadA"));
+        failing = null;
+        runs.clear();
+        scheduler.setPhase(PhasedInvocationStrategy.Phase.FRAME);
+        world.process();
+        assertEquals(Collections.singletonList("Frame"), runs);
+        runs.clear();
+        tick();
+        assertEquals(4, runs.size());
+    }
+
+    @Test
+    public void failureOnThePoolStopsThePhase() {
+        failing = "WriteB";
+        expectFailure();
+        assertTrue("nothing starts once a system failed", !runs.contains("Alone"));
+        failing = null;
+        runs.clear();
+        tick();
+        assertEquals(4, runs.size());
+    }
+
+    @Test
+    public void exclusiveFailureIsRethrown() {
+        failing = "Alone";
+        expectFailure();
+        failing = null;
+        runs.clear();
+        tick();
+        assertEquals(4, runs.size());
+    }
+
+    private void tick() {
+        scheduler.setPhase(PhasedInvocationStrategy.Phase.TICK);
+        world.process();
+    }
+
+    private void expectFailure() {
+        try {
+            tick();
+            fail("The failure wasn't rethrown");
+        } catch (RuntimeException e) {
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+        }
+    }
+
+    public static class A extends Component {
+    }
+
+    public static class B extends Component {
+    }
+
+    /**
+     * Records that it ran, or fails when it's the failing system
+     */
+    private abstract static class Recording extends BaseSystem {
+        protected void processSystem() {
+            String name = getClass().getSimpleName();
+            if (name.equals(failing))
+                throw new IllegalStateException(name + " failed");
+            runs.add(name);
+        }
+    }
+
+    @Writes(A.class)
+    private static class WriteA extends Recording {
+    }
+
+    @Writes(B.class)
+    private static class WriteB extends Recording {
+    }
+
+    @Reads(A.class)
+    @Writes({})
+    private static class ReadA extends Recording {
+    }
+
+    private static class Alone extends Recording {
+    }
+
+    @Writes({})
+    private static class Frame extends Recording implements FrameSystem {
+    }
+}
@@ -0,0 +1,131 @@
+package nexus.util.opengl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the {@link StreamRing} bookkeeping with fake fences, a fence only
+ * counts as passed once the test signals it
+ */
+public class StreamRingTest {
+    private FakeFences fences;
+    private StreamRing ring;
+
+    @Before
+    public void setup() {
+        fences = new FakeFences();
+        ring = new StreamRing(3, 1000, 256, fences);
+    }
+
+    @Test
+    public void regionsRotate() {
+        assertEquals(0, ring.beginFrame());
+        assertEquals(1, ring.beginFrame());
+        assertEquals(2, ring.beginFrame());
+        assertEquals(0, ring.beginFrame());
+        assertEquals(4, ring.getFrames());
+    }
+
+    @Test
+    public void allocationsAreAligned() {
+        assertEquals(1024, ring.getRegionSize());
+        assertEquals(3 * 1024, ring.getSize());
+        ring.beginFrame();
+        assertEquals(0, ring.allocate(10));
+        assertEquals(256, ring.allocate(300));
+        assertEquals(768, ring.allocate(1));
+        assertEquals(-1, ring.allocate(1));
+        ring.beginFrame();
+        assertEquals(1024, ring.allocate(256));
+        assertEquals(1280, ring.allocate(256));
+    }
+
+    @Test
+    public void nothingIsAllocatedBeforeTheFirstFrame() {
+        assertEquals(-1, ring.allocate(1));
+    }
+
+    @Test
+    public void regionsAreFencedWhenLeft() {
+        ring.beginFrame();
+        assertTrue(fences.placed.isEmpty());
+        ring.beginFrame();
+        ring.beginFrame();
+        assertEquals(2, fences.placed.size());
+        assertEquals(0, ring.getStalls());
+    }
+
+    @Test
+    public void reusingARegionWaitsOnItsFence() {
+        for (int i = 0; i < 3; i++)
+            ring.beginFrame();
+        long first = fences.placed.get(0);
+        ring.beginFrame();
+        assertEquals(1, ring.getStalls());
+        assertTrue(fences.awaited.contains(first));
+        assertTrue(fences.deleted.contains(first));
+    }
+
+    @Test
+    public void signalledFencesDontStall() {
+        for (int i = 0; i < 3; i++)
+            ring.beginFrame();
+        fences.signalled.addAll(fences.placed);
+        ring.beginFrame();
+        ring.beginFrame();
+        assertEquals(0, ring.getStalls());
+        assertEquals(2, fences.deleted.size());
+    }
+
+    @Test
+    public void reusedRegionsGetANewFence() {
+        fences.signalAll = true;
+        for (int i = 0; i < 7; i++)
+            ring.beginFrame();
+        assertEquals(6, fences.placed.size());
+        assertEquals(4, fences.deleted.size());
+        assertEquals(6, new HashSet<>(fences.placed).size());
+        assertEquals(0, ring.getStalls());
+    }
+
+    @Test
+    public void releaseDeletesThePendingFences() {
+        for (int i = 0; i < 3; i++)
+            ring.beginFrame();
+        ring.release();
+        assertEquals(2, fences.deleted.size());
+        assertTrue(fences.deleted.containsAll(fences.placed));
+    }
+
+    /**
+     * Hands out increasing fence ids and remembers what happened to them
+     */
+    private static class FakeFences implements StreamRing.Fences {
+        private final List<Long> placed = new ArrayList<>(), awaited = new ArrayList<>(), deleted = new ArrayList<>();
+        private final Set<Long> signalled = new HashSet<>();
+        private boolean signalAll = false;
+        private long next = 1;
+
+        public long place() {
+            placed.add(next);
+            return next++;
+        }
+
+        public boolean await(long fence) {
+            awaited.add(fence);
+            return signalAll || signalled.contains(fence);
+        }
+
+        public void delete(long fence) {
+            deleted.add(fence);
+        }
+    }
+}